@@ -0,0 +1,78 @@
+#!/usr/bin/env bash
+# Measure the time to the first request and the resident memory of the application, started as :
+#   jar    : java -jar target/backend-0.0.1-SNAPSHOT.jar (mvn package)
+#   cds    : the extracted jar, with Spring AOT and the CDS archive (mvn -Pcds package)
+#   native : the GraalVM executable target/backend (mvn -Pnative native:compile)
+#
+# Usage : scripts/startup-benchmark.sh [runs] [modes...]     e.g. scripts/startup-benchmark.sh 5 jar cds
+# JAVA_OPTS are added to the java commands, and PORT sets the server port (3001).
+# Without a database, start with the training profile : JAVA_OPTS=-Dspring.profiles.active=training
+# The cds mode runs with AOT, whose beans were frozen with the default profile : it needs the database in any case
+# The results are printed and written to target/startup/startup-result.json
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+RUNS=${1:-5}
+shift || true
+if [ $# -gt 0 ]; then MODES=("$@"); else MODES=(jar cds); fi
+PORT=${PORT:-3001}
+JAVA=${JAVA_HOME:+$JAVA_HOME/bin/}java
+JAR=target/backend-0.0.1-SNAPSHOT.jar
+CDS_DIR=target/cds
+OUT=target/startup
+mkdir -p "$OUT"
+
+command_for() {
+	case "$1" in
+		jar) echo "$JAVA ${JAVA_OPTS:-} -Dserver.port=$PORT -jar $JAR" ;;
+		cds) echo "$JAVA ${JAVA_OPTS:-} -XX:SharedArchiveFile=$CDS_DIR/application.jsa -Dspring.aot.enabled=true -Dserver.port=$PORT -jar $CDS_DIR/backend-0.0.1-SNAPSHOT.jar" ;;
+		native) echo "target/backend ${JAVA_OPTS:-} -Dserver.port=$PORT" ;;
+		*) echo "Unknown mode $1" >&2; exit 1 ;;
+	esac
+}
+
+# One start : prints the milliseconds to the first HTTP response and the RSS in MB at that time
+measure() {
+	local start pid status elapsed rss
+	start=$(date +%s%N)
+	# shellcheck disable=SC2046
+	$(command_for "$1") > "$OUT/$1.log" 2>&1 &
+	pid=$!
+	# Any status counts : the health is DOWN without database but the server answers
+	until status=$(curl -s -o /dev/null -w '%{http_code}' "http://localhost:$PORT/actuator/health") && [ "$status" != "000" ]; do
+		if ! kill -0 "$pid" 2>/dev/null; then
+			echo "The $1 start failed, see $OUT/$1.log" >&2
+			exit 1
+		fi
+		sleep 0.02
+	done
+	elapsed=$(( ($(date +%s%N) - start) / 1000000 ))
+	rss=$(awk '/VmRSS/ { printf "%d", $2 / 1024 }' "/proc/$pid/status")
+	kill "$pid"
+	wait "$pid" 2>/dev/null || true
+	echo "$elapsed $rss"
+}
+
+median() {
+	sort -n | awk '{ v[NR] = $1 } END { print (NR % 2) ? v[(NR + 1) / 2] : int((v[NR / 2] + v[NR / 2 + 1]) / 2) }'
+}
+
+echo "{" > "$OUT/startup-result.json"
+printf "%-8s %12s %10s\n" mode first-ms rss-mb
+for i in "${!MODES[@]}"; do
+	mode=${MODES[$i]}
+	times=()
+	rsses=()
+	for _ in $(seq "$RUNS"); do
+		read -r elapsed rss < <(measure "$mode")
+		times+=("$elapsed")
+		rsses+=("$rss")
+	done
+	first=$(printf '%s\n' "${times[@]}" | median)
+	rss=$(printf '%s\n' "${rsses[@]}" | median)
+	printf "%-8s %12s %10s\n" "$mode" "$first" "$rss"
+	separator=$([ "$i" -lt $((${#MODES[@]} - 1)) ] && echo "," || echo "")
+	echo "  \"$mode\": { \"runs\": $RUNS, \"firstRequestMs\": $first, \"rssMb\": $rss }$separator" >> "$OUT/startup-result.json"
+done
+echo "}" >> "$OUT/startup-result.json"
@@ -0,0 +1,62 @@
+package com.bdr.backend.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Compare two JMH json results, for example the one of main with the one of a branch.
+ * Prints the change of every benchmark found in both files and exits with 1
+ * when one is slower than the threshold (10% by default).
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.command="com.bdr.backend.benchmarks.CompareResults baseline.json target/jmh-result.json 10"
+ */
+public class CompareResults {
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2) {
+			System.err.println("Usage : CompareResults <baseline.json> <current.json> [threshold %]");
+			System.exit(2);
+		}
+		double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10;
+
+		Map<String, JsonNode> baseline = read(args[0]);
+		Map<String, JsonNode> current = read(args[1]);
+
+		boolean regression = false;
+		for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+			JsonNode before = baseline.get(entry.getKey());
+			if (before == null) {
+				continue;
+			}
+			JsonNode after = entry.getValue();
+			double oldScore = before.at("/primaryMetric/score").asDouble();
+			double newScore = after.at("/primaryMetric/score").asDouble();
+			double change = (newScore - oldScore) / oldScore * 100;
+			// A higher score is better in throughput mode, a lower one in the time modes
+			double slowdown = "thrpt".equals(after.get("mode").asText()) ? -change : change;
+			boolean slower = slowdown > threshold;
+			regression |= slower;
+
+			System.out.printf("%-70s %12.3f -> %12.3f %s  %+7.1f%%%s%n", entry.getKey(), oldScore, newScore,
+					after.at("/primaryMetric/scoreUnit").asText(), change, slower ? "  REGRESSION" : "");
+		}
+		System.exit(regression ? 1 : 0);
+	}
+
+	/**
+	 * Read a JMH json result, indexed by benchmark name and parameters
+	 */
+	private static Map<String, JsonNode> read(String path) throws IOException {
+		Map<String, JsonNode> results = new LinkedHashMap<>();
+		for (JsonNode result : new ObjectMapper().readTree(new File(path))) {
+			String key = result.get("benchmark").asText() + result.path("params").toString().replace("\"", "");
+			results.put(key, result);
+		}
+		return results;
+	}
+}
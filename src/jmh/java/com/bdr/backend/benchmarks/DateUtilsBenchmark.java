@@ -0,0 +1,37 @@
+package com.bdr.backend.benchmarks;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import com.bdr.backend.utils.DateUtils;
+
+/**
+ * DateUtils.formatToMySQLDateTime when the second was just formatted (cached)
+ * and when every call formats a new second.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DateUtilsBenchmark {
+
+	private final Instant instant = Instant.parse("2024-06-01T10:00:00Z");
+
+	private long seconds;
+
+	@Benchmark
+	public String sameSecond() {
+		return DateUtils.formatToMySQLDateTime(instant);
+	}
+
+	@Benchmark
+	public String newSecond() {
+		return DateUtils.formatToMySQLDateTime(instant.plusSeconds(++seconds));
+	}
+}
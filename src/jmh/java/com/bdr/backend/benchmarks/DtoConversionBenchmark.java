@@ -0,0 +1,79 @@
+package com.bdr.backend.benchmarks;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.bdr.backend.models.dtos.MessageDto;
+import com.bdr.backend.models.dtos.UserDto;
+import com.bdr.backend.models.entities.Message;
+import com.bdr.backend.models.entities.User;
+import com.bdr.backend.servicesImpl.MessageServiceImpl;
+import com.bdr.backend.servicesImpl.UserServiceImpl;
+
+/**
+ * Compare the hand written convertToDto methods with the reflective ModelMapper they replace.
+ * Add "-prof gc" to jmh.args to get the allocation per conversion.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DtoConversionBenchmark {
+
+	private final ModelMapper modelMapper = new ModelMapper();
+	private final UserServiceImpl userService = new UserServiceImpl();
+	private final MessageServiceImpl messageService = new MessageServiceImpl();
+
+	private User user;
+	private Message message;
+
+	@Setup
+	public void setUp() {
+		user = new User();
+		user.setUserId(1);
+		user.setEmail("test@test.com");
+		user.setName("test");
+		user.setPassword("$2a$10$hashedpassword");
+		user.setCreatedAt(Instant.parse("2024-06-01T10:00:00Z"));
+		user.setUpdatedAt(Instant.parse("2024-06-02T10:00:00Z"));
+
+		message = new Message();
+		message.setMessageId(1);
+		message.setRentalId(2);
+		message.setUserId(1);
+		message.setMessage("Hello, I have a question about the rental");
+		message.setCreatedAt(Instant.parse("2024-06-01T10:00:00Z"));
+
+		// Same warm-up as the former singleton bean : the type maps are built on the first call
+		modelMapper.map(user, UserDto.class);
+		modelMapper.map(message, MessageDto.class);
+	}
+
+	@Benchmark
+	public UserDto userModelMapper() {
+		return modelMapper.map(user, UserDto.class);
+	}
+
+	@Benchmark
+	public UserDto userHandWritten() {
+		return userService.convertToDto(user);
+	}
+
+	@Benchmark
+	public MessageDto messageModelMapper() {
+		return modelMapper.map(message, MessageDto.class);
+	}
+
+	@Benchmark
+	public MessageDto messageHandWritten() {
+		return messageService.convertToDto(message);
+	}
+}
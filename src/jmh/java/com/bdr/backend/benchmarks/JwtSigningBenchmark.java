@@ -0,0 +1,108 @@
+package com.bdr.backend.benchmarks;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.spec.SecretKeySpec;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jose.jws.SignatureAlgorithm;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
+
+import com.bdr.backend.services.JwkService;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.source.ImmutableSecret;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+
+/**
+ * Compare the cost of signing and verifying a token with RS256 (JwkService keys)
+ * and with the former HS256 shared secret.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtSigningBenchmark {
+
+	private static final String HS256_SECRET = "benchmark-secret-of-at-least-32-bytes";
+
+	private JwtEncoder hs256Encoder;
+	private JwtDecoder hs256Decoder;
+	private String hs256Token;
+
+	private JwkService jwkService;
+	private JwtEncoder rs256Encoder;
+	private JwtDecoder rs256Decoder;
+	private String rs256Token;
+
+	@Setup
+	public void setUp() {
+		hs256Encoder = new NimbusJwtEncoder(new ImmutableSecret<>(HS256_SECRET.getBytes()));
+		hs256Decoder = NimbusJwtDecoder
+				.withSecretKey(new SecretKeySpec(HS256_SECRET.getBytes(), "HmacSHA256"))
+				.macAlgorithm(MacAlgorithm.HS256).build();
+
+		jwkService = new JwkService(Duration.ofDays(1));
+		rs256Encoder = new NimbusJwtEncoder(jwkService);
+		DefaultJWTProcessor<SecurityContext> jwtProcessor = new DefaultJWTProcessor<>();
+		jwtProcessor.setJWSKeySelector(new JWSVerificationKeySelector<>(JWSAlgorithm.RS256, jwkService));
+		jwtProcessor.setJWTClaimsSetVerifier((claims, context) -> {
+		});
+		rs256Decoder = new NimbusJwtDecoder(jwtProcessor);
+
+		hs256Token = signHs256();
+		rs256Token = signRs256();
+	}
+
+	@Benchmark
+	public String signHs256() {
+		JwsHeader header = JwsHeader.with(MacAlgorithm.HS256).build();
+		return hs256Encoder.encode(JwtEncoderParameters.from(header, claims())).getTokenValue();
+	}
+
+	@Benchmark
+	public String signRs256() {
+		JwsHeader header = JwsHeader.with(SignatureAlgorithm.RS256).keyId(jwkService.getCurrentKeyId()).build();
+		return rs256Encoder.encode(JwtEncoderParameters.from(header, claims())).getTokenValue();
+	}
+
+	@Benchmark
+	public Jwt verifyHs256() {
+		return hs256Decoder.decode(hs256Token);
+	}
+
+	@Benchmark
+	public Jwt verifyRs256() {
+		return rs256Decoder.decode(rs256Token);
+	}
+
+	/**
+	 * Same claims as JwtService.generateToken
+	 */
+	private static JwtClaimsSet claims() {
+		Instant now = Instant.now();
+		return JwtClaimsSet.builder()
+				.issuer("self")
+				.subject("test@test.com")
+				.claim("login", "test@test.com")
+				.issuedAt(now)
+				.expiresAt(now.plus(1, ChronoUnit.DAYS)).build();
+	}
+}
@@ -0,0 +1,50 @@
+package com.bdr.backend.benchmarks;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.bdr.backend.servicesImpl.RentalColumns;
+import com.bdr.backend.servicesImpl.RentalColumns.FacetCounts;
+
+/**
+ * RentalColumns.count on a catalogue of random rentals, without filter
+ * and with a price range and an owner.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RentalFacetsBenchmark {
+
+	@Param({ "100000", "1000000" })
+	private int rentals;
+
+	private RentalColumns columns;
+
+	@Setup
+	public void setUp() {
+		columns = new RentalColumns(new int[] { 100000, 200000, 300000, 500000, 1000000 }, new int[] { 30, 50, 80, 120, 200 });
+		SplittableRandom random = new SplittableRandom(42);
+		for (int i = 1; i <= rentals; i++) {
+			columns.apply(i, random.nextInt(1500000), 10 + random.nextInt(300), 1 + random.nextInt(rentals / 10));
+		}
+	}
+
+	@Benchmark
+	public FacetCounts noFilter() {
+		return columns.count(null, null, null, null, null, 20);
+	}
+
+	@Benchmark
+	public FacetCounts priceAndOwner() {
+		return columns.count(150000, 450000, null, null, 7, 20);
+	}
+}
@@ -0,0 +1,81 @@
+package com.bdr.backend.benchmarks;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.bdr.backend.models.dtos.RentalDto;
+import com.bdr.backend.models.entities.Rental;
+import com.bdr.backend.servicesImpl.RentalServiceImpl;
+
+/**
+ * Cost of the RentalServiceImpl conversions that run on every GET api/rentals.
+ * The ModelMapper baselines of the users and messages are in DtoConversionBenchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RentalServiceBenchmark {
+
+	@Param({ "10", "1000" })
+	private int rentalCount;
+
+	private final RentalServiceImpl rentalService = new RentalServiceImpl();
+
+	private Rental rental;
+	private List<Rental> rentals;
+
+	@Setup
+	public void setUp() {
+		// Values normally injected from application.properties
+		ReflectionTestUtils.setField(rentalService, "apiHost", "localhost");
+		ReflectionTestUtils.setField(rentalService, "apiPort", 3001);
+
+		rentals = new ArrayList<>(rentalCount);
+		for (int i = 0; i < rentalCount; i++) {
+			rentals.add(rental(i));
+		}
+		rental = rentals.get(0);
+	}
+
+	@Benchmark
+	public RentalDto convertToDto() {
+		return rentalService.convertToDto(rental);
+	}
+
+	@Benchmark
+	public List<RentalDto> convertListToDto() {
+		return rentalService.convertListToDto(rentals);
+	}
+
+	@Benchmark
+	public String constructFullUrl() {
+		return rentalService.constructFullUrl(rental.getPicture());
+	}
+
+	private static Rental rental(int id) {
+		Rental rental = new Rental();
+		rental.setRentalId(id);
+		rental.setName("maison " + id);
+		rental.setSurface(100 + id % 50);
+		rental.setPrice(100000 + id * 10);
+		rental.setPicture("/uploads/maison-bord-mer-seloger.jpg");
+		rental.setDescription("Une maison au bord de la mer");
+		rental.setOwnerId(1 + id % 20);
+		// Rentals created over a few hours, like a page of the real list
+		rental.setCreatedAt(Instant.parse("2024-06-01T10:00:00Z").plusSeconds(id * 37L));
+		rental.setUpdatedAt(Instant.parse("2024-06-02T10:00:00Z").plusSeconds(id * 37L));
+		return rental;
+	}
+}
@@ -0,0 +1,79 @@
+package com.bdr.backend.benchmarks;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.bdr.backend.configuration.SpringSecurityConfig;
+import com.bdr.backend.services.JwkService;
+import com.bdr.backend.services.JwtService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Cost of the security work done by the application on each request :
+ * JwtService.generateToken at login, the JwtDecoder on every authenticated route
+ * and the BCrypt verification at login. The beans are built like in SpringSecurityConfig.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SecurityBenchmark {
+
+	private JwtService jwtService;
+	private JwtDecoder jwtDecoder;
+	private String token;
+
+	private PasswordEncoder passwordEncoder;
+	private String encodedPassword;
+
+	@Setup
+	public void setUp() {
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		JwkService jwkService = new JwkService(Duration.ofDays(1));
+
+		SpringSecurityConfig securityConfig = new SpringSecurityConfig();
+		ReflectionTestUtils.setField(securityConfig, "jwkSetUri", "");
+		ReflectionTestUtils.setField(securityConfig, "jwkService", jwkService);
+		ReflectionTestUtils.setField(securityConfig, "meterRegistry", meterRegistry);
+
+		jwtService = new JwtService();
+		ReflectionTestUtils.setField(jwtService, "jwtEncoder", securityConfig.jwtEncoder());
+		ReflectionTestUtils.setField(jwtService, "jwkService", jwkService);
+		ReflectionTestUtils.setField(jwtService, "meterRegistry", meterRegistry);
+		jwtService.registerMetrics();
+
+		jwtDecoder = securityConfig.jwtDecoder();
+		token = jwtService.generateToken("test@test.com");
+
+		passwordEncoder = securityConfig.passwordEncoder();
+		encodedPassword = passwordEncoder.encode("password");
+	}
+
+	@Benchmark
+	public String generateToken() {
+		return jwtService.generateToken("test@test.com");
+	}
+
+	@Benchmark
+	public Jwt decodeToken() {
+		return jwtDecoder.decode(token);
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public boolean bcryptMatches() {
+		return passwordEncoder.matches("password", encodedPassword);
+	}
+}
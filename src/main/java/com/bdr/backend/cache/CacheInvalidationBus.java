@@ -0,0 +1,169 @@
+package com.bdr.backend.cache;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Keeps the in-process caches of the nodes coherent : an entry evicted on one node
+ * is evicted on the others within the flush and poll intervals.
+ * The reads stay local, only the evictions go through the transport.
+ * The invalidations are buffered and sent in batches, the duplicates coalesced :
+ * a burst of updates of the same user, or of rentals, costs one invalidation per flush.
+ * The node subscribes at its first successful poll, not at startup : it starts, and keeps serving,
+ * while the transport is unreachable.
+ */
+@Component
+public class CacheInvalidationBus {
+
+	private static final Logger logger = LoggerFactory.getLogger(CacheInvalidationBus.class);
+
+	@Autowired
+	private InvalidationTransport transport;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	/** Maximum number of invalidations sent at once */
+	@Value("${cache.invalidation.max-batch:500}")
+	private int maxBatch;
+
+	/** Id of this node, its own invalidations are not received back */
+	private final String nodeId = UUID.randomUUID().toString();
+
+	/** Evicts the local entries of each cache, the key is null for the whole cache */
+	private final Map<String, Consumer<String>> handlers = new ConcurrentHashMap<>();
+
+	/** Invalidations waiting for the next flush, guarded by itself */
+	private final Set<Invalidation> pending = new LinkedHashSet<>();
+
+	/** Set once the transport delivers the invalidations of the other nodes to this one */
+	private volatile boolean subscribed;
+
+	/**
+	 * Register the eviction of a local cache, called for the invalidations of the other nodes
+	 *
+	 * @param cache The name of the cache
+	 * @param handler Evicts the key it receives, or the whole cache for null
+	 */
+	public void register(String cache, Consumer<String> handler) {
+		handlers.put(cache, handler);
+	}
+
+	/**
+	 * Send the eviction of an entry to the other nodes, at the next flush.
+	 * The caller evicts its own entry itself.
+	 *
+	 * @param cache The name of the cache
+	 * @param key The key of the entry, null for the whole cache
+	 */
+	public void publish(String cache, String key) {
+		boolean added = addTo(pending, new Invalidation(cache, key));
+		if (!added) {
+			meterRegistry.counter("cache.invalidation.coalesced", "cache", cache).increment();
+		}
+	}
+
+	/**
+	 * Send the pending invalidations in batches.
+	 * A batch that fails is kept for the next flush, the receivers only see it later.
+	 */
+	@Scheduled(fixedDelayString = "${cache.invalidation.flush-interval:PT0.2S}")
+	public void flush() {
+		List<Invalidation> batch;
+		synchronized (pending) {
+			if (pending.isEmpty()) {
+				return;
+			}
+			batch = new ArrayList<>(pending);
+			pending.clear();
+		}
+		for (int from = 0; from < batch.size(); from += maxBatch) {
+			List<Invalidation> chunk = batch.subList(from, Math.min(batch.size(), from + maxBatch));
+			try {
+				transport.publish(nodeId, chunk);
+				meterRegistry.counter("cache.invalidation.published").increment(chunk.size());
+			} catch (RuntimeException e) {
+				logger.warn("Failed to publish {} cache invalidations, retrying at the next flush", batch.size() - from, e);
+				batch.subList(from, batch.size()).forEach(invalidation -> addTo(pending, invalidation));
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Apply the invalidations of the other nodes to the local caches, subscribing first if needed
+	 */
+	@Scheduled(fixedDelayString = "${cache.invalidation.poll-interval:PT1S}")
+	public void poll() {
+		if (!subscribed && !subscribe()) {
+			return;
+		}
+		List<Invalidation> received;
+		try {
+			received = transport.receive(nodeId);
+		} catch (RuntimeException e) {
+			logger.warn("Failed to receive the cache invalidations", e);
+			return;
+		}
+		Set<Invalidation> coalesced = new LinkedHashSet<>();
+		received.forEach(invalidation -> addTo(coalesced, invalidation));
+		for (Invalidation invalidation : coalesced) {
+			Consumer<String> handler = handlers.get(invalidation.cache());
+			if (handler != null) {
+				handler.accept(invalidation.key());
+			}
+		}
+		meterRegistry.counter("cache.invalidation.received").increment(received.size());
+	}
+
+	/**
+	 * Receive the invalidations published from now on.
+	 * The entries cached before may have missed an invalidation : every registered cache is cleared.
+	 *
+	 * @return false if the transport is unreachable, the next poll tries again
+	 */
+	private boolean subscribe() {
+		try {
+			transport.subscribe(nodeId);
+		} catch (RuntimeException e) {
+			logger.warn("Failed to subscribe to the cache invalidations, retrying at the next poll", e);
+			return false;
+		}
+		subscribed = true;
+		handlers.values().forEach(handler -> handler.accept(null));
+		return true;
+	}
+
+	/**
+	 * Add an invalidation unless it is already covered.
+	 * A whole cache invalidation replaces the entries of the same cache.
+	 *
+	 * @return false if the invalidation was already in the set
+	 */
+	private static boolean addTo(Set<Invalidation> invalidations, Invalidation invalidation) {
+		synchronized (invalidations) {
+			if (invalidations.contains(new Invalidation(invalidation.cache(), null))) {
+				return false;
+			}
+			if (invalidation.isWholeCache()) {
+				invalidations.removeIf(other -> other.cache().equals(invalidation.cache()));
+			}
+			return invalidations.add(invalidation);
+		}
+	}
+}
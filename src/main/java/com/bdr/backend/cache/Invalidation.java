@@ -0,0 +1,17 @@
+package com.bdr.backend.cache;
+
+/**
+ * An entry, or a whole cache, to remove on every node
+ *
+ * @param cache The name of the cache, like "users"
+ * @param key The key of the entry, null for the whole cache
+ */
+public record Invalidation(String cache, String key) {
+
+	/**
+	 * @return true if the whole cache must be cleared
+	 */
+	public boolean isWholeCache() {
+		return key == null;
+	}
+}
@@ -0,0 +1,33 @@
+package com.bdr.backend.cache;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Carries the invalidations between the nodes of the cluster for the CacheInvalidationBus
+ */
+public interface InvalidationTransport {
+
+	/**
+	 * Start receiving the invalidations published from now on
+	 *
+	 * @param node The id of the receiving node
+	 */
+	void subscribe(String node);
+
+	/**
+	 * Send a batch of invalidations to the other nodes
+	 *
+	 * @param origin The id of the sending node, it does not receive its own invalidations
+	 * @param invalidations The invalidations, already coalesced
+	 */
+	void publish(String origin, Collection<Invalidation> invalidations);
+
+	/**
+	 * Get the invalidations published by the other nodes since the previous call
+	 *
+	 * @param node The id of the receiving node
+	 * @return the invalidations, in the order they were published
+	 */
+	List<Invalidation> receive(String node);
+}
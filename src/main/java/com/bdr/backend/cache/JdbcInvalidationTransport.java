@@ -0,0 +1,119 @@
+package com.bdr.backend.cache;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Shares the invalidations through the cache_invalidations table, polled by every node.
+ * A row is read by seq : a row younger than settle may still be preceded by a row of a slower transaction,
+ * so the cursor only moves past the settled prefix, as in the change feed of the rentals.
+ * Unlike the feed, the young rows are delivered at once and remembered so that they are not applied twice.
+ */
+public class JdbcInvalidationTransport implements InvalidationTransport {
+
+	/** Maximum number of rows read per poll, the rest is read at the next one */
+	private static final int MAX_ROWS = 1000;
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private final Duration settle;
+
+	private final Duration retention;
+
+	/** Position of each subscribed node in the table */
+	private final Map<String, Cursor> cursors = new ConcurrentHashMap<>();
+
+	/**
+	 * @param settled Every row up to this seq was delivered
+	 * @param delivered The younger rows already delivered
+	 */
+	private record Cursor(long settled, Set<Long> delivered) {
+	}
+
+	private record Row(long seq, String origin, String cache, String key, Instant createdAt) {
+	}
+
+	/**
+	 * @param jdbcTemplate The JdbcTemplate of the shared database, never routed to a replica
+	 * @param settle How long a row may be overtaken by the row of a slower node, more than the clock skew
+	 * @param retention How long the rows are kept, more than the longest pause of a node
+	 */
+	public JdbcInvalidationTransport(JdbcTemplate jdbcTemplate, Duration settle, Duration retention) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.settle = settle;
+		this.retention = retention;
+	}
+
+	@Override
+	public void subscribe(String node) {
+		Long last = jdbcTemplate.queryForObject("SELECT MAX(seq) FROM cache_invalidations", Long.class);
+		cursors.put(node, new Cursor(last == null ? 0 : last, new HashSet<>()));
+	}
+
+	@Override
+	public void publish(String origin, Collection<Invalidation> invalidations) {
+		Timestamp now = Timestamp.from(Instant.now());
+		List<Object[]> rows = new ArrayList<>(invalidations.size());
+		for (Invalidation invalidation : invalidations) {
+			rows.add(new Object[] { origin, invalidation.cache(), invalidation.key(), now });
+		}
+		jdbcTemplate.batchUpdate("INSERT INTO cache_invalidations (origin, cache_name, cache_key, created_at) "
+				+ "VALUES (?, ?, ?, ?)", rows);
+	}
+
+	@Override
+	public synchronized List<Invalidation> receive(String node) {
+		Cursor cursor = cursors.get(node);
+		if (cursor == null) {
+			return List.of();
+		}
+		List<Row> rows = jdbcTemplate.query("SELECT seq, origin, cache_name, cache_key, created_at "
+				+ "FROM cache_invalidations WHERE seq > ? ORDER BY seq LIMIT ?",
+				(resultSet, rowNum) -> new Row(resultSet.getLong("seq"), resultSet.getString("origin"),
+						resultSet.getString("cache_name"), resultSet.getString("cache_key"),
+						resultSet.getTimestamp("created_at").toInstant()),
+				cursor.settled(), MAX_ROWS);
+
+		Instant settledBefore = Instant.now().minus(settle);
+		long settled = cursor.settled();
+		boolean contiguous = true;
+		List<Invalidation> received = new ArrayList<>();
+		for (Row row : rows) {
+			contiguous = contiguous && row.createdAt().isBefore(settledBefore);
+			if (contiguous) {
+				settled = row.seq();
+			}
+			if (!cursor.delivered().contains(row.seq()) && !row.origin().equals(node)) {
+				received.add(new Invalidation(row.cache(), row.key()));
+			}
+			if (!contiguous) {
+				cursor.delivered().add(row.seq());
+			}
+		}
+
+		long newSettled = settled;
+		cursor.delivered().removeIf(seq -> seq <= newSettled);
+		cursors.put(node, new Cursor(newSettled, cursor.delivered()));
+		return received;
+	}
+
+	/**
+	 * Delete the rows older than the retention, read by every node long ago
+	 */
+	@Scheduled(fixedDelayString = "${cache.invalidation.retention:PT1H}")
+	public void purge() {
+		jdbcTemplate.update("DELETE FROM cache_invalidations WHERE created_at < ?",
+				Timestamp.from(Instant.now().minus(retention)));
+	}
+}
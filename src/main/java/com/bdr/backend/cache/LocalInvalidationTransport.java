@@ -0,0 +1,44 @@
+package com.bdr.backend.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * In-memory broker, for a single node or for several buses in the same JVM (tests)
+ */
+public class LocalInvalidationTransport implements InvalidationTransport {
+
+	/** Invalidations waiting to be received by each subscribed node */
+	private final Map<String, Queue<Invalidation>> queues = new ConcurrentHashMap<>();
+
+	@Override
+	public void subscribe(String node) {
+		queues.putIfAbsent(node, new ConcurrentLinkedQueue<>());
+	}
+
+	@Override
+	public void publish(String origin, Collection<Invalidation> invalidations) {
+		queues.forEach((node, queue) -> {
+			if (!node.equals(origin)) {
+				queue.addAll(invalidations);
+			}
+		});
+	}
+
+	@Override
+	public List<Invalidation> receive(String node) {
+		Queue<Invalidation> queue = queues.get(node);
+		List<Invalidation> received = new ArrayList<>();
+		if (queue != null) {
+			for (Invalidation invalidation = queue.poll(); invalidation != null; invalidation = queue.poll()) {
+				received.add(invalidation);
+			}
+		}
+		return received;
+	}
+}
@@ -0,0 +1,49 @@
+package com.bdr.backend.configuration;
+
+import java.time.Duration;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.bdr.backend.cache.JdbcInvalidationTransport;
+import com.bdr.backend.cache.LocalInvalidationTransport;
+
+/**
+ * Choose the transport of the CacheInvalidationBus with cache.invalidation.transport :
+ * jdbc (the default) for several nodes sharing the database, local for a single node.
+ */
+@Configuration
+public class CacheInvalidationConfig {
+
+	/**
+	 * Polled table of the shared database
+	 *
+	 * @param dataSource The DataSource of the primary
+	 * @param settle How long a row may be overtaken by the row of another node
+	 * @param retention How long the rows are kept
+	 * @return The transport bean.
+	 */
+	@Bean
+	@ConditionalOnProperty(name = "cache.invalidation.transport", havingValue = "jdbc", matchIfMissing = true)
+	public JdbcInvalidationTransport jdbcInvalidationTransport(DataSource dataSource,
+			@Value("${cache.invalidation.settle:PT5S}") Duration settle,
+			@Value("${cache.invalidation.retention:PT1H}") Duration retention) {
+		return new JdbcInvalidationTransport(new JdbcTemplate(dataSource), settle, retention);
+	}
+
+	/**
+	 * In-memory broker, nothing leaves the node
+	 *
+	 * @return The transport bean.
+	 */
+	@Bean
+	@ConditionalOnProperty(name = "cache.invalidation.transport", havingValue = "local")
+	public LocalInvalidationTransport localInvalidationTransport() {
+		return new LocalInvalidationTransport();
+	}
+}
@@ -0,0 +1,75 @@
+package com.bdr.backend.configuration;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import jakarta.annotation.PreDestroy;
+
+@Configuration
+@Profile("reactive")
+public class ReactiveConfig {
+
+	@Value("${spring.r2dbc.url}")
+	private String url;
+
+	@Value("${spring.r2dbc.username:}")
+	private String username;
+
+	@Value("${spring.r2dbc.password:}")
+	private String password;
+
+	@Value("${spring.r2dbc.pool.initial-size:2}")
+	private int initialSize;
+
+	@Value("${spring.r2dbc.pool.max-size:10}")
+	private int maxSize;
+
+	private ConnectionPool connectionPool;
+
+	/**
+	 * Creates the DatabaseClient used by the reactive read path.
+	 * The pool is not exposed as a ConnectionFactory bean : Spring Boot would then
+	 * skip the JDBC DataSource that the rest of the application uses.
+	 *
+	 * @return The DatabaseClient bean.
+	 */
+	@Bean
+	public DatabaseClient reactiveDatabaseClient() {
+		ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(url).mutate()
+				.option(ConnectionFactoryOptions.USER, username)
+				.option(ConnectionFactoryOptions.PASSWORD, password)
+				.build();
+
+		connectionPool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options))
+				.initialSize(initialSize)
+				.maxSize(maxSize)
+				.maxIdleTime(Duration.ofMinutes(30))
+				.build());
+		return DatabaseClient.create(connectionPool);
+	}
+
+	/**
+	 * Get the R2DBC connection pool, to read its metrics
+	 *
+	 * @return the pool behind the DatabaseClient
+	 */
+	public ConnectionPool getConnectionPool() {
+		return connectionPool;
+	}
+
+	@PreDestroy
+	public void closeConnectionPool() {
+		if (connectionPool != null) {
+			connectionPool.dispose();
+		}
+	}
+}
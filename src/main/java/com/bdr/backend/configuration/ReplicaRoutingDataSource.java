@@ -0,0 +1,156 @@
+package com.bdr.backend.configuration;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+/**
+ * Send the read-only transactions to the replica with the fewest active connections,
+ * and everything else to the primary.
+ * A user who just wrote keeps reading from the primary during the read-your-writes window,
+ * so that the replication lag does not hide their own change.
+ * A read whose result is shared with every user (a cached body) goes through onPrimary :
+ * no read-your-writes window covers it, a lagging replica would cache the old data.
+ * Must be wrapped in a LazyConnectionDataSourceProxy : the read-only flag of the transaction
+ * is only known after the transaction manager asked for the connection.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+	static final String PRIMARY = "primary";
+
+	/** Above this number of tracked users, the expired ones are removed */
+	private static final int MAX_TRACKED_WRITERS = 10000;
+
+	private final List<HikariDataSource> replicas;
+
+	private final long readYourWritesNanos;
+
+	/** Last write of each user, in System.nanoTime() */
+	private final Map<String, Long> lastWrites = new ConcurrentHashMap<>();
+
+	/** Rotates the first replica checked, so that idle replicas share the load */
+	private final AtomicInteger nextReplica = new AtomicInteger();
+
+	/** Set while the current thread runs a read of onPrimary */
+	private static final ThreadLocal<Boolean> PRIMARY_READS = new ThreadLocal<>();
+
+	/**
+	 * @param primary The DataSource of the primary, used for the writes
+	 * @param replicas The pools of the replicas, used for the read-only transactions
+	 * @param readYourWrites How long a user reads from the primary after a write
+	 */
+	public ReplicaRoutingDataSource(DataSource primary, List<HikariDataSource> replicas, Duration readYourWrites) {
+		this.replicas = replicas;
+		this.readYourWritesNanos = readYourWrites.toNanos();
+
+		Map<Object, Object> targets = new HashMap<>();
+		targets.put(PRIMARY, primary);
+		for (int i = 0; i < replicas.size(); i++) {
+			targets.put(i, replicas.get(i));
+		}
+		setTargetDataSources(targets);
+		setDefaultTargetDataSource(primary);
+		afterPropertiesSet();
+	}
+
+	/**
+	 * Run a read on the primary, even in a read-only transaction.
+	 * The transaction must start inside the read : the connection of a transaction already running is not changed.
+	 *
+	 * @param read The read, its transactions go to the primary
+	 * @return the result of the read
+	 */
+	public static <T> T onPrimary(Supplier<T> read) {
+		Boolean previous = PRIMARY_READS.get();
+		PRIMARY_READS.set(Boolean.TRUE);
+		try {
+			return read.get();
+		} finally {
+			if (previous == null) {
+				PRIMARY_READS.remove();
+			}
+		}
+	}
+
+	@Override
+	protected Object determineCurrentLookupKey() {
+		if (PRIMARY_READS.get() != null) {
+			return PRIMARY;
+		}
+		String user = currentUser();
+		if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+			if (user != null && TransactionSynchronizationManager.isActualTransactionActive()) {
+				recordWrite(user);
+			}
+			return PRIMARY;
+		}
+		if (replicas.isEmpty() || (user != null && wroteRecently(user))) {
+			return PRIMARY;
+		}
+		return leastActiveReplica();
+	}
+
+	/**
+	 * Index of the replica with the fewest active connections, starting from a rotating one
+	 */
+	private int leastActiveReplica() {
+		int start = Math.floorMod(nextReplica.getAndIncrement(), replicas.size());
+		int best = start;
+		int bestActive = Integer.MAX_VALUE;
+		for (int i = 0; i < replicas.size(); i++) {
+			int candidate = (start + i) % replicas.size();
+			HikariPoolMXBean pool = replicas.get(candidate).getHikariPoolMXBean();
+			// The pool is created with the first connection
+			int active = pool == null ? 0 : pool.getActiveConnections() + pool.getThreadsAwaitingConnection();
+			if (active < bestActive) {
+				best = candidate;
+				bestActive = active;
+			}
+		}
+		return best;
+	}
+
+	private void recordWrite(String user) {
+		long now = System.nanoTime();
+		if (lastWrites.size() > MAX_TRACKED_WRITERS) {
+			lastWrites.values().removeIf(writtenAt -> now - writtenAt > readYourWritesNanos);
+		}
+		lastWrites.put(user, now);
+	}
+
+	private boolean wroteRecently(String user) {
+		Long writtenAt = lastWrites.get(user);
+		if (writtenAt == null) {
+			return false;
+		}
+		if (System.nanoTime() - writtenAt > readYourWritesNanos) {
+			lastWrites.remove(user, writtenAt);
+			return false;
+		}
+		return true;
+	}
+
+	private static String currentUser() {
+		Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+		if (authentication == null || !authentication.isAuthenticated()
+				|| authentication instanceof AnonymousAuthenticationToken) {
+			return null;
+		}
+		return authentication.getName();
+	}
+}
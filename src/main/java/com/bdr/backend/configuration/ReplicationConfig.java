@@ -0,0 +1,85 @@
+package com.bdr.backend.configuration;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Replace the single DataSource by a primary and its read replicas
+ * when replication.enabled is true.
+ */
+@Configuration
+@ConditionalOnProperty(name = "replication.enabled", havingValue = "true")
+public class ReplicationConfig {
+
+	@Value("${replication.replica-urls}")
+	private List<String> replicaUrls;
+
+	@Value("${replication.username:${spring.datasource.username:}}")
+	private String replicaUsername;
+
+	@Value("${replication.password:${spring.datasource.password:}}")
+	private String replicaPassword;
+
+	@Value("${replication.read-your-writes:PT5S}")
+	private Duration readYourWrites;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	private final List<HikariDataSource> pools = new ArrayList<>();
+
+	/**
+	 * Creates the DataSource used by JPA and the JdbcTemplate.
+	 * The connection is only taken from a pool at the first statement,
+	 * once the transaction is known to be read-only or not.
+	 *
+	 * @param properties The spring.datasource properties of the primary
+	 * @return The DataSource bean.
+	 */
+	@Bean
+	@Primary
+	public DataSource dataSource(DataSourceProperties properties) {
+		HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+		primary.setPoolName("primary");
+		primary.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+		pools.add(primary);
+
+		List<HikariDataSource> replicas = new ArrayList<>();
+		for (int i = 0; i < replicaUrls.size(); i++) {
+			HikariDataSource replica = new HikariDataSource();
+			replica.setJdbcUrl(replicaUrls.get(i));
+			replica.setUsername(replicaUsername);
+			replica.setPassword(replicaPassword);
+			replica.setReadOnly(true);
+			replica.setPoolName("replica-" + i);
+			replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+			replicas.add(replica);
+			pools.add(replica);
+		}
+
+		return new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(primary, replicas, readYourWrites));
+	}
+
+	@PreDestroy
+	public void closePools() {
+		pools.forEach(HikariDataSource::close);
+	}
+}
@@ -1,10 +1,12 @@
 package com.bdr.backend.configuration;
 
+import java.time.Duration;
 import java.util.Arrays;
 
-import javax.crypto.spec.SecretKeySpec;
-
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.Customizer;
@@ -15,7 +17,7 @@ import org.springframework.security.config.annotation.web.configurers.AbstractHt
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
-import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jose.jws.SignatureAlgorithm;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.jwt.JwtEncoder;
 import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
@@ -25,14 +27,31 @@ import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 import org.springframework.web.filter.CorsFilter;
 
-import com.nimbusds.jose.jwk.source.ImmutableSecret;
+import com.bdr.backend.limits.AdaptiveConcurrencyLimit;
+import com.bdr.backend.limits.ConcurrencyLimitFilter;
+import com.bdr.backend.metrics.TimedJwtDecoder;
+import com.bdr.backend.metrics.TimedPasswordEncoder;
+import com.bdr.backend.services.JwkService;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+
+import io.micrometer.core.instrument.MeterRegistry;
 
 @Configuration
 @EnableWebSecurity
 public class SpringSecurityConfig {
 	
-	@Value("${jwt.secret}")
-    private String jwtKey;
+	/** JWKS url of the issuer, only set on nodes that verify tokens issued elsewhere */
+	@Value("${jwt.jwk-set-uri:}")
+	private String jwkSetUri;
+
+	@Autowired
+	private JwkService jwkService;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
 	
 	/**
 	 * Creates a CorsFilter bean to configure enable the front-end on port 4200
@@ -51,9 +70,41 @@ public class SpringSecurityConfig {
 		return new CorsFilter(source); 
 	}
 
-	/** List of routes that do not require authentication */
+	/**
+	 * Registers the ConcurrencyLimitFilter just before the security filter chain :
+	 * the shed requests cost no token verification, and the routes ignored by the chain
+	 * (login, register) are limited too.
+	 *
+	 * @param enabled false to serve every request
+	 * @param initialLimit The limit before the first measures
+	 * @param minLimit The lowest limit
+	 * @param maxLimit The highest limit, at most the number of request threads
+	 * @param smoothing Part of the new limit taken at each adjustment
+	 * @param windowSize Number of requests per adjustment
+	 * @param retryAfter The Retry-After of the rejected requests
+	 * @return The registration of the filter.
+	 */
+	@Bean
+	public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(
+			@Value("${concurrency.limit.enabled:true}") boolean enabled,
+			@Value("${concurrency.limit.initial:20}") int initialLimit,
+			@Value("${concurrency.limit.min:4}") int minLimit,
+			@Value("${concurrency.limit.max:200}") int maxLimit,
+			@Value("${concurrency.limit.smoothing:0.2}") double smoothing,
+			@Value("${concurrency.limit.window:10}") int windowSize,
+			@Value("${concurrency.limit.retry-after:PT1S}") Duration retryAfter) {
+		AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(initialLimit, minLimit, maxLimit, smoothing, windowSize);
+		FilterRegistrationBean<ConcurrencyLimitFilter> registration = new FilterRegistrationBean<>(
+				new ConcurrencyLimitFilter(limit, meterRegistry, retryAfter));
+		registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 1);
+		registration.setEnabled(enabled);
+		return registration;
+	}
+
+	/** List of routes that do not require authentication, the actuator ones only exist on the management port */
 	private static final String[] AUTH_WHITELIST = { "/v3/api-docs/**", "/swagger-ui/**", "/api/auth/register",
-			"/api/auth/login", "OPTIONS/**", "/uploads/**"};
+			"/api/auth/login", "OPTIONS/**", "/uploads/**", "/.well-known/jwks.json",
+			"/actuator/health", "/actuator/prometheus" };
 
 	/**
 	 * Configure the security filter chain.
@@ -87,33 +138,47 @@ public class SpringSecurityConfig {
 
 	/**
 	 * Creates a JwtDecoder bean to decode JWTs.
+	 * Tokens are verified locally with the public keys : the ones of this node,
+	 * or the ones fetched once and cached from the issuer JWKS url when it is set.
+	 * The verification time is recorded in the jwt timer.
 	 *
 	 * @return The JwtDecoder bean.
 	 */
 	@Bean
 	public JwtDecoder jwtDecoder() {
-		SecretKeySpec secretKey = new SecretKeySpec(this.jwtKey.getBytes(), "HmacSHA256");
-		return NimbusJwtDecoder.withSecretKey(secretKey).macAlgorithm(MacAlgorithm.HS256).build();
+		if (!jwkSetUri.isBlank()) {
+			return new TimedJwtDecoder(
+					NimbusJwtDecoder.withJwkSetUri(jwkSetUri).jwsAlgorithm(SignatureAlgorithm.RS256).build(),
+					meterRegistry);
+		}
+
+		DefaultJWTProcessor<SecurityContext> jwtProcessor = new DefaultJWTProcessor<>();
+		jwtProcessor.setJWSKeySelector(new JWSVerificationKeySelector<>(JWSAlgorithm.RS256, jwkService));
+		// Claims are validated by the NimbusJwtDecoder itself
+		jwtProcessor.setJWTClaimsSetVerifier((claims, context) -> {
+		});
+		return new TimedJwtDecoder(new NimbusJwtDecoder(jwtProcessor), meterRegistry);
 	}
 	
 	/**
-	 * Generate signed token.
+	 * Generate signed token with the current RSA key.
 	 *
 	 * @return The JwtEncoder bean.
 	 */
 	@Bean
 	public JwtEncoder jwtEncoder() {
-		return new NimbusJwtEncoder(new ImmutableSecret<>(this.jwtKey.getBytes()));
+		return new NimbusJwtEncoder(jwkService);
 	}
 	
 	/**
 	 * Creates a PasswordEncoder bean to encode passwords.
+	 * The hashing time is recorded in the bcrypt timer.
 	 *
 	 * @return The PasswordEncoder bean.
 	 */
 	@Bean
 	public PasswordEncoder passwordEncoder() {
-		return new BCryptPasswordEncoder();
+		return new TimedPasswordEncoder(new BCryptPasswordEncoder(), meterRegistry);
 	}
 
 }
@@ -0,0 +1,58 @@
+package com.bdr.backend.configuration;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import com.bdr.backend.metrics.SqlBudgetFilter;
+import com.bdr.backend.metrics.SqlCountingDataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Count the statements of each request : the DataSource is wrapped in a SqlCountingDataSource
+ * and the SqlBudgetFilter runs before all the other filters, security included.
+ */
+@Configuration
+public class SqlBudgetConfig {
+
+	/**
+	 * Wraps the DataSource beans, whether it is the pool or the replica router.
+	 * Static so that it does not initialize this configuration too early.
+	 *
+	 * @return The post processor of the DataSource beans.
+	 */
+	@Bean
+	public static BeanPostProcessor sqlCountingDataSourcePostProcessor() {
+		return new BeanPostProcessor() {
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				if (bean instanceof DataSource dataSource && !(bean instanceof SqlCountingDataSource)) {
+					return new SqlCountingDataSource(dataSource);
+				}
+				return bean;
+			}
+		};
+	}
+
+	/**
+	 * Registers the SqlBudgetFilter first in the chain
+	 *
+	 * @param meterRegistry The registry of the metrics
+	 * @param repeatedStatements From how many executions of the same statement a request is reported
+	 * @return The registration of the filter.
+	 */
+	@Bean
+	public FilterRegistrationBean<SqlBudgetFilter> sqlBudgetFilter(MeterRegistry meterRegistry,
+			@Value("${sql.budget.repeated-statements:5}") int repeatedStatements) {
+		FilterRegistrationBean<SqlBudgetFilter> registration = new FilterRegistrationBean<>(
+				new SqlBudgetFilter(meterRegistry, repeatedStatements));
+		registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+		return registration;
+	}
+}
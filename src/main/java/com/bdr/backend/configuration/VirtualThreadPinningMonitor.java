@@ -0,0 +1,97 @@
+package com.bdr.backend.configuration;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+
+/**
+ * Report the virtual threads pinned to their carrier thread, which happens
+ * when they block inside a synchronized block (for example in the JDBC driver).
+ * Only active when the virtual thread mode is enabled.
+ */
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadPinningMonitor implements SmartLifecycle {
+
+	private static final Logger logger = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+
+	/** Package prefixes used to tell which part of the app pinned the thread */
+	private static final Map<String, List<String>> CATEGORIES = Map.of(
+			"jdbc", List.of("com.mysql.", "com.zaxxer.hikari.", "org.h2.", "org.hibernate."),
+			"security", List.of("org.springframework.security.", "com.nimbusds."));
+
+	/** Pinned events shorter than this are ignored */
+	@Value("${virtual-threads.pinning-threshold:20ms}")
+	private Duration threshold;
+
+	private final Map<String, LongAdder> pinnedCounts = new ConcurrentHashMap<>();
+
+	private RecordingStream recordingStream;
+
+	@Override
+	public void start() {
+		recordingStream = new RecordingStream();
+		recordingStream.enable("jdk.VirtualThreadPinned").withThreshold(threshold).withStackTrace();
+		recordingStream.onEvent("jdk.VirtualThreadPinned", this::onPinned);
+		recordingStream.startAsync();
+	}
+
+	@Override
+	public void stop() {
+		recordingStream.close();
+		recordingStream = null;
+		logger.info("Pinned virtual threads by category : {}", getPinnedCounts());
+	}
+
+	@Override
+	public boolean isRunning() {
+		return recordingStream != null;
+	}
+
+	/**
+	 * Get the number of pinned events seen since startup
+	 *
+	 * @return counts keyed by category : jdbc, security or other
+	 */
+	public Map<String, Long> getPinnedCounts() {
+		return pinnedCounts.entrySet().stream()
+				.collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().sum()));
+	}
+
+	private void onPinned(RecordedEvent event) {
+		List<RecordedFrame> frames = event.getStackTrace() == null ? List.of() : event.getStackTrace().getFrames();
+		String category = categorize(frames);
+		pinnedCounts.computeIfAbsent(category, key -> new LongAdder()).increment();
+
+		String topFrames = frames.stream().limit(8)
+				.map(frame -> frame.getMethod().getType().getName() + "." + frame.getMethod().getName())
+				.collect(Collectors.joining("\n\tat "));
+		logger.warn("Virtual thread pinned for {} ms ({})\n\tat {}", event.getDuration().toMillis(), category, topFrames);
+	}
+
+	private static String categorize(List<RecordedFrame> frames) {
+		for (RecordedFrame frame : frames) {
+			String className = frame.getMethod().getType().getName();
+			for (Map.Entry<String, List<String>> category : CATEGORIES.entrySet()) {
+				if (category.getValue().stream().anyMatch(className::startsWith)) {
+					return category.getKey();
+				}
+			}
+		}
+		return "other";
+	}
+}
@@ -23,6 +23,7 @@ import com.bdr.backend.models.dtos.UserDto;
 import com.bdr.backend.models.entities.User;
 import com.bdr.backend.models.requests.LoginRequest;
 import com.bdr.backend.models.requests.RegisterRequest;
+import com.bdr.backend.services.JwkService;
 import com.bdr.backend.services.JwtService;
 import com.bdr.backend.services.UserService;
 
@@ -40,6 +41,9 @@ public class AuthController {
 
 	@Autowired
 	private JwtService jwtService;
+
+	@Autowired
+	private JwkService jwkService;
 	
 	@Autowired
 	private UserService userService;
@@ -60,6 +64,9 @@ public class AuthController {
 	
 	public ResponseEntity<Map<String, String>> register(@Valid @RequestBody RegisterRequest request) {
 		
+		// A node that cannot sign the token must not create the user
+		jwkService.requireIssuer();
+
 		// Create new user in the database
 		userService.createUser(request.getEmail(), passwordEncoder.encode(request.getPassword()), request.getName());
 
@@ -125,8 +132,8 @@ public class AuthController {
 	        throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Login claim not found in token");
 	    }
 
-	    return userService.getUserByEmail(login)
-	            .map(userService::convertToDto)
+	    // Served from the user cache, the token was already verified by the security filter
+	    return userService.getUserDtoByEmail(login)
 	            .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "User not found"));
 	}
 
@@ -0,0 +1,146 @@
+package com.bdr.backend.controllers;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.bdr.backend.services.ExportService;
+import com.bdr.backend.services.ExportService.Format;
+import com.bdr.backend.services.JwtService;
+import com.bdr.backend.utils.ContentEncodingUtils;
+
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
+
+@RestController
+@CrossOrigin(origins = "http://localhost:4200")
+@Tag(name = "ExportController", description = "Routes related to the bulk exports")
+public class ExportController {
+
+	/** Size of the buffer between the rows and the socket, or the gzip stream */
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	@FunctionalInterface
+	private interface Export {
+		void write(Format format, Writer writer) throws IOException;
+	}
+
+	@Autowired
+	private ExportService exportService;
+
+	@Autowired
+	private JwtService jwtService;
+
+	/**
+	 * Export the rentals, sorted by id, streamed from the database as they are read.
+	 * An interrupted export is resumed with after set to the last id received.
+	 * 
+	 * @param format "ndjson" (one JSON object per line) or "csv"
+	 * @param from Only the rentals created at or after this instant
+	 * @param to Only the rentals created before this instant
+	 * @param owner Only the rentals of this owner
+	 * @param after Only the rentals with a greater id
+	 * @param acceptEncoding The encodings accepted by the client, the export is gzipped if possible
+	 * @param response The response the rows are written to
+	 */
+	@GetMapping("api/export/rentals")
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "200", description = "Rentals exported", content = @Content(schema = @Schema())),
+			@ApiResponse(responseCode = "400", description = "Unknown format", content = @Content(schema = @Schema())),
+			@ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content(schema = @Schema())), })
+
+	public void exportRentals(@RequestParam(value = "format", defaultValue = "ndjson") String format,
+			@RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+			@RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+			@RequestParam(value = "owner", required = false) Integer owner,
+			@RequestParam(value = "after", defaultValue = "0") int after,
+			@RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+			HttpServletResponse response) throws IOException {
+		stream("rentals", format, acceptEncoding, response,
+				(exportFormat, writer) -> exportService.exportRentals(exportFormat, from, to, owner, after, writer));
+	}
+
+	/**
+	 * Export the messages about the rentals of the caller, sorted by id, streamed from the database as they are read.
+	 * The messages are private : only their rental owner can export them.
+	 * An interrupted export is resumed with after set to the last id received.
+	 * 
+	 * @param format "ndjson" (one JSON object per line) or "csv"
+	 * @param from Only the messages created at or after this instant
+	 * @param to Only the messages created before this instant
+	 * @param after Only the messages with a greater id
+	 * @param acceptEncoding The encodings accepted by the client, the export is gzipped if possible
+	 * @param response The response the rows are written to
+	 */
+	@GetMapping("api/export/messages")
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "200", description = "Messages exported", content = @Content(schema = @Schema())),
+			@ApiResponse(responseCode = "400", description = "Unknown format", content = @Content(schema = @Schema())),
+			@ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content(schema = @Schema())), })
+
+	public void exportMessages(@RequestParam(value = "format", defaultValue = "ndjson") String format,
+			@RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+			@RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+			@RequestParam(value = "after", defaultValue = "0") int after,
+			@RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+			HttpServletResponse response) throws IOException {
+		Integer ownerId = jwtService.getUserIdFromToken();
+		stream("messages", format, acceptEncoding, response,
+				(exportFormat, writer) -> exportService.exportMessages(exportFormat, from, to, ownerId, after, writer));
+	}
+
+	/**
+	 * Write the export on the request thread : the response is committed by the first full buffer,
+	 * so an error after that point can only cut the body, the client resumes from the last complete line.
+	 */
+	private static void stream(String name, String format, String acceptEncoding, HttpServletResponse response,
+			Export export) throws IOException {
+		Format exportFormat = parseFormat(format);
+		boolean gzip = ContentEncodingUtils.acceptsGzip(acceptEncoding);
+
+		response.setContentType(exportFormat.getContentType());
+		response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+		response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+				"attachment; filename=\"" + name + "." + exportFormat.getExtension() + "\"");
+		response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+		if (gzip) {
+			response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+		}
+
+		OutputStream out = response.getOutputStream();
+		if (gzip) {
+			out = new GZIPOutputStream(out, BUFFER_SIZE);
+		}
+		try (Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE)) {
+			export.write(exportFormat, writer);
+		}
+	}
+
+	private static Format parseFormat(String format) {
+		try {
+			return Format.valueOf(format.toUpperCase());
+		} catch (IllegalArgumentException e) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown export format: " + format);
+		}
+	}
+}
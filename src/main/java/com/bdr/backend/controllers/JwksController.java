@@ -0,0 +1,38 @@
+package com.bdr.backend.controllers;
+
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.bdr.backend.services.JwkService;
+
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.ExampleObject;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+@RestController
+@Tag(name = "JwksController", description = "Public keys to verify the tokens")
+public class JwksController {
+
+	@Autowired
+	private JwkService jwkService;
+
+	/**
+	 * Get the public keys that verify the tokens issued by this API
+	 *
+	 * @return the JWK set, without any private part
+	 */
+	@GetMapping(".well-known/jwks.json")
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "200", description = "Public keys loaded successfully",
+					content = @Content(examples = @ExampleObject(value = "{\"keys\": [{\"kty\": \"RSA\", \"e\": \"AQAB\", "
+							+ "\"use\": \"sig\", \"kid\": \"a1b2\", \"alg\": \"RS256\", \"n\": \"...\"}]}"))), })
+
+	public Map<String, Object> getKeys() {
+		return jwkService.getPublicJwkSet().toJSONObject();
+	}
+}
@@ -6,11 +6,16 @@ import java.util.Map;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.bdr.backend.models.dtos.InboxDto;
 import com.bdr.backend.models.requests.MessageRequest;
+import com.bdr.backend.services.InboxService;
 import com.bdr.backend.services.JwtService;
 import com.bdr.backend.services.MessageService;
 
@@ -30,6 +35,9 @@ public class MessageController {
 	@Autowired
 	private MessageService messageService;
 	
+	@Autowired
+	private InboxService inboxService;
+
 	@Autowired
 	private JwtService jwtService;
 
@@ -64,4 +72,40 @@ public class MessageController {
 			return ResponseEntity.status(400).body(errorResponse);
 		}
 	}
+
+	/**
+	 * Get the unread messages of the rentals of the connected owner, cheap enough for every page view
+	 * 
+	 * @return the total of unread messages and the rentals that have some
+	 */
+	@GetMapping("api/messages/inbox")
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "200", description = "Inbox found", 
+					content = @Content(examples = @ExampleObject(value = "{\"total\": 3, \"rentals\": [{\"rental_id\": 1, \"unread\": 2}, "
+							+ "{\"rental_id\": 4, \"unread\": 1}]}"), schema = @Schema())),
+			@ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content(schema = @Schema())), })
+
+	public InboxDto getInbox() {
+		return inboxService.getInbox(jwtService.getUserIdFromToken());
+	}
+
+	/**
+	 * Mark the messages of a rental of the connected owner as read
+	 * 
+	 * @param rentalId The id of the rental
+	 * @return a map containing the message "Messages marked as read"
+	 */
+	@PutMapping("api/messages/inbox/{rentalId}/read")
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "200", description = "Messages marked as read", 
+					content = @Content(examples = @ExampleObject(value = "{\"message\": \"Messages marked as read\"}"))),
+			@ApiResponse(responseCode = "401", description = "Unauthorized, or not a rental of the user", content = @Content(schema = @Schema())), })
+
+	public ResponseEntity<Map<String, String>> markAsRead(@PathVariable("rentalId") int rentalId) {
+		inboxService.markAsRead(jwtService.getUserIdFromToken(), rentalId);
+
+		Map<String, String> response = new HashMap<>();
+		response.put("message", "Messages marked as read");
+		return ResponseEntity.ok(response);
+	}
 }
@@ -0,0 +1,67 @@
+package com.bdr.backend.controllers;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.bdr.backend.models.dtos.RentalDto;
+import com.bdr.backend.services.ReactiveRentalService;
+
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.ExampleObject;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@RestController
+@Profile("reactive")
+@CrossOrigin(origins = "http://localhost:4200")
+@Tag(name = "ReactiveRentalController", description = "Non-blocking read routes for rentals")
+public class ReactiveRentalController {
+
+	@Autowired
+	private ReactiveRentalService reactiveRentalService;
+
+	/**
+	 * Stream all rentals, one JSON object per line.
+	 * A row is only read from the database when the client is ready to receive it.
+	 *
+	 * @return a flux of rentalsDto
+	 */
+	@GetMapping(value = "api/reactive/rentals", produces = MediaType.APPLICATION_NDJSON_VALUE)
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "200", description = "Rentals streamed successfully",
+					content = @Content(examples = @ExampleObject(value = "{\"id\": 1, \"name\": \"maison 1\", ...}\n"
+							+ "{\"id\": 2, \"name\": \"maison 2\", ...}"), schema = @Schema())),
+			@ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content(schema = @Schema())), })
+
+	public Flux<RentalDto> getRentals() {
+		return reactiveRentalService.getAllRentals();
+	}
+
+	/**
+	 * Get a rental by its id
+	 *
+	 * @param rentalId The id of the rental that come from the URL
+	 * @return a mono of the RentalDto
+	 */
+	@GetMapping("api/reactive/rentals/{rentalId}")
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "200", description = "Rental info loaded successfully",
+					content = @Content(examples = @ExampleObject(value = "{\"id\": 1, \"name\": \"maison 1\", ...}"), schema = @Schema())),
+			@ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content(schema = @Schema())), })
+
+	public Mono<RentalDto> getRental(@PathVariable("rentalId") int rentalId) {
+		return reactiveRentalService.getRentalById(rentalId)
+				.switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Rental not found")));
+	}
+}
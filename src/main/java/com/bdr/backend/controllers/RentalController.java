@@ -1,27 +1,39 @@
 package com.bdr.backend.controllers;
 
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.TimeoutException;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
 
+import com.bdr.backend.models.dtos.RentalChangesDto;
 import com.bdr.backend.models.dtos.RentalDto;
+import com.bdr.backend.models.dtos.RentalFacetsDto;
+import com.bdr.backend.models.dtos.RentalStatsDto;
 import com.bdr.backend.models.entities.Rental;
 import com.bdr.backend.services.JwtService;
+import com.bdr.backend.services.RentalChangeService;
+import com.bdr.backend.services.RentalFacetService;
 import com.bdr.backend.services.RentalService;
+import com.bdr.backend.services.RentalStatsService;
+import com.bdr.backend.services.RentalsResponseCache;
+import com.bdr.backend.services.RentalsResponseCache.RentalsBody;
+import com.bdr.backend.utils.ContentEncodingUtils;
 import com.bdr.backend.utils.PictureUtils;
 
 import io.swagger.v3.oas.annotations.media.Content;
@@ -42,33 +54,166 @@ public class RentalController {
 	@Autowired
 	private JwtService jwtService;
 
+	@Autowired
+	private RentalsResponseCache rentalsResponseCache;
+
+	@Autowired
+	private RentalChangeService rentalChangeService;
+
+	@Autowired
+	private RentalStatsService rentalStatsService;
+
+	@Autowired
+	private RentalFacetService rentalFacetService;
+
 	/**
-	 * Get all rentals
+	 * Get all rentals.
+	 * The body is served from the precomputed JSON, gzipped if the client accepts it,
+	 * and concurrent requests with the same parameter share the same load when it must be rebuilt.
 	 * 
-	 * @return a map containing the list of rentalsDto
+	 * @param include "owner" to embed a summary of each owner, loaded in the same query
+	 * @param acceptEncoding The encodings accepted by the client
+	 * @param ifNoneMatch The ETags of the bodies the client already has
+	 * @return the JSON of a map containing the list of rentalsDto
 	 */
-	@GetMapping("api/rentals")
+	@GetMapping(value = "api/rentals", produces = MediaType.APPLICATION_JSON_VALUE)
 	@ApiResponses(value = {
 			@ApiResponse(responseCode = "200", description = "Rentals info loaded successfully", 
 					content = @Content(examples = @ExampleObject(value = "{\"rentalId\": \"1\", "
 					+ "\"name\": \"maison 1\", " + "\"surface\": \"170\", " + "\"price\": \"540000\","
 					+ "\"description\": \"bdr of description\", " + "\"owner_id\": \"1\","
 					+ " \"createdAt\": \"2012/12/02\", " + "\"updatedAt\": \"2012/12/02\"}"), schema = @Schema())),
-			@ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content(schema = @Schema())), })
+			@ApiResponse(responseCode = "304", description = "The client already has this version of the rentals", 
+					content = @Content(schema = @Schema())),
+			@ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content(schema = @Schema())),
+			@ApiResponse(responseCode = "503", description = "The rentals loaded by a concurrent request took too long", 
+					content = @Content(schema = @Schema())), })
+
+	public ResponseEntity<byte[]> getRentals(@RequestParam(value = "include", required = false) String include,
+			@RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+			@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+		boolean withOwner = "owner".equals(include);
+		RentalsBody body;
+		try {
+			body = rentalsResponseCache.getRentals(withOwner);
+		} catch (TimeoutException e) {
+			throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Rentals are loading, retry later");
+		}
+
+		// Both encodings hold the same JSON, they get distinct strong ETags
+		boolean gzip = ContentEncodingUtils.acceptsGzip(acceptEncoding);
+		String etag = "\"" + body.etag() + (gzip ? "-gzip\"" : "\"");
+		if (matches(ifNoneMatch, body.etag())) {
+			return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).varyBy(HttpHeaders.ACCEPT_ENCODING).build();
+		}
+
+		ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).eTag(etag)
+				.varyBy(HttpHeaders.ACCEPT_ENCODING);
+		if (gzip) {
+			return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(body.gzip());
+		}
+		return response.body(body.identity());
+	}
+
+	/**
+	 * Weak comparison of the If-None-Match header with the ETag of the body, in any encoding
+	 */
+	private static boolean matches(String ifNoneMatch, String etag) {
+		if (ifNoneMatch == null) {
+			return false;
+		}
+		for (String tag : ifNoneMatch.split(",")) {
+			String value = tag.trim();
+			if (value.equals("*")) {
+				return true;
+			}
+			if (value.startsWith("W/")) {
+				value = value.substring(2);
+			}
+			value = value.replace("\"", "");
+			if (value.equals(etag) || value.equals(etag + "-gzip")) {
+				return true;
+			}
+		}
+		return false;
+	}
 
-	public Map<String, List<RentalDto>> getRentals() {
-		Map<String, List<RentalDto>> rentalsDto = rentalService.getAllRentals();
+	/**
+	 * Get the rentals created or updated since a cursor, to sync a copy of the catalogue
+	 * without downloading it again. Start with since=0, then send the returned cursor,
+	 * and read the next page at once while has_more is true.
+	 * 
+	 * @param since The cursor returned by the previous call, 0 for a full sync
+	 * @param limit Maximum number of changes in the page, up to 1000
+	 * @return the current state of the changed rentals and the next cursor
+	 */
+	@GetMapping("api/rentals/changes")
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "200", description = "Changes loaded successfully", 
+					content = @Content(examples = @ExampleObject(value = "{\"rentals\": [{\"id\": \"1\", "
+					+ "\"name\": \"maison 1\", " + "\"surface\": \"170\", " + "\"price\": \"540000\","
+					+ "\"description\": \"bdr of description\", " + "\"owner_id\": \"1\","
+					+ " \"created_at\": \"2012/12/02\", " + "\"updated_at\": \"2012/12/02\"}], "
+					+ "\"cursor\": 42, \"has_more\": false}"), schema = @Schema())),
+			@ApiResponse(responseCode = "400", description = "Negative cursor", content = @Content(schema = @Schema())),
+			@ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content(schema = @Schema())), })
 
-		if (rentalsDto.isEmpty()) {
-			throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No rentals found");
+	public RentalChangesDto getRentalChanges(@RequestParam(value = "since", defaultValue = "0") long since,
+			@RequestParam(value = "limit", defaultValue = "100") int limit) {
+		if (since < 0) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "The cursor cannot be negative");
 		}
 
-		// Add the full URL for each picture in order to display it in the front-end
-		rentalsDto.forEach((key, value) -> value.forEach(rental -> {
-			rental.setPicture(rentalService.constructFullUrl(rental.getPicture()));
-		}));
+		RentalChangesDto changes = rentalChangeService.getChangesSince(since, limit);
+		changes.getRentals().forEach(rental -> rental.setPicture(rentalService.constructFullUrl(rental.getPicture())));
+		return changes;
+	}
+
+	/**
+	 * Get the statistics of the catalogue : count, price, surface and price per m² distributions,
+	 * and listings per owner. They are kept up to date as rentals change, the request does not scan them.
+	 * 
+	 * @return the statistics, percentiles within 1 %
+	 */
+	@GetMapping("api/rentals/stats")
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "200", description = "Statistics loaded successfully", 
+					content = @Content(examples = @ExampleObject(value = "{\"count\": 1000, "
+					+ "\"price\": {\"mean\": 312000, \"min\": 40000, \"p50\": 265000, \"p90\": 590000, "
+					+ "\"p99\": 1210000, \"max\": 2400000}, \"surface\": {...}, \"price_per_m2\": {...}, "
+					+ "\"owners\": 120, \"listings_per_owner\": {...}}"), schema = @Schema())),
+			@ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content(schema = @Schema())), })
+
+	public RentalStatsDto getRentalStats() {
+		return rentalStatsService.getStats();
+	}
+
+	/**
+	 * Get the facet counts of the browse page for the current filters, from memory.
+	 * The counts of a facet ignore its own filter : they tell what each bucket would give.
+	 * 
+	 * @param priceMin Lowest price
+	 * @param priceMax Highest price
+	 * @param surfaceMin Lowest surface
+	 * @param surfaceMax Highest surface
+	 * @param owner Only the rentals of this owner
+	 * @return the number of matching rentals, per price bucket, surface bucket and owner
+	 */
+	@GetMapping("api/rentals/facets")
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "200", description = "Facets counted successfully", 
+					content = @Content(examples = @ExampleObject(value = "{\"count\": 42, "
+					+ "\"price\": [{\"from\": 0, \"to\": 100000, \"count\": 12}, ...], "
+					+ "\"surface\": [{\"from\": 0, \"to\": 30, \"count\": 3}, ...], "
+					+ "\"owners\": [{\"owner_id\": 7, \"count\": 5}, ...]}"), schema = @Schema())),
+			@ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content(schema = @Schema())), })
 
-		return rentalsDto;
+	public RentalFacetsDto getRentalFacets(@RequestParam(value = "price_min", required = false) Integer priceMin,
+			@RequestParam(value = "price_max", required = false) Integer priceMax,
+			@RequestParam(value = "surface_min", required = false) Integer surfaceMin,
+			@RequestParam(value = "surface_max", required = false) Integer surfaceMax,
+			@RequestParam(value = "owner", required = false) Integer owner) {
+		return rentalFacetService.getFacets(priceMin, priceMax, surfaceMin, surfaceMax, owner);
 	}
 
 	/**
@@ -1,17 +1,21 @@
 package com.bdr.backend.controllers;
 
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
 
 import com.bdr.backend.models.dtos.UserDto;
-import com.bdr.backend.models.entities.User;
 import com.bdr.backend.services.UserService;
 
 import io.swagger.v3.oas.annotations.media.Content;
@@ -26,6 +30,9 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 @Tag(name = "UserController", description = "Routes related to users")
 public class UserController {
 	
+	/** Maximum number of distinct ids accepted by the batch route */
+	private static final int MAX_BATCH_SIZE = 100;
+
 	@Autowired
 	private UserService userService;
 
@@ -46,12 +53,40 @@ public class UserController {
 
 	public UserDto getUser(@PathVariable int userId) {
 
-		Optional<User> optionalUser = userService.getUserFromUserId(userId);
+		Optional<UserDto> optionalUser = userService.getUserDtoFromUserId(userId);
 
 		if (optionalUser.isEmpty()) {
 			throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "User not found");
 		}
 		
-		return userService.convertToDto(optionalUser.get());
+		return optionalUser.get();
+	}
+
+	/**
+	 * Get the info of several users in one call, for example the owners of a page of rentals
+	 * 
+	 * @param ids The user ids, comma separated in the url : api/users?ids=1,2,3
+	 * @return a map containing the users found, keyed by their id. Unknown ids are left out.
+	 */
+	@GetMapping("api/users")
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "200", description = "Users info loaded successfully", 
+					content = @Content(examples = @ExampleObject(
+							value = "{\"users\": {\"1\": {\"userId\": \"1\", \"email\": \"test@test.com\", \"name\": \"test\", "
+									+ "\"createdAt\": \"2021/10/01\", \"updatedAt\": \"2021/10/01\"}}}"), schema = @Schema())),
+			@ApiResponse(responseCode = "400", description = "Too many ids", content = @Content(schema = @Schema())),
+			@ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content(schema = @Schema())), })
+
+	public Map<String, Map<Integer, UserDto>> getUsers(@RequestParam("ids") List<Integer> ids) {
+
+		// The same owner appears on many rental cards
+		Set<Integer> uniqueIds = new LinkedHashSet<>(ids);
+		uniqueIds.remove(null);
+
+		if (uniqueIds.size() > MAX_BATCH_SIZE) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At most " + MAX_BATCH_SIZE + " ids per request");
+		}
+
+		return Map.of("users", userService.getUsersFromUserIds(uniqueIds));
 	}
 }
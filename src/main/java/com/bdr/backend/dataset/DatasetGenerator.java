@@ -0,0 +1,192 @@
+package com.bdr.backend.dataset;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Fill the users, rentals and messages tables with synthetic rows for scale testing.
+ * The same seed always gives the same rows :<ul>
+ * <li>a few users own most of the rentals (Zipf law on the owners) </li>
+ * <li>a few rentals get most of the messages, the others a long tail of short conversations </li>
+ * <li>surfaces and prices per square meter follow log-normal laws, like real listings </li>
+ * </ul>
+ * Rows are written with JDBC batches, add rewriteBatchedStatements=true to the MySQL url
+ * so that each batch is sent as one multi-row insert.
+ */
+public class DatasetGenerator {
+
+	/** Domain of the generated emails, used to know if a dataset is already loaded */
+	public static final String EMAIL_DOMAIN = "@dataset.test";
+
+	/** BCrypt hash of "password", hashing once per user would take hours */
+	static final String PASSWORD_HASH = "$2a$10$.SCQKIeC9OYozvYUEJgXouzqxNG9dwE3DLEJuFcQB7whkxDmxn72C";
+
+	/** Time covered by the generated rows, before the reference date */
+	private static final Duration HISTORY = Duration.ofDays(2 * 365);
+
+	private static final double OWNER_SKEW = 1.1;
+	private static final double CONVERSATION_SKEW = 1.0;
+
+	private static final String[] FIRST_NAMES = { "Marie", "Jean", "Camille", "Louis", "Léa", "Hugo", "Chloé", "Lucas",
+			"Manon", "Nathan", "Inès", "Paul", "Sarah", "Jules", "Emma", "Arthur" };
+	private static final String[] LAST_NAMES = { "Martin", "Bernard", "Dubois", "Thomas", "Robert", "Richard", "Petit",
+			"Durand", "Leroy", "Moreau", "Simon", "Laurent", "Lefebvre", "Michel", "Garcia", "David" };
+	private static final String[] KINDS = { "maison", "appartement", "studio", "villa", "loft", "chalet" };
+	private static final String[] CITIES = { "Paris", "Lyon", "Marseille", "Bordeaux", "Nantes", "Lille", "Annecy",
+			"Biarritz", "Rennes", "Nice" };
+	/** Price per square meter of each city compared to the median */
+	private static final double[] CITY_FACTORS = { 2.6, 1.3, 1.1, 1.3, 1.0, 0.9, 1.5, 1.8, 0.9, 1.4 };
+	private static final String[] PICTURES = { "/uploads/maison-bord-mer-seloger.jpg", "/uploads/belle-maison-archi-LCL.jpg",
+			"/uploads/3456104__maison_bois_vignette.jpg", "/uploads/360_F_370644357_MDF4UXLAXTyyi2OyuK66tWW9cA2f8svL.jpg" };
+	private static final String[] MESSAGES = { "Bonjour, est-ce toujours disponible ?",
+			"Is it available in August ?", "Les animaux sont-ils acceptés ?", "Quel est le montant de la caution ?",
+			"Can we visit next week ?", "Merci pour votre réponse rapide.", "Y a-t-il une place de parking ?",
+			"Is the price negotiable ?" };
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private final long seed;
+
+	private final int batchSize;
+
+	private final Instant now;
+
+	/**
+	 * @param jdbcTemplate The JdbcTemplate of the database to fill
+	 * @param seed The seed of the random generator
+	 * @param batchSize The number of rows per JDBC batch
+	 * @param now The reference date, the rows are created in the two years before
+	 */
+	public DatasetGenerator(JdbcTemplate jdbcTemplate, long seed, int batchSize, Instant now) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.seed = seed;
+		this.batchSize = batchSize;
+		this.now = now;
+	}
+
+	/**
+	 * Check if a dataset was already generated in this database
+	 *
+	 * @return true if the first generated user exists
+	 */
+	public boolean isGenerated() {
+		Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users WHERE email = ?", Integer.class,
+				"user1" + EMAIL_DOMAIN);
+		return count != null && count > 0;
+	}
+
+	/**
+	 * Generate the rows, after the ones already in the tables
+	 *
+	 * @param userCount Number of users
+	 * @param rentalCount Number of rentals
+	 * @param messageCount Number of messages
+	 */
+	public void generate(int userCount, int rentalCount, int messageCount) {
+		SplittableRandom root = new SplittableRandom(seed);
+		SplittableRandom userRandom = root.split();
+		SplittableRandom rentalRandom = root.split();
+		SplittableRandom messageRandom = root.split();
+
+		int firstUserId = nextId("users");
+		int firstRentalId = nextId("rentals");
+		int firstMessageId = nextId("messages");
+		Instant start = now.minus(HISTORY);
+
+		// Users, created regularly over the history
+		long[] userCreatedAt = new long[userCount];
+		List<Object[]> batch = new ArrayList<>(batchSize);
+		for (int i = 0; i < userCount; i++) {
+			userCreatedAt[i] = spread(start, i, userCount, userRandom);
+			Timestamp createdAt = new Timestamp(userCreatedAt[i]);
+			String name = pick(FIRST_NAMES, userRandom) + " " + pick(LAST_NAMES, userRandom);
+			batch.add(new Object[] { firstUserId + i, "user" + (i + 1) + EMAIL_DOMAIN, name, PASSWORD_HASH,
+					createdAt, createdAt });
+			flushIfFull("INSERT INTO users (id, email, name, password, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?)",
+					batch, i == userCount - 1);
+		}
+
+		// Rentals, most of them owned by a few users
+		ZipfSampler owners = new ZipfSampler(userCount, OWNER_SKEW, rentalRandom);
+		long[] rentalCreatedAt = new long[rentalCount];
+		for (int i = 0; i < rentalCount; i++) {
+			int owner = owners.sample(rentalRandom);
+			rentalCreatedAt[i] = between(userCreatedAt[owner], rentalRandom);
+			int city = rentalRandom.nextInt(CITIES.length);
+			String kind = pick(KINDS, rentalRandom);
+			int surface = (int) clamp(logNormal(75, 0.5, rentalRandom), 12, 1000);
+			long pricePerMeter = (long) (logNormal(3500, 0.35, rentalRandom) * CITY_FACTORS[city]);
+			int price = (int) Math.min(Integer.MAX_VALUE, Math.round(surface * pricePerMeter / 1000.0) * 1000);
+			// A third of the listings were edited after their creation
+			Timestamp updatedAt = rentalRandom.nextInt(3) == 0 ? new Timestamp(between(rentalCreatedAt[i], rentalRandom)) : null;
+
+			batch.add(new Object[] { firstRentalId + i, kind + " " + CITIES[city] + " " + (i + 1), surface, price,
+					pick(PICTURES, rentalRandom),
+					kind.substring(0, 1).toUpperCase() + kind.substring(1) + " de " + surface + " m² à " + CITIES[city] + ".",
+					firstUserId + owner, new Timestamp(rentalCreatedAt[i]), updatedAt });
+			flushIfFull("INSERT INTO rentals (id, name, surface, price, picture, description, owner_id, created_at, updated_at) "
+					+ "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)", batch, i == rentalCount - 1);
+		}
+
+		// Last change of each rental in the feed, in the order of the changes
+		jdbcTemplate.update("INSERT INTO rental_changes (rental_id, changed_at) SELECT id, COALESCE(updated_at, created_at) "
+				+ "FROM rentals WHERE id >= ? ORDER BY COALESCE(updated_at, created_at), id", firstRentalId);
+
+		// Messages, long tail of conversations per rental
+		ZipfSampler conversations = new ZipfSampler(rentalCount, CONVERSATION_SKEW, messageRandom);
+		for (int i = 0; i < messageCount; i++) {
+			int rental = conversations.sample(messageRandom);
+			int author = messageRandom.nextInt(userCount);
+			Timestamp createdAt = new Timestamp(between(Math.max(rentalCreatedAt[rental], userCreatedAt[author]), messageRandom));
+			batch.add(new Object[] { firstMessageId + i, firstRentalId + rental, firstUserId + author,
+					pick(MESSAGES, messageRandom), createdAt, null });
+			flushIfFull("INSERT INTO messages (id, rental_id, user_id, message, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?)",
+					batch, i == messageCount - 1);
+		}
+	}
+
+	private void flushIfFull(String sql, List<Object[]> batch, boolean last) {
+		if (batch.size() == batchSize || (last && !batch.isEmpty())) {
+			jdbcTemplate.batchUpdate(sql, batch);
+			batch.clear();
+		}
+	}
+
+	private int nextId(String table) {
+		Integer max = jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + table, Integer.class);
+		return max == null ? 1 : max + 1;
+	}
+
+	/**
+	 * Date of the row i of n, the rows being spread regularly over the history
+	 */
+	private long spread(Instant start, int i, int n, SplittableRandom random) {
+		long step = HISTORY.toMillis() / Math.max(1, n);
+		return start.toEpochMilli() + i * step + random.nextLong(Math.max(1, step));
+	}
+
+	/**
+	 * Random date between the given one and the reference date
+	 */
+	private long between(long after, SplittableRandom random) {
+		return after + random.nextLong(Math.max(1, now.toEpochMilli() - after));
+	}
+
+	private static double logNormal(double median, double sigma, SplittableRandom random) {
+		return median * Math.exp(sigma * random.nextGaussian());
+	}
+
+	private static double clamp(double value, double min, double max) {
+		return Math.max(min, Math.min(max, value));
+	}
+
+	private static String pick(String[] values, SplittableRandom random) {
+		return values[random.nextInt(values.length)];
+	}
+}
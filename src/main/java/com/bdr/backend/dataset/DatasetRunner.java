@@ -0,0 +1,60 @@
+package com.bdr.backend.dataset;
+
+import java.time.Instant;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Generate the synthetic dataset at startup with the dataset profile,
+ * unless it was already generated in this database.
+ */
+@Component
+@Profile("dataset")
+public class DatasetRunner implements ApplicationRunner {
+
+	private static final Logger logger = LoggerFactory.getLogger(DatasetRunner.class);
+
+	@Value("${dataset.users:100000}")
+	private int users;
+
+	@Value("${dataset.rentals:1000000}")
+	private int rentals;
+
+	@Value("${dataset.messages:5000000}")
+	private int messages;
+
+	@Value("${dataset.seed:42}")
+	private long seed;
+
+	@Value("${dataset.batch-size:1000}")
+	private int batchSize;
+
+	/** Reference date of the dataset, fixed so that the same seed gives the same rows */
+	@Value("${dataset.now:2024-06-01T00:00:00Z}")
+	private Instant now;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Override
+	public void run(ApplicationArguments args) {
+		DatasetGenerator generator = new DatasetGenerator(jdbcTemplate, seed, batchSize, now);
+		if (generator.isGenerated()) {
+			logger.info("Dataset already generated, skipped");
+			return;
+		}
+
+		long start = System.nanoTime();
+		generator.generate(users, rentals, messages);
+		logger.info("Generated {} users, {} rentals and {} messages with seed {} in {} s", users, rentals, messages, seed,
+				(System.nanoTime() - start) / 1_000_000_000);
+	}
+}
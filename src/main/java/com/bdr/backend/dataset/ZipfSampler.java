@@ -0,0 +1,52 @@
+package com.bdr.backend.dataset;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Draw one of n items with a Zipf law : the item of rank k is picked
+ * with a probability proportional to 1 / k^exponent.
+ * The ranks are shuffled so that the most popular items are spread over the ids.
+ */
+class ZipfSampler {
+
+	private final double[] cumulative;
+
+	private final int[] itemByRank;
+
+	ZipfSampler(int n, double exponent, SplittableRandom random) {
+		cumulative = new double[n];
+		double sum = 0;
+		for (int rank = 0; rank < n; rank++) {
+			sum += 1 / Math.pow(rank + 1, exponent);
+			cumulative[rank] = sum;
+		}
+		for (int rank = 0; rank < n; rank++) {
+			cumulative[rank] /= sum;
+		}
+
+		itemByRank = new int[n];
+		for (int i = 0; i < n; i++) {
+			itemByRank[i] = i;
+		}
+		for (int i = n - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
+			int swap = itemByRank[i];
+			itemByRank[i] = itemByRank[j];
+			itemByRank[j] = swap;
+		}
+	}
+
+	/**
+	 * Draw an item
+	 *
+	 * @return an index between 0 and n - 1
+	 */
+	int sample(SplittableRandom random) {
+		int rank = Arrays.binarySearch(cumulative, random.nextDouble());
+		if (rank < 0) {
+			rank = -rank - 1;
+		}
+		return itemByRank[Math.min(rank, itemByRank.length - 1)];
+	}
+}
@@ -0,0 +1,126 @@
+package com.bdr.backend.limits;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Number of requests served at once, adjusted from the observed latency (gradient algorithm) :
+ * while the latency of the recent requests stays close to its long term average, the limit grows
+ * by the square root of itself; when it rises above, requests are queuing somewhere
+ * (connection pool, database) and the limit shrinks in proportion, by half at most per window.
+ */
+public class AdaptiveConcurrencyLimit {
+
+	/** Number of windows averaged by the long term latency */
+	private static final int LONG_WINDOWS = 600;
+
+	/** The recent latency may be this many times the long term one before the limit shrinks */
+	private static final double TOLERANCE = 1.5;
+
+	private final int minLimit;
+
+	private final int maxLimit;
+
+	private final double smoothing;
+
+	private final int windowSize;
+
+	private final AtomicInteger inflight = new AtomicInteger();
+
+	private volatile double limit;
+
+	/** Long term average latency in nanos, 0 before the first window, guarded by this */
+	private double longRtt;
+
+	/** Samples of the current window, guarded by this */
+	private long windowNanos;
+	private int windowCount;
+	private int windowMaxInflight;
+
+	/**
+	 * @param initialLimit The limit before the first measures
+	 * @param minLimit The limit never goes below, so that a slow database still serves some requests
+	 * @param maxLimit The limit never goes above, at most the number of threads serving the requests
+	 * @param smoothing Part of the new limit taken at each window, between 0 and 1
+	 * @param windowSize Number of requests averaged before each adjustment
+	 */
+	public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, double smoothing, int windowSize) {
+		this.minLimit = minLimit;
+		this.maxLimit = maxLimit;
+		this.smoothing = smoothing;
+		this.windowSize = windowSize;
+		this.limit = initialLimit;
+	}
+
+	/**
+	 * Take a slot if the requests in flight are below the given part of the limit
+	 *
+	 * @param share Part of the limit usable by the request, 1 for the most important ones
+	 * @return false if the request must be rejected
+	 */
+	public boolean tryAcquire(double share) {
+		int allowed = Math.max(1, (int) (limit * share));
+		while (true) {
+			int current = inflight.get();
+			if (current >= allowed) {
+				return false;
+			}
+			if (inflight.compareAndSet(current, current + 1)) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Give the slot back
+	 *
+	 * @param rttNanos How long the request took
+	 * @param sampled false if the latency of the request does not depend on the load, like an export
+	 */
+	public void release(long rttNanos, boolean sampled) {
+		int inflightBefore = inflight.getAndDecrement();
+		if (sampled) {
+			sample(rttNanos, inflightBefore);
+		}
+	}
+
+	private synchronized void sample(long rttNanos, int inflightBefore) {
+		windowNanos += rttNanos;
+		windowCount++;
+		windowMaxInflight = Math.max(windowMaxInflight, inflightBefore);
+		if (windowCount < windowSize) {
+			return;
+		}
+
+		double shortRtt = (double) windowNanos / windowCount;
+		longRtt = longRtt == 0 ? shortRtt : longRtt + (shortRtt - longRtt) / LONG_WINDOWS;
+		// After a slow period the long term latency lags behind, bring it back so the limit can grow again
+		if (longRtt > 2 * shortRtt) {
+			longRtt *= 0.95;
+		}
+
+		// Far below the limit, the latency tells nothing about it
+		if (windowMaxInflight >= limit / 2) {
+			double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRtt / shortRtt));
+			double target = limit * gradient + Math.sqrt(limit);
+			limit = Math.max(minLimit, Math.min(maxLimit, limit * (1 - smoothing) + target * smoothing));
+		}
+
+		windowNanos = 0;
+		windowCount = 0;
+		windowMaxInflight = 0;
+	}
+
+	/**
+	 * @return the current limit
+	 */
+	public double getLimit() {
+		return limit;
+	}
+
+	/**
+	 * @return the number of requests holding a slot
+	 */
+	public int getInflight() {
+		return inflight.get();
+	}
+}
@@ -0,0 +1,161 @@
+package com.bdr.backend.limits;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Rejects at once with a 503 and a Retry-After the requests above the AdaptiveConcurrencyLimit,
+ * instead of letting them wait for a connection and slow down every route.
+ * The cheap reads may use the whole limit, the writes and the expensive requests
+ * (logins and registrations hashing a password, uploads, exports) only a part of it :
+ * under load they are shed first.
+ */
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+	/**
+	 * Kinds of requests, with the part of the limit they may use
+	 */
+	enum RequestClass {
+		READ(1.0, true),
+		WRITE(0.8, true),
+		/** Their latency depends on their size or on BCrypt, not on the load : it is not sampled */
+		EXPENSIVE(0.5, false);
+
+		private final double share;
+		private final boolean sampled;
+
+		RequestClass(double share, boolean sampled) {
+			this.share = share;
+			this.sampled = sampled;
+		}
+	}
+
+	private final AdaptiveConcurrencyLimit limit;
+
+	private final MeterRegistry meterRegistry;
+
+	private final String retryAfter;
+
+	/**
+	 * @param limit The limit shared by all the requests
+	 * @param meterRegistry The registry of the metrics
+	 * @param retryAfter How long a rejected client should wait, rounded up to the second
+	 */
+	public ConcurrencyLimitFilter(AdaptiveConcurrencyLimit limit, MeterRegistry meterRegistry, Duration retryAfter) {
+		this.limit = limit;
+		this.meterRegistry = meterRegistry;
+		this.retryAfter = String.valueOf(Math.max(1, (retryAfter.toMillis() + 999) / 1000));
+		Gauge.builder("http.server.concurrency.limit", limit, AdaptiveConcurrencyLimit::getLimit)
+				.description("Requests served at once before shedding")
+				.register(meterRegistry);
+		Gauge.builder("http.server.concurrency.inflight", limit, AdaptiveConcurrencyLimit::getInflight)
+				.description("Requests being served")
+				.register(meterRegistry);
+	}
+
+	/**
+	 * The health checks and the metrics are always served, they are needed most under load
+	 */
+	@Override
+	protected boolean shouldNotFilter(HttpServletRequest request) {
+		return request.getRequestURI().startsWith(request.getContextPath() + "/actuator/");
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		RequestClass requestClass = classify(request);
+		if (!limit.tryAcquire(requestClass.share)) {
+			meterRegistry.counter("http.server.shed", "class", requestClass.name().toLowerCase()).increment();
+			response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+			response.setHeader(HttpHeaders.RETRY_AFTER, retryAfter);
+			return;
+		}
+
+		long start = System.nanoTime();
+		boolean async = false;
+		try {
+			filterChain.doFilter(request, response);
+			if (request.isAsyncStarted()) {
+				// The reactive routes complete on another thread, the slot is released then
+				async = true;
+				request.getAsyncContext().addListener(new ReleasingListener(start, requestClass.sampled));
+			}
+		} finally {
+			if (!async) {
+				limit.release(System.nanoTime() - start, requestClass.sampled);
+			}
+		}
+	}
+
+	static RequestClass classify(HttpServletRequest request) {
+		String path = request.getRequestURI().substring(request.getContextPath().length());
+		String method = request.getMethod();
+		String contentType = request.getContentType();
+		if (path.startsWith("/api/auth/login") || path.startsWith("/api/auth/register") || path.startsWith("/api/export/")
+				|| (contentType != null && contentType.startsWith(MediaType.MULTIPART_FORM_DATA_VALUE))) {
+			return RequestClass.EXPENSIVE;
+		}
+		if (method.equals("GET") || method.equals("HEAD") || method.equals("OPTIONS")) {
+			return RequestClass.READ;
+		}
+		return RequestClass.WRITE;
+	}
+
+	/**
+	 * Releases the slot of an async request once, whatever ends it
+	 */
+	private final class ReleasingListener implements AsyncListener {
+
+		private final long start;
+		private final boolean sampled;
+		private boolean released;
+
+		private ReleasingListener(long start, boolean sampled) {
+			this.start = start;
+			this.sampled = sampled;
+		}
+
+		private synchronized void release() {
+			if (!released) {
+				released = true;
+				limit.release(System.nanoTime() - start, sampled);
+			}
+		}
+
+		@Override
+		public void onComplete(AsyncEvent event) {
+			release();
+		}
+
+		@Override
+		public void onTimeout(AsyncEvent event) {
+			release();
+		}
+
+		@Override
+		public void onError(AsyncEvent event) {
+			release();
+		}
+
+		@Override
+		public void onStartAsync(AsyncEvent event) {
+			// Called again if the request restarts async processing, the listener must be added again
+			event.getAsyncContext().addListener(this);
+		}
+	}
+}
@@ -0,0 +1,82 @@
+package com.bdr.backend.metrics;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Records the statements, rows and database time of each request, for the whole
+ * filter → controller → service → repository chain, tagged with the route like http.server.requests.
+ * A statement run many times in the same request is logged : it is usually a N+1.
+ */
+public class SqlBudgetFilter extends OncePerRequestFilter {
+
+	private static final Logger logger = LoggerFactory.getLogger(SqlBudgetFilter.class);
+
+	private final MeterRegistry meterRegistry;
+
+	private final int repeatedStatements;
+
+	/**
+	 * @param meterRegistry The registry of the metrics
+	 * @param repeatedStatements From how many executions of the same statement a request is reported
+	 */
+	public SqlBudgetFilter(MeterRegistry meterRegistry, int repeatedStatements) {
+		this.meterRegistry = meterRegistry;
+		this.repeatedStatements = repeatedStatements;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		SqlStatistics statistics = SqlStatistics.start();
+		try {
+			filterChain.doFilter(request, response);
+		} finally {
+			SqlStatistics.end();
+			record(request, statistics);
+		}
+	}
+
+	private void record(HttpServletRequest request, SqlStatistics statistics) {
+		Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+		Tags tags = Tags.of("uri", pattern != null ? pattern.toString() : "UNKNOWN", "method", request.getMethod());
+
+		DistributionSummary.builder("http.server.sql.statements")
+				.description("JDBC statements per request")
+				.tags(tags)
+				.register(meterRegistry)
+				.record(statistics.getStatements());
+		DistributionSummary.builder("http.server.sql.rows")
+				.description("Rows read per request")
+				.tags(tags)
+				.register(meterRegistry)
+				.record(statistics.getRows());
+		Timer.builder("http.server.sql")
+				.description("Time spent in the database per request")
+				.tags(tags)
+				.register(meterRegistry)
+				.record(statistics.getNanos(), TimeUnit.NANOSECONDS);
+
+		Map.Entry<String, Integer> repeated = statistics.mostRepeated();
+		if (repeated != null && repeated.getValue() >= repeatedStatements) {
+			meterRegistry.counter("http.server.sql.repeated", tags).increment();
+			logger.warn("{} {} ran {} times the statement {}", request.getMethod(), request.getRequestURI(),
+					repeated.getValue(), repeated.getKey());
+		}
+	}
+}
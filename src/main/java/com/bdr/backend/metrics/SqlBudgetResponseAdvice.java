@@ -0,0 +1,44 @@
+package com.bdr.backend.metrics;
+
+import java.util.Locale;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Adds the statements, rows and database time of the request to the response headers,
+ * when sql.budget.headers is true (dev profile and tests).
+ * The headers are written with the body : a lazy loading during the serialization is only in the metrics.
+ */
+@ControllerAdvice
+@ConditionalOnProperty(name = "sql.budget.headers", havingValue = "true")
+public class SqlBudgetResponseAdvice implements ResponseBodyAdvice<Object> {
+
+	public static final String STATEMENTS_HEADER = "X-SQL-Statements";
+	public static final String ROWS_HEADER = "X-SQL-Rows";
+	public static final String TIME_HEADER = "X-SQL-Time-Ms";
+
+	@Override
+	public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+		return true;
+	}
+
+	@Override
+	public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+			Class<? extends HttpMessageConverter<?>> selectedConverterType, ServerHttpRequest request,
+			ServerHttpResponse response) {
+		SqlStatistics statistics = SqlStatistics.current();
+		if (statistics != null) {
+			response.getHeaders().set(STATEMENTS_HEADER, String.valueOf(statistics.getStatements()));
+			response.getHeaders().set(ROWS_HEADER, String.valueOf(statistics.getRows()));
+			response.getHeaders().set(TIME_HEADER, String.format(Locale.ROOT, "%.3f", statistics.getNanos() / 1e6));
+		}
+		return body;
+	}
+}
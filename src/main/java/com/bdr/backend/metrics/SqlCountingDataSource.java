@@ -0,0 +1,102 @@
+package com.bdr.backend.metrics;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * DataSource that records each statement, its time and the rows read in the SqlStatistics
+ * of the current request. Every query goes through it : JPA, the JdbcTemplate and Flyway,
+ * whatever the pool or the replica behind.
+ * Only the connections taken while a request is recorded are proxied : the scheduled jobs,
+ * the startup and the requests outside of the SqlBudgetFilter use the connection of the pool as is.
+ */
+public class SqlCountingDataSource extends DelegatingDataSource {
+
+	public SqlCountingDataSource(DataSource target) {
+		super(target);
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		Connection connection = super.getConnection();
+		return SqlStatistics.current() == null ? connection : wrap(Connection.class, connection, null);
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		Connection connection = super.getConnection(username, password);
+		return SqlStatistics.current() == null ? connection : wrap(Connection.class, connection, null);
+	}
+
+	/**
+	 * Proxy a connection, a statement or a result set
+	 *
+	 * @param sql The SQL given when the statement was prepared, null for a plain Statement
+	 */
+	private static <T> T wrap(Class<T> type, T target, String sql) {
+		InvocationHandler handler = (proxy, method, args) -> switch (method.getName()) {
+			case "equals" -> proxy == args[0];
+			case "hashCode" -> System.identityHashCode(proxy);
+			default -> invoke(target, method, args, sql);
+		};
+		return type.cast(Proxy.newProxyInstance(SqlCountingDataSource.class.getClassLoader(), new Class<?>[] { type }, handler));
+	}
+
+	private static Object invoke(Object target, Method method, Object[] args, String sql) throws Throwable {
+		String name = method.getName();
+		Class<?> returnType = method.getReturnType();
+		SqlStatistics statistics = SqlStatistics.current();
+
+		// Statements created by the connection, recorded only while the request is
+		if (target instanceof Connection && Statement.class.isAssignableFrom(returnType) && statistics != null) {
+			String prepared = name.startsWith("prepare") ? (String) args[0] : null;
+			return wrapAs(returnType, call(target, method, args), prepared);
+		}
+
+		// Executions of a statement
+		if (target instanceof Statement && name.startsWith("execute") && statistics != null) {
+			long start = System.nanoTime();
+			try {
+				Object result = call(target, method, args);
+				return ResultSet.class.equals(returnType) ? wrap(ResultSet.class, (ResultSet) result, sql) : result;
+			} finally {
+				statistics.recordStatement(sql != null ? sql : args != null && args.length > 0 ? (String) args[0] : null,
+						System.nanoTime() - start);
+			}
+		}
+		if (target instanceof Statement && ResultSet.class.equals(returnType) && statistics != null) {
+			ResultSet resultSet = (ResultSet) call(target, method, args);
+			return resultSet == null ? null : wrap(ResultSet.class, resultSet, sql);
+		}
+
+		// Rows read
+		Object result = call(target, method, args);
+		if (target instanceof ResultSet && name.equals("next") && Boolean.TRUE.equals(result) && statistics != null) {
+			statistics.recordRow();
+		}
+		return result;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T wrapAs(Class<T> type, Object target, String sql) {
+		return wrap(type, (T) target, sql);
+	}
+
+	private static Object call(Object target, Method method, Object[] args) throws Throwable {
+		try {
+			return method.invoke(target, args);
+		} catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+}
@@ -0,0 +1,90 @@
+package com.bdr.backend.metrics;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Statements, rows and database time of the current HTTP request, filled by SqlCountingDataSource.
+ * Nothing is recorded outside a request : at startup, or in the scheduled tasks.
+ */
+public class SqlStatistics {
+
+	private static final ThreadLocal<SqlStatistics> CURRENT = new ThreadLocal<>();
+
+	/** Above this number of distinct statements, the new ones are not checked for repetitions */
+	private static final int MAX_DISTINCT_STATEMENTS = 256;
+
+	private int statements;
+
+	private long rows;
+
+	private long nanos;
+
+	private final Map<String, Integer> executions = new HashMap<>();
+
+	/**
+	 * Start recording the statements of the current thread
+	 *
+	 * @return the statistics of the request
+	 */
+	public static SqlStatistics start() {
+		SqlStatistics statistics = new SqlStatistics();
+		CURRENT.set(statistics);
+		return statistics;
+	}
+
+	/**
+	 * @return the statistics of the current request, or null outside a request
+	 */
+	public static SqlStatistics current() {
+		return CURRENT.get();
+	}
+
+	/**
+	 * Stop recording the statements of the current thread
+	 */
+	public static void end() {
+		CURRENT.remove();
+	}
+
+	void recordStatement(String sql, long elapsedNanos) {
+		statements++;
+		nanos += elapsedNanos;
+		if (sql != null && (executions.size() < MAX_DISTINCT_STATEMENTS || executions.containsKey(sql))) {
+			executions.merge(sql, 1, Integer::sum);
+		}
+	}
+
+	void recordRow() {
+		rows++;
+	}
+
+	public int getStatements() {
+		return statements;
+	}
+
+	public long getRows() {
+		return rows;
+	}
+
+	public long getNanos() {
+		return nanos;
+	}
+
+	/**
+	 * The statement run the most times in the request, the sign of a N+1 when it is run once per row
+	 *
+	 * @return the SQL and its number of executions, or null if no statement was run
+	 */
+	public Map.Entry<String, Integer> mostRepeated() {
+		return executions.entrySet().stream().max(Map.Entry.comparingByValue()).orElse(null);
+	}
+
+	/**
+	 * @return the distinct SQL run in the request, up to MAX_DISTINCT_STATEMENTS
+	 */
+	public Set<String> distinctStatements() {
+		return Set.copyOf(executions.keySet());
+	}
+}
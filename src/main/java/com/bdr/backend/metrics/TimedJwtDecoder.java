@@ -0,0 +1,48 @@
+package com.bdr.backend.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * JwtDecoder that records the time spent verifying the tokens,
+ * tagged with the outcome so that rejected tokens can be told apart.
+ */
+public class TimedJwtDecoder implements JwtDecoder {
+
+	private final JwtDecoder delegate;
+
+	private final Timer successTimer;
+
+	private final Timer failureTimer;
+
+	public TimedJwtDecoder(JwtDecoder delegate, MeterRegistry meterRegistry) {
+		this.delegate = delegate;
+		this.successTimer = Timer.builder("jwt")
+				.description("JWT signing and verification time")
+				.tags("operation", "decode", "outcome", "success")
+				.register(meterRegistry);
+		this.failureTimer = Timer.builder("jwt")
+				.description("JWT signing and verification time")
+				.tags("operation", "decode", "outcome", "failure")
+				.register(meterRegistry);
+	}
+
+	@Override
+	public Jwt decode(String token) throws JwtException {
+		long start = System.nanoTime();
+		try {
+			Jwt jwt = delegate.decode(token);
+			successTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+			return jwt;
+		} catch (JwtException e) {
+			failureTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+			throw e;
+		}
+	}
+}
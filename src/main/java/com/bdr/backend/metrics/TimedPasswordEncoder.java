@@ -0,0 +1,46 @@
+package com.bdr.backend.metrics;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * PasswordEncoder that records the time spent hashing and verifying passwords.
+ * BCrypt is made to be slow : it is the main cost of register and login.
+ */
+public class TimedPasswordEncoder implements PasswordEncoder {
+
+	private final PasswordEncoder delegate;
+
+	private final Timer encodeTimer;
+
+	private final Timer matchesTimer;
+
+	public TimedPasswordEncoder(PasswordEncoder delegate, MeterRegistry meterRegistry) {
+		this.delegate = delegate;
+		this.encodeTimer = Timer.builder("bcrypt")
+				.description("Password hashing time")
+				.tag("operation", "encode")
+				.register(meterRegistry);
+		this.matchesTimer = Timer.builder("bcrypt")
+				.description("Password hashing time")
+				.tag("operation", "matches")
+				.register(meterRegistry);
+	}
+
+	@Override
+	public String encode(CharSequence rawPassword) {
+		return encodeTimer.record(() -> delegate.encode(rawPassword));
+	}
+
+	@Override
+	public boolean matches(CharSequence rawPassword, String encodedPassword) {
+		return matchesTimer.record(() -> delegate.matches(rawPassword, encodedPassword));
+	}
+
+	@Override
+	public boolean upgradeEncoding(String encodedPassword) {
+		return delegate.upgradeEncoding(encodedPassword);
+	}
+}
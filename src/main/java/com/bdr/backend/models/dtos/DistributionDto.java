@@ -0,0 +1,67 @@
+package com.bdr.backend.models.dtos;
+
+/**
+ * Mean and percentiles of a value over the rentals, the percentiles within the accuracy of the sketch
+ */
+public class DistributionDto {
+
+	private double mean;
+
+	private double min;
+
+	private double p50;
+
+	private double p90;
+
+	private double p99;
+
+	private double max;
+
+	public double getMean() {
+		return mean;
+	}
+
+	public void setMean(double mean) {
+		this.mean = mean;
+	}
+
+	public double getMin() {
+		return min;
+	}
+
+	public void setMin(double min) {
+		this.min = min;
+	}
+
+	public double getP50() {
+		return p50;
+	}
+
+	public void setP50(double p50) {
+		this.p50 = p50;
+	}
+
+	public double getP90() {
+		return p90;
+	}
+
+	public void setP90(double p90) {
+		this.p90 = p90;
+	}
+
+	public double getP99() {
+		return p99;
+	}
+
+	public void setP99(double p99) {
+		this.p99 = p99;
+	}
+
+	public double getMax() {
+		return max;
+	}
+
+	public void setMax(double max) {
+		this.max = max;
+	}
+}
@@ -0,0 +1,39 @@
+package com.bdr.backend.models.dtos;
+
+/**
+ * A bucket of a facet and its number of rentals
+ */
+public class FacetBucketDto {
+
+	/** Lowest value of the bucket */
+	private int from;
+
+	/** Lowest value of the next bucket, null for the last one */
+	private Integer to;
+
+	private int count;
+
+	public int getFrom() {
+		return from;
+	}
+
+	public void setFrom(int from) {
+		this.from = from;
+	}
+
+	public Integer getTo() {
+		return to;
+	}
+
+	public void setTo(Integer to) {
+		this.to = to;
+	}
+
+	public int getCount() {
+		return count;
+	}
+
+	public void setCount(int count) {
+		this.count = count;
+	}
+}
@@ -0,0 +1,31 @@
+package com.bdr.backend.models.dtos;
+
+import java.util.List;
+
+/**
+ * Unread messages of the rentals of an owner
+ */
+public class InboxDto {
+
+	/** Unread messages of all the rentals, for the badge */
+	private int total;
+
+	/** Rentals with unread messages, by id */
+	private List<InboxRentalDto> rentals;
+
+	public int getTotal() {
+		return total;
+	}
+
+	public void setTotal(int total) {
+		this.total = total;
+	}
+
+	public List<InboxRentalDto> getRentals() {
+		return rentals;
+	}
+
+	public void setRentals(List<InboxRentalDto> rentals) {
+		this.rentals = rentals;
+	}
+}
@@ -0,0 +1,27 @@
+package com.bdr.backend.models.dtos;
+
+/**
+ * A rental of the owner and its number of unread messages
+ */
+public class InboxRentalDto {
+
+	private int rental_id;
+
+	private int unread;
+
+	public int getRental_id() {
+		return rental_id;
+	}
+
+	public void setRental_id(int rental_id) {
+		this.rental_id = rental_id;
+	}
+
+	public int getUnread() {
+		return unread;
+	}
+
+	public void setUnread(int unread) {
+		this.unread = unread;
+	}
+}
@@ -0,0 +1,26 @@
+package com.bdr.backend.models.dtos;
+
+/**
+ * Summary of a rental owner, embedded in the rentals with ?include=owner
+ */
+public class OwnerDto {
+
+	private int userId;
+	private String name;
+
+	public int getUserId() {
+		return userId;
+	}
+
+	public void setUserId(int userId) {
+		this.userId = userId;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+}
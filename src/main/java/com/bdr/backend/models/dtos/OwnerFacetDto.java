@@ -0,0 +1,27 @@
+package com.bdr.backend.models.dtos;
+
+/**
+ * An owner and its number of rentals
+ */
+public class OwnerFacetDto {
+
+	private int owner_id;
+
+	private int count;
+
+	public int getOwner_id() {
+		return owner_id;
+	}
+
+	public void setOwner_id(int owner_id) {
+		this.owner_id = owner_id;
+	}
+
+	public int getCount() {
+		return count;
+	}
+
+	public void setCount(int count) {
+		this.count = count;
+	}
+}
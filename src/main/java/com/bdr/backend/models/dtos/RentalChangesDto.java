@@ -0,0 +1,44 @@
+package com.bdr.backend.models.dtos;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * A page of the change feed : the current state of the rentals changed after the cursor
+ */
+public class RentalChangesDto {
+
+	private List<RentalDto> rentals;
+
+	/** Cursor to send as since to get the next changes */
+	private long cursor;
+
+	/** True if more changes are waiting after the cursor */
+	@JsonProperty("has_more")
+	private boolean hasMore;
+
+	public List<RentalDto> getRentals() {
+		return rentals;
+	}
+
+	public void setRentals(List<RentalDto> rentals) {
+		this.rentals = rentals;
+	}
+
+	public long getCursor() {
+		return cursor;
+	}
+
+	public void setCursor(long cursor) {
+		this.cursor = cursor;
+	}
+
+	public boolean isHasMore() {
+		return hasMore;
+	}
+
+	public void setHasMore(boolean hasMore) {
+		this.hasMore = hasMore;
+	}
+}
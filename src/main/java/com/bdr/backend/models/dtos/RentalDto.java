@@ -1,5 +1,6 @@
 package com.bdr.backend.models.dtos;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 public class RentalDto {
@@ -12,6 +13,9 @@ public class RentalDto {
 	private String description;
 	private int owner_id;
 	
+	@JsonInclude(JsonInclude.Include.NON_NULL)
+	private OwnerDto owner;
+	
 	@JsonProperty("created_at")
 	private String createdAt;
 	
@@ -74,6 +78,14 @@ public class RentalDto {
 		this.owner_id = owner_id;
 	}
 
+	public OwnerDto getOwner() {
+		return owner;
+	}
+
+	public void setOwner(OwnerDto owner) {
+		this.owner = owner;
+	}
+
 	public String getCreatedAt() {
 		return createdAt;
 	}
@@ -0,0 +1,53 @@
+package com.bdr.backend.models.dtos;
+
+import java.util.List;
+
+/**
+ * Facet counts of the rentals matching a filter.
+ * The counts of a facet ignore the filter on that facet, so that each bucket tells
+ * how many rentals the filter would give if it was moved to that bucket.
+ */
+public class RentalFacetsDto {
+
+	/** Rentals matching every filter */
+	private long count;
+
+	private List<FacetBucketDto> price;
+
+	private List<FacetBucketDto> surface;
+
+	/** Owners with the most matching rentals, most first */
+	private List<OwnerFacetDto> owners;
+
+	public long getCount() {
+		return count;
+	}
+
+	public void setCount(long count) {
+		this.count = count;
+	}
+
+	public List<FacetBucketDto> getPrice() {
+		return price;
+	}
+
+	public void setPrice(List<FacetBucketDto> price) {
+		this.price = price;
+	}
+
+	public List<FacetBucketDto> getSurface() {
+		return surface;
+	}
+
+	public void setSurface(List<FacetBucketDto> surface) {
+		this.surface = surface;
+	}
+
+	public List<OwnerFacetDto> getOwners() {
+		return owners;
+	}
+
+	public void setOwners(List<OwnerFacetDto> owners) {
+		this.owners = owners;
+	}
+}
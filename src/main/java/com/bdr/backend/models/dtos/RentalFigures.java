@@ -0,0 +1,12 @@
+package com.bdr.backend.models.dtos;
+
+/**
+ * The columns of a rental used by the statistics, loaded without the texts
+ *
+ * @param rentalId Id of the rental
+ * @param price Price of the rental
+ * @param surface Surface in m²
+ * @param ownerId Id of the owner
+ */
+public record RentalFigures(int rentalId, int price, int surface, int ownerId) {
+}
@@ -0,0 +1,73 @@
+package com.bdr.backend.models.dtos;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Statistics of the whole catalogue
+ */
+public class RentalStatsDto {
+
+	private long count;
+
+	private DistributionDto price;
+
+	private DistributionDto surface;
+
+	/** Only the rentals with a surface */
+	@JsonProperty("price_per_m2")
+	private DistributionDto pricePerSquareMeter;
+
+	/** Number of users owning at least one rental */
+	private long owners;
+
+	@JsonProperty("listings_per_owner")
+	private DistributionDto listingsPerOwner;
+
+	public long getCount() {
+		return count;
+	}
+
+	public void setCount(long count) {
+		this.count = count;
+	}
+
+	public DistributionDto getPrice() {
+		return price;
+	}
+
+	public void setPrice(DistributionDto price) {
+		this.price = price;
+	}
+
+	public DistributionDto getSurface() {
+		return surface;
+	}
+
+	public void setSurface(DistributionDto surface) {
+		this.surface = surface;
+	}
+
+	public DistributionDto getPricePerSquareMeter() {
+		return pricePerSquareMeter;
+	}
+
+	public void setPricePerSquareMeter(DistributionDto pricePerSquareMeter) {
+		this.pricePerSquareMeter = pricePerSquareMeter;
+	}
+
+	public long getOwners() {
+		return owners;
+	}
+
+	public void setOwners(long owners) {
+		this.owners = owners;
+	}
+
+	public DistributionDto getListingsPerOwner() {
+		return listingsPerOwner;
+	}
+
+	public void setListingsPerOwner(DistributionDto listingsPerOwner) {
+		this.listingsPerOwner = listingsPerOwner;
+	}
+}
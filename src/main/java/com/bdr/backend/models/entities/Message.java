@@ -1,5 +1,7 @@
 package com.bdr.backend.models.entities;
 
+import java.time.Instant;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
@@ -25,10 +27,10 @@ public class Message {
 	private String message;
 
 	@Column(name = "created_at")
-	private String createdAt;
+	private Instant createdAt;
 
 	@Column(name = "updated_at")
-	private String updatedAt;
+	private Instant updatedAt;
 
 	public int getMessageId() {
 		return messageId;
@@ -62,19 +64,19 @@ public class Message {
 		this.message = message;
 	}
 
-	public String getCreatedAt() {
+	public Instant getCreatedAt() {
 		return createdAt;
 	}
 
-	public void setCreatedAt(String createdAt) {
+	public void setCreatedAt(Instant createdAt) {
 		this.createdAt = createdAt;
 	}
 
-	public String getUpdatedAt() {
+	public Instant getUpdatedAt() {
 		return updatedAt;
 	}
 
-	public void setUpdatedAt(String updatedAt) {
+	public void setUpdatedAt(Instant updatedAt) {
 		this.updatedAt = updatedAt;
 	}
 }
@@ -1,12 +1,17 @@
 package com.bdr.backend.models.entities;
 
+import java.time.Instant;
+
 import org.hibernate.annotations.DynamicUpdate;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
 
 @Entity
@@ -37,11 +42,16 @@ public class Rental {
 	@Column(name = "owner_id")
 	private int ownerId;
 
+	/** Read-only view of the owner, only loaded when fetched with a join */
+	@ManyToOne(fetch = FetchType.LAZY)
+	@JoinColumn(name = "owner_id", insertable = false, updatable = false)
+	private User owner;
+
 	@Column(name = "created_at")
-	private String createdAt;
+	private Instant createdAt;
 
 	@Column(name = "updated_at")
-	private String updatedAt;
+	private Instant updatedAt;
 
 	public int getRentalId() {
 		return rentalId;
@@ -99,19 +109,23 @@ public class Rental {
 		this.ownerId = ownerId;
 	}
 
-	public String getCreatedAt() {
+	public User getOwner() {
+		return owner;
+	}
+
+	public Instant getCreatedAt() {
 		return createdAt;
 	}
 
-	public void setCreatedAt(String createdAt) {
+	public void setCreatedAt(Instant createdAt) {
 		this.createdAt = createdAt;
 	}
 
-	public String getUpdatedAt() {
+	public Instant getUpdatedAt() {
 		return updatedAt;
 	}
 
-	public void setUpdatedAt(String updatedAt) {
+	public void setUpdatedAt(Instant updatedAt) {
 		this.updatedAt = updatedAt;
 	}
 }
@@ -0,0 +1,53 @@
+package com.bdr.backend.models.entities;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * A rental was created or updated : one row of the outbox read by the change feed
+ */
+@Entity
+@Table(name = "rental_changes")
+public class RentalChange {
+
+	@Id
+	@Column(name = "seq")
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private long seq;
+
+	@Column(name = "rental_id")
+	private int rentalId;
+
+	@Column(name = "changed_at")
+	private Instant changedAt;
+
+	public long getSeq() {
+		return seq;
+	}
+
+	public void setSeq(long seq) {
+		this.seq = seq;
+	}
+
+	public int getRentalId() {
+		return rentalId;
+	}
+
+	public void setRentalId(int rentalId) {
+		this.rentalId = rentalId;
+	}
+
+	public Instant getChangedAt() {
+		return changedAt;
+	}
+
+	public void setChangedAt(Instant changedAt) {
+		this.changedAt = changedAt;
+	}
+}
@@ -1,5 +1,7 @@
 package com.bdr.backend.models.entities;
 
+import java.time.Instant;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
@@ -26,10 +28,10 @@ public class User {
 	private String password;
 	
 	@Column(name="created_at")
-	private String createdAt;
+	private Instant createdAt;
 	
 	@Column(name="updated_at")
-	private String updatedAt;
+	private Instant updatedAt;
 
 	public int getUserId() {
 		return userId;
@@ -63,19 +65,19 @@ public class User {
 		this.password = password;
 	}
 
-	public String getCreatedAt() {
+	public Instant getCreatedAt() {
 		return createdAt;
 	}
 
-	public void setCreatedAt(String createdAt) {
+	public void setCreatedAt(Instant createdAt) {
 		this.createdAt = createdAt;
 	}
 
-	public String getUpdatedAt() {
+	public Instant getUpdatedAt() {
 		return updatedAt;
 	}
 
-	public void setUpdatedAt(String updatedAt) {
+	public void setUpdatedAt(Instant updatedAt) {
 		this.updatedAt = updatedAt;
 	}
 }
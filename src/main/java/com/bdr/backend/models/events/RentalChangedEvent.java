@@ -0,0 +1,9 @@
+package com.bdr.backend.models.events;
+
+/**
+ * Published once a rental was created or updated in the database
+ *
+ * @param rentalId The id of the rental
+ */
+public record RentalChangedEvent(int rentalId) {
+}
@@ -0,0 +1,39 @@
+package com.bdr.backend.repositories;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+import com.bdr.backend.models.entities.RentalChange;
+
+@Repository
+public interface RentalChangeRepository extends CrudRepository<RentalChange, Long> {
+
+	/**
+	 * Page of the change feed after a cursor, range query on the primary key
+	 */
+	List<RentalChange> findBySeqGreaterThanOrderBySeq(long seq, Limit limit);
+
+	/**
+	 * Seq of the last change, the cursor of the head of the feed, read from the end of the primary key
+	 */
+	@Query("SELECT MAX(c.seq) FROM RentalChange c")
+	Optional<Long> findLastSeq();
+
+	/**
+	 * Changes followed by a newer change of the same rental, found with the (rental_id, seq) index
+	 */
+	@Query("SELECT c.seq FROM RentalChange c WHERE EXISTS "
+			+ "(SELECT 1 FROM RentalChange n WHERE n.rentalId = c.rentalId AND n.seq > c.seq) ORDER BY c.seq")
+	List<Long> findSupersededSeqs(Limit limit);
+
+	@Modifying
+	@Query("DELETE FROM RentalChange c WHERE c.seq IN :seqs")
+	int deleteBySeqIn(List<Long> seqs);
+
+}
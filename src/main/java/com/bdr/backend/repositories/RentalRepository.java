@@ -3,9 +3,12 @@ package com.bdr.backend.repositories;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
+import com.bdr.backend.models.dtos.RentalFigures;
 import com.bdr.backend.models.entities.Rental;
 
 @Repository
@@ -15,6 +18,17 @@ public interface RentalRepository extends CrudRepository<Rental, Integer>{
 	
 	Optional<Rental> findById(int id);
 	
-	
+	/**
+	 * Get all rentals with their owner loaded in the same query
+	 */
+	@Query("SELECT r FROM Rental r LEFT JOIN FETCH r.owner")
+	List<Rental> findAllWithOwner();
+
+	/**
+	 * Page of the figures of the rentals after an id, range query on the primary key
+	 */
+	@Query("SELECT new com.bdr.backend.models.dtos.RentalFigures(r.rentalId, r.price, r.surface, r.ownerId) "
+			+ "FROM Rental r WHERE r.rentalId > :rentalId ORDER BY r.rentalId")
+	List<RentalFigures> findFiguresAfter(int rentalId, Limit limit);
 
 }
@@ -0,0 +1,37 @@
+package com.bdr.backend.services;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.Instant;
+
+public interface ExportService {
+
+	/** Formats of the exports, one row per line */
+	enum Format {
+		NDJSON("application/x-ndjson", "ndjson"),
+		CSV("text/csv", "csv");
+
+		private final String contentType;
+		private final String extension;
+
+		Format(String contentType, String extension) {
+			this.contentType = contentType;
+			this.extension = extension;
+		}
+
+		public String getContentType() {
+			return contentType;
+		}
+
+		public String getExtension() {
+			return extension;
+		}
+	}
+
+	void exportRentals(Format format, Instant from, Instant to, Integer ownerId, int afterId, Writer writer)
+			throws IOException;
+
+	void exportMessages(Format format, Instant from, Instant to, int ownerId, int afterId, Writer writer)
+			throws IOException;
+
+}
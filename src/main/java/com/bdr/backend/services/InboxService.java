@@ -0,0 +1,16 @@
+package com.bdr.backend.services;
+
+import com.bdr.backend.models.dtos.InboxDto;
+import com.bdr.backend.models.entities.Message;
+
+public interface InboxService {
+
+	void messageReceived(Message message);
+
+	InboxDto getInbox(int ownerId);
+
+	void markAsRead(int ownerId, int rentalId);
+
+	void flush();
+
+}
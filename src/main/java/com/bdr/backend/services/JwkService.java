@@ -0,0 +1,232 @@
+package com.bdr.backend.services;
+
+import java.sql.Timestamp;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.SecurityContext;
+
+/**
+ * Holds the RSA key pairs used to sign the tokens, stored in the jwt_keys table of the shared database :
+ * every node signs with the same newest key, and the keys survive a restart.
+ * A key signs during the rotation, then stays in the key set for verification during the retention.
+ * The keys are read at the first use, not at startup, and reloaded at each refresh :
+ * the node that finds the newest key older than the rotation adds the next one.
+ * A node with jwt.jwk-set-uri set only verifies the tokens of the issuer, it signs none.
+ */
+@Service
+public class JwkService implements JWKSource<SecurityContext> {
+
+	/** Size of the generated RSA keys */
+	private static final int KEY_SIZE = 2048;
+
+	/** Shortest time between two reloads caused by an unknown key id */
+	private static final Duration MIN_RELOAD_INTERVAL = Duration.ofSeconds(10);
+
+	/** The shared database, null to keep the keys in memory */
+	private final JdbcTemplate jdbcTemplate;
+
+	/** How long a key signs the new tokens */
+	private final Duration rotation;
+
+	/** How long a retired public key stays in the key set */
+	private final Duration retention;
+
+	/** false when the tokens are issued elsewhere */
+	private final boolean issuer;
+
+	/** The keys when there is no database, newest first */
+	private final List<StoredKey> memoryKeys = new ArrayList<>();
+
+	private volatile Keys keys;
+
+	private record StoredKey(RSAKey key, Instant createdAt) {
+	}
+
+	/**
+	 * @param current The newest key, which signs
+	 * @param jwkSet Every key still valid, the current one included
+	 * @param loadedAt When they were loaded, in System.nanoTime()
+	 */
+	private record Keys(RSAKey current, JWKSet jwkSet, long loadedAt) {
+	}
+
+	/**
+	 * @param dataSource The DataSource of the shared database, the statements run outside of any transaction on the primary
+	 * @param rotation How long a key signs the new tokens
+	 * @param retention How long a retired key still verifies the tokens it signed
+	 * @param jwkSetUri JWKS url of the issuer, set on the nodes that only verify tokens
+	 */
+	@Autowired
+	public JwkService(DataSource dataSource, @Value("${jwt.key-rotation:PT12H}") Duration rotation,
+			@Value("${jwt.key-retention:P1D}") Duration retention, @Value("${jwt.jwk-set-uri:}") String jwkSetUri) {
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+		this.rotation = rotation;
+		this.retention = retention;
+		this.issuer = jwkSetUri.isBlank();
+	}
+
+	/**
+	 * Keys kept in memory only and lost at restart, for the benchmarks
+	 *
+	 * @param retention How long a retired key still verifies the tokens it signed
+	 */
+	public JwkService(Duration retention) {
+		this.jdbcTemplate = null;
+		this.rotation = Duration.ofHours(12);
+		this.retention = retention;
+		this.issuer = true;
+	}
+
+	/**
+	 * Reload the keys added by the other nodes, add the next key when the newest one is due for rotation,
+	 * and delete the keys past their retention
+	 */
+	@Scheduled(initialDelayString = "${jwt.key-refresh:PT1M}", fixedDelayString = "${jwt.key-refresh:PT1M}")
+	public void refresh() {
+		if (!issuer) {
+			return;
+		}
+		reload();
+		Timestamp expired = Timestamp.from(Instant.now().minus(rotation).minus(retention));
+		if (jdbcTemplate != null) {
+			jdbcTemplate.update("DELETE FROM jwt_keys WHERE created_at < ?", expired);
+		}
+	}
+
+	/**
+	 * Check that this node signs the tokens
+	 *
+	 * @throws ResponseStatusException 503 when jwt.jwk-set-uri points to the issuer
+	 */
+	public void requireIssuer() {
+		if (!issuer) {
+			throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+					"This node only verifies tokens, they are issued by jwt.jwk-set-uri");
+		}
+	}
+
+	/**
+	 * Get the id of the key that signs the new tokens
+	 *
+	 * @return the key id to put in the token header
+	 */
+	public String getCurrentKeyId() {
+		return keys().current().getKeyID();
+	}
+
+	/**
+	 * Get the public part of every key that can verify a token
+	 *
+	 * @return the public JWK set
+	 */
+	public JWKSet getPublicJwkSet() {
+		return keys().jwkSet().toPublicJWKSet();
+	}
+
+	/**
+	 * Select the keys of a token. A key id still unknown may be the key just added by another node :
+	 * the keys are reloaded, at most every MIN_RELOAD_INTERVAL.
+	 */
+	@Override
+	public List<JWK> get(JWKSelector jwkSelector, SecurityContext context) {
+		Keys current = keys();
+		List<JWK> selected = jwkSelector.select(current.jwkSet());
+		if (selected.isEmpty() && System.nanoTime() - current.loadedAt() > MIN_RELOAD_INTERVAL.toNanos()) {
+			selected = jwkSelector.select(reload().jwkSet());
+		}
+		return selected;
+	}
+
+	private Keys keys() {
+		requireIssuer();
+		Keys current = keys;
+		return current != null ? current : reload();
+	}
+
+	/**
+	 * Read the keys still valid, newest first, and add a new one if the newest is due for rotation
+	 */
+	private synchronized Keys reload() {
+		Instant now = Instant.now();
+		List<StoredKey> stored = load(now.minus(rotation).minus(retention));
+		if (stored.isEmpty() || !stored.get(0).createdAt().plus(rotation).isAfter(now)) {
+			StoredKey newKey = new StoredKey(generateKey(), now);
+			store(newKey);
+			stored.add(0, newKey);
+		}
+
+		List<JWK> jwks = new ArrayList<>(stored.size());
+		stored.forEach(storedKey -> jwks.add(storedKey.key()));
+		keys = new Keys(stored.get(0).key(), new JWKSet(jwks), System.nanoTime());
+		return keys;
+	}
+
+	private List<StoredKey> load(Instant since) {
+		if (jdbcTemplate == null) {
+			memoryKeys.removeIf(storedKey -> storedKey.createdAt().isBefore(since));
+			return new ArrayList<>(memoryKeys);
+		}
+		return new ArrayList<>(jdbcTemplate.query("SELECT jwk, created_at FROM jwt_keys WHERE created_at >= ? "
+				+ "ORDER BY created_at DESC", (resultSet, rowNum) -> new StoredKey(parse(resultSet.getString("jwk")),
+						resultSet.getTimestamp("created_at").toInstant()),
+				Timestamp.from(since)));
+	}
+
+	private void store(StoredKey storedKey) {
+		if (jdbcTemplate == null) {
+			memoryKeys.add(storedKey);
+			memoryKeys.sort(Comparator.comparing(StoredKey::createdAt).reversed());
+			return;
+		}
+		jdbcTemplate.update("INSERT INTO jwt_keys (kid, jwk, created_at) VALUES (?, ?, ?)",
+				storedKey.key().getKeyID(), storedKey.key().toJSONString(), Timestamp.from(storedKey.createdAt()));
+	}
+
+	private static RSAKey parse(String jwk) {
+		try {
+			return RSAKey.parse(jwk);
+		} catch (ParseException e) {
+			throw new IllegalStateException("Unreadable key in jwt_keys", e);
+		}
+	}
+
+	/**
+	 * Generate a new RSA signing key with a random key id
+	 */
+	private static RSAKey generateKey() {
+		try {
+			return new RSAKeyGenerator(KEY_SIZE)
+					.keyID(UUID.randomUUID().toString())
+					.keyUse(KeyUse.SIGNATURE)
+					.algorithm(JWSAlgorithm.RS256)
+					.generate();
+		} catch (JOSEException e) {
+			throw new IllegalStateException("Failed to generate the JWT signing key", e);
+		}
+	}
+}
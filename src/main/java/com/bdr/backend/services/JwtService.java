@@ -4,10 +4,9 @@ import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jose.jws.SignatureAlgorithm;
 import org.springframework.security.oauth2.jwt.JwsHeader;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.oauth2.jwt.JwtClaimsSet;
@@ -15,22 +14,38 @@ import org.springframework.security.oauth2.jwt.JwtEncoder;
 import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
 import org.springframework.stereotype.Service;
 
-import com.bdr.backend.models.entities.User;
 import com.bdr.backend.servicesImpl.UserServiceImpl;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+
 @Service
 public class JwtService {
 	
-	/** Get the secret key from the environment variable */
-	@Value("${jwt_secret}")
-	private String jwtKey;
-
 	@Autowired
 	private JwtEncoder jwtEncoder;
+
+	@Autowired
+	private JwkService jwkService;
 	
 	@Autowired
 	private UserServiceImpl userService;
 
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	/** Time to sign a token, registered once */
+	private Timer encodeTimer;
+
+	@PostConstruct
+	public void registerMetrics() {
+		encodeTimer = Timer.builder("jwt")
+				.description("JWT signing and verification time")
+				.tags("operation", "encode", "outcome", "success")
+				.register(meterRegistry);
+	}
+
 	/**
 	 * Generate a token from the user email
 	 *
@@ -47,9 +62,9 @@ public class JwtService {
                 .expiresAt(now.plus(1, ChronoUnit.DAYS)).build();
 
         JwtEncoderParameters jwtEncoderParameters = JwtEncoderParameters
-                .from(JwsHeader.with(MacAlgorithm.HS256).build(), claims);
+                .from(JwsHeader.with(SignatureAlgorithm.RS256).keyId(jwkService.getCurrentKeyId()).build(), claims);
 
-        return this.jwtEncoder.encode(jwtEncoderParameters).getTokenValue();
+        return encodeTimer.record(() -> this.jwtEncoder.encode(jwtEncoderParameters).getTokenValue());
     }
 
 	/**
@@ -61,7 +76,6 @@ public class JwtService {
         Jwt jwt = (Jwt) authentication.getPrincipal();
         String login = jwt.getClaim("login");
 
-		User user = userService.getUserByEmail(login).get();
-		return userService.convertToDto(user).getUserId();
+		return userService.getUserDtoByEmail(login).get().getUserId();
 	}
 }
@@ -0,0 +1,14 @@
+package com.bdr.backend.services;
+
+import com.bdr.backend.models.dtos.RentalDto;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveRentalService {
+
+	Flux<RentalDto> getAllRentals();
+
+	Mono<RentalDto> getRentalById(int id);
+
+}
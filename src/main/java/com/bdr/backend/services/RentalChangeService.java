@@ -0,0 +1,11 @@
+package com.bdr.backend.services;
+
+import com.bdr.backend.models.dtos.RentalChangesDto;
+
+public interface RentalChangeService {
+
+	RentalChangesDto getChangesSince(long cursor, int limit);
+
+	int compact();
+
+}
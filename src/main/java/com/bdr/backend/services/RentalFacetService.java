@@ -0,0 +1,9 @@
+package com.bdr.backend.services;
+
+import com.bdr.backend.models.dtos.RentalFacetsDto;
+
+public interface RentalFacetService {
+
+	RentalFacetsDto getFacets(Integer priceMin, Integer priceMax, Integer surfaceMin, Integer surfaceMax, Integer ownerId);
+
+}
@@ -9,7 +9,7 @@ import com.bdr.backend.models.entities.Rental;
 
 public interface RentalService {
 	
-	Map<String, List<RentalDto>> getAllRentals();
+	Map<String, List<RentalDto>> getAllRentals(boolean withOwner);
 
 	Optional<Rental> getRentalById(int id);
 
@@ -0,0 +1,9 @@
+package com.bdr.backend.services;
+
+import com.bdr.backend.models.dtos.RentalStatsDto;
+
+public interface RentalStatsService {
+
+	RentalStatsDto getStats();
+
+}
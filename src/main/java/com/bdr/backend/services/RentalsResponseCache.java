@@ -0,0 +1,193 @@
+package com.bdr.backend.services;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.bdr.backend.cache.CacheInvalidationBus;
+import com.bdr.backend.configuration.ReplicaRoutingDataSource;
+import com.bdr.backend.models.dtos.OwnerDto;
+import com.bdr.backend.models.dtos.RentalDto;
+import com.bdr.backend.models.events.RentalChangedEvent;
+import com.bdr.backend.utils.SingleFlight;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Keeps the JSON body of GET api/rentals, serialized and gzipped in advance,
+ * so that a hot request is a copy of bytes instead of a query and a serialization.
+ * Each body is tagged with the catalogue version : creating or updating a rental bumps it,
+ * and the next request rebuilds the body, on this node and on the others through the CacheInvalidationBus.
+ * The ttl bounds the staleness for the changes that go through neither (owner names, manual edits).
+ * The body is shared by every user, so it is always loaded from the primary : a lagging replica
+ * would cache the old rentals under the new version until the ttl.
+ * The DTOs are serialized by hand, their reflection hints are registered for the native image.
+ */
+@Service
+@RegisterReflectionForBinding({ RentalDto.class, OwnerDto.class })
+public class RentalsResponseCache {
+
+	/** Name of the bodies on the CacheInvalidationBus, always cleared as a whole */
+	static final String RENTALS_CACHE = "rentals";
+
+	@Autowired
+	private RentalService rentalService;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Autowired
+	private CacheInvalidationBus cacheInvalidationBus;
+
+	/** How long a request waits for the body built by a concurrent request */
+	@Value("${rentals.coalescing-timeout:PT5S}")
+	private Duration coalescingTimeout;
+
+	/** Maximum age of a body, even if no rental changed on this instance */
+	@Value("${rentals.cache.ttl:PT1M}")
+	private Duration ttl;
+
+	/** Bumped on each created or updated rental */
+	private final AtomicLong catalogueVersion = new AtomicLong();
+
+	/** Body of each include value, with and without the owners */
+	private final Map<Boolean, RentalsBody> bodies = new ConcurrentHashMap<>();
+
+	/** Concurrent misses share one database load and one serialization */
+	private final SingleFlight<Boolean, RentalsBody> rentalsFlight = new SingleFlight<>();
+
+	@PostConstruct
+	public void registerInvalidation() {
+		cacheInvalidationBus.register(RENTALS_CACHE, key -> catalogueVersion.incrementAndGet());
+	}
+
+	/**
+	 * The JSON of the rentals list in both encodings
+	 *
+	 * @param version The catalogue version the body was built from
+	 * @param builtAt When the body was built, in System.nanoTime()
+	 * @param identity The JSON bytes
+	 * @param gzip The same JSON, gzipped
+	 * @param etag The strong ETag of the identity bytes, without the quotes
+	 */
+	public record RentalsBody(long version, long builtAt, byte[] identity, byte[] gzip, String etag) {
+	}
+
+	/**
+	 * Get the body of the rentals list, rebuilt if a rental changed since the last build
+	 *
+	 * @param withOwner true to embed a summary of each owner
+	 * @return the cached body, shared by all the callers : it must not be modified
+	 * @throws TimeoutException if the body built by a concurrent request took too long
+	 */
+	public RentalsBody getRentals(boolean withOwner) throws TimeoutException {
+		RentalsBody body = bodies.get(withOwner);
+		if (body != null && isFresh(body)) {
+			meterRegistry.counter("rentals.response.cache", "result", "hit").increment();
+			return body;
+		}
+		return rentalsFlight.execute(withOwner, coalescingTimeout, () -> {
+			// A concurrent request may have rebuilt it while this one was waiting for the flight
+			RentalsBody current = bodies.get(withOwner);
+			if (current != null && isFresh(current)) {
+				return current;
+			}
+			meterRegistry.counter("rentals.response.cache", "result", "miss").increment();
+			RentalsBody rebuilt = build(withOwner);
+			bodies.put(withOwner, rebuilt);
+			return rebuilt;
+		});
+	}
+
+	/**
+	 * Invalidate the bodies once the creation or update of a rental is committed,
+	 * a rebuild before the commit would cache the old rentals with the new version
+	 *
+	 * @param event The change
+	 */
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onRentalChanged(RentalChangedEvent event) {
+		catalogueVersion.incrementAndGet();
+		cacheInvalidationBus.publish(RENTALS_CACHE, null);
+	}
+
+	private boolean isFresh(RentalsBody body) {
+		return body.version() == catalogueVersion.get() && System.nanoTime() - body.builtAt() < ttl.toNanos();
+	}
+
+	/**
+	 * Load from the primary, serialize and compress the rentals.
+	 * The version is read before the load : a change made during the load makes the body stale at once.
+	 */
+	private RentalsBody build(boolean withOwner) {
+		long version = catalogueVersion.get();
+		long builtAt = System.nanoTime();
+		Map<String, List<RentalDto>> rentalsDto = ReplicaRoutingDataSource.onPrimary(() -> rentalService.getAllRentals(withOwner));
+
+		// Add the full URL for each picture in order to display it in the front-end
+		rentalsDto.forEach((key, value) -> value.forEach(rental -> {
+			rental.setPicture(rentalService.constructFullUrl(rental.getPicture()));
+		}));
+
+		try {
+			byte[] identity = objectMapper.writeValueAsBytes(rentalsDto);
+			return new RentalsBody(version, builtAt, identity, gzip(identity), etag(identity));
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException("Failed to serialize the rentals", e);
+		}
+	}
+
+	/**
+	 * Compress with the best level, the cost is paid once per version
+	 */
+	private static byte[] gzip(byte[] identity) {
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(64, identity.length / 4));
+		try (OutputStream gzip = new GZIPOutputStream(compressed) {
+			{
+				def.setLevel(Deflater.BEST_COMPRESSION);
+			}
+		}) {
+			gzip.write(identity);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return compressed.toByteArray();
+	}
+
+	/**
+	 * Hash of the content, so that the ETag stays valid across restarts and instances
+	 */
+	private static String etag(byte[] identity) {
+		try {
+			byte[] hash = MessageDigest.getInstance("SHA-256").digest(identity);
+			return HexFormat.of().formatHex(Arrays.copyOf(hash, 16));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -1,5 +1,7 @@
 package com.bdr.backend.services;
 
+import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
 
 import com.bdr.backend.models.dtos.UserDto;
@@ -8,6 +10,12 @@ import com.bdr.backend.models.entities.User;
 public interface UserService {
 	
 	Optional<User> getUserFromUserId(int userId);
+
+	Optional<UserDto> getUserDtoFromUserId(int userId);
+
+	Optional<UserDto> getUserDtoByEmail(String email);
+	
+	Map<Integer, UserDto> getUsersFromUserIds(Collection<Integer> userIds);
 	
 	User saveUser(User user);
 	
@@ -0,0 +1,218 @@
+package com.bdr.backend.servicesImpl;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.bdr.backend.services.ExportService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Writes the rows to the response while they are read from a database cursor,
+ * so that the memory does not depend on the size of the export.
+ * The rows are sorted by id : an interrupted export is resumed with the last id received.
+ */
+@Service
+public class ExportServiceImpl implements ExportService {
+
+	private static final List<String> RENTAL_COLUMNS = List.of("id", "name", "surface", "price", "picture",
+			"description", "owner_id", "created_at", "updated_at");
+
+	private static final List<String> MESSAGE_COLUMNS = List.of("id", "rental_id", "user_id", "message", "created_at",
+			"updated_at");
+
+	/** Rows fetched per round trip, except on MySQL which streams them one by one */
+	@Value("${export.fetch-size:1000}")
+	private int fetchSize;
+
+	/**
+	 * Longest time an export keeps its transaction open, whatever the speed of the client :
+	 * past it the body is cut, and the client resumes from the last complete line
+	 */
+	@Value("${export.max-duration:PT10M}")
+	private Duration maxDuration;
+
+	@Autowired
+	private DataSource dataSource;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	private JdbcTemplate jdbcTemplate;
+
+	@PostConstruct
+	public void initJdbcTemplate() {
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.setQueryTimeout((int) maxDuration.toSeconds());
+	}
+
+	/**
+	 * Export the rentals, in a read-only transaction so that the export is a consistent snapshot
+	 *
+	 * @param format NDJSON or CSV
+	 * @param from Only the rentals created at or after this date, may be null
+	 * @param to Only the rentals created before this date, may be null
+	 * @param ownerId Only the rentals of this owner, may be null
+	 * @param afterId Only the rentals with a greater id, 0 for a full export
+	 * @param writer Where the rows are written
+	 */
+	@Transactional(readOnly = true)
+	public void exportRentals(Format format, Instant from, Instant to, Integer ownerId, int afterId, Writer writer)
+			throws IOException {
+		StringBuilder sql = new StringBuilder("SELECT id, name, surface, price, picture, description, owner_id, "
+				+ "created_at, updated_at FROM rentals WHERE id > ?");
+		List<Object> args = new ArrayList<>(List.of(afterId));
+		appendFilters(sql, args, "", from, to);
+		if (ownerId != null) {
+			sql.append(" AND owner_id = ?");
+			args.add(ownerId);
+		}
+		sql.append(" ORDER BY id");
+		export(sql.toString(), args, RENTAL_COLUMNS, format, writer);
+	}
+
+	/**
+	 * Export the messages about the rentals of an owner, in a read-only transaction so that the export is a consistent snapshot
+	 *
+	 * @param format NDJSON or CSV
+	 * @param from Only the messages created at or after this date, may be null
+	 * @param to Only the messages created before this date, may be null
+	 * @param ownerId The owner of the rentals the messages are about
+	 * @param afterId Only the messages with a greater id, 0 for a full export
+	 * @param writer Where the rows are written
+	 */
+	@Transactional(readOnly = true)
+	public void exportMessages(Format format, Instant from, Instant to, int ownerId, int afterId, Writer writer)
+			throws IOException {
+		StringBuilder sql = new StringBuilder("SELECT m.id, m.rental_id, m.user_id, m.message, m.created_at, m.updated_at "
+				+ "FROM messages m JOIN rentals r ON r.id = m.rental_id AND r.owner_id = ? WHERE m.id > ?");
+		List<Object> args = new ArrayList<>(List.of(ownerId, afterId));
+		appendFilters(sql, args, "m.", from, to);
+		sql.append(" ORDER BY m.id");
+		export(sql.toString(), args, MESSAGE_COLUMNS, format, writer);
+	}
+
+	private static void appendFilters(StringBuilder sql, List<Object> args, String alias, Instant from, Instant to) {
+		if (from != null) {
+			sql.append(" AND ").append(alias).append("created_at >= ?");
+			args.add(LocalDateTime.ofInstant(from, ZoneOffset.UTC));
+		}
+		if (to != null) {
+			sql.append(" AND ").append(alias).append("created_at < ?");
+			args.add(LocalDateTime.ofInstant(to, ZoneOffset.UTC));
+		}
+	}
+
+	private void export(String sql, List<Object> args, List<String> columns, Format format, Writer writer)
+			throws IOException {
+		try (JsonGenerator json = format == Format.NDJSON ? objectMapper.getFactory().createGenerator(writer) : null) {
+			if (json != null) {
+				json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+			} else {
+				writer.write(String.join(",", columns));
+				writer.write("\r\n");
+			}
+
+			long deadline = System.nanoTime() + maxDuration.toNanos();
+			jdbcTemplate.query(connection -> streamingStatement(connection, sql, args), resultSet -> {
+				if (System.nanoTime() - deadline > 0) {
+					throw new QueryTimeoutException("Export stopped after " + maxDuration + ", resume it from the last id received");
+				}
+				try {
+					if (json != null) {
+						writeJson(resultSet, columns, json);
+					} else {
+						writeCsv(resultSet, columns, writer);
+					}
+				} catch (IOException e) {
+					// The client went away, stop reading
+					throw new UncheckedIOException(e);
+				}
+			});
+		}
+		writer.flush();
+	}
+
+	/**
+	 * A forward-only statement streaming its rows. MySQL streams them with a fetch size of Integer.MIN_VALUE,
+	 * without useCursorFetch=true in the url : the other queries keep their client-side prepared statements.
+	 * The connection runs nothing else until the result is read, the export is its only statement.
+	 */
+	private PreparedStatement streamingStatement(Connection connection, String sql, List<Object> args) throws SQLException {
+		PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+		boolean mysql = "MySQL".equals(connection.getMetaData().getDatabaseProductName());
+		statement.setFetchSize(mysql ? Integer.MIN_VALUE : fetchSize);
+		new ArgumentPreparedStatementSetter(args.toArray()).setValues(statement);
+		return statement;
+	}
+
+	private static void writeJson(ResultSet resultSet, List<String> columns, JsonGenerator json)
+			throws SQLException, IOException {
+		json.writeStartObject();
+		for (int i = 0; i < columns.size(); i++) {
+			json.writeObjectField(columns.get(i), value(resultSet, i + 1));
+		}
+		json.writeEndObject();
+		json.writeRaw('\n');
+	}
+
+	private static void writeCsv(ResultSet resultSet, List<String> columns, Writer writer)
+			throws SQLException, IOException {
+		for (int i = 0; i < columns.size(); i++) {
+			if (i > 0) {
+				writer.write(',');
+			}
+			Object value = value(resultSet, i + 1);
+			if (value != null) {
+				writer.write(escapeCsv(value.toString()));
+			}
+		}
+		writer.write("\r\n");
+	}
+
+	/**
+	 * Value of a column, the dates as ISO-8601 instants.
+	 * The DATETIME columns hold the UTC wall time written by the JPA side, read as is whatever the zone of the JVM.
+	 */
+	private static Object value(ResultSet resultSet, int column) throws SQLException {
+		Object value = resultSet.getObject(column);
+		if (value instanceof Timestamp || value instanceof LocalDateTime) {
+			return resultSet.getObject(column, LocalDateTime.class).toInstant(ZoneOffset.UTC).toString();
+		}
+		return value;
+	}
+
+	/**
+	 * Quote the field if it contains a separator, a quote or a line break (RFC 4180)
+	 */
+	private static String escapeCsv(String field) {
+		if (field.indexOf(',') < 0 && field.indexOf('"') < 0 && field.indexOf('\n') < 0 && field.indexOf('\r') < 0) {
+			return field;
+		}
+		return '"' + field.replace("\"", "\"\"") + '"';
+	}
+}
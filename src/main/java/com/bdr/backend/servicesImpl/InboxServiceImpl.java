@@ -0,0 +1,193 @@
+package com.bdr.backend.servicesImpl;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.bdr.backend.models.dtos.InboxDto;
+import com.bdr.backend.models.dtos.InboxRentalDto;
+import com.bdr.backend.models.entities.Message;
+import com.bdr.backend.repositories.RentalRepository;
+import com.bdr.backend.services.InboxService;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Unread counters of the owners' inboxes.
+ * A message is only kept in memory, without any query : the messages received are written
+ * in one batch of upserts every inbox.flush-interval, instead of a write per message
+ * or a COUNT over the messages at each read.
+ * The owner of the rental is only known in the database, so the messages of the owner
+ * are left out by the upsert and by the read of the inbox.
+ * A read records the last message of the rental in read_through : the flush only counts
+ * the messages after it, so a node flushing after the read of another node does not count again what was read.
+ * The inbox is the counters of the database plus the messages of this node not written yet,
+ * the messages of the other nodes are seen after their next flush.
+ */
+@Service
+public class InboxServiceImpl implements InboxService {
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private RentalRepository rentalRepository;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	private record Sender(int rentalId, int userId) {
+	}
+
+	/** Ids of the messages of each sender on each rental not written yet */
+	private final Map<Sender, List<Integer>> pending = new ConcurrentHashMap<>();
+
+	/** A flush and a mark as read of the same rental must not interleave */
+	private final Object flushLock = new Object();
+
+	private Counter flushedRows;
+
+	@PostConstruct
+	public void registerMetrics() {
+		meterRegistry.gauge("inbox.pending", pending, Map::size);
+		flushedRows = meterRegistry.counter("inbox.flushed");
+	}
+
+	/**
+	 * Count a new message as unread for the owner of its rental
+	 *
+	 * @param message The message saved
+	 */
+	public void messageReceived(Message message) {
+		pending.compute(new Sender(message.getRentalId(), message.getUserId()), (sender, ids) -> {
+			List<Integer> added = ids != null ? ids : new CopyOnWriteArrayList<>();
+			added.add(message.getMessageId());
+			return added;
+		});
+	}
+
+	/**
+	 * Get the unread messages of the rentals of an owner.
+	 * After marking a rental as read, the owner is in the read-your-writes window and reads the counters from the primary.
+	 *
+	 * @param ownerId Id of the owner
+	 * @return the total and the rentals with unread messages
+	 */
+	@Transactional(readOnly = true)
+	public InboxDto getInbox(int ownerId) {
+		Map<Integer, Integer> unread = new TreeMap<>();
+		jdbcTemplate.query("SELECT r.id, c.unread FROM rentals r LEFT JOIN inbox_counters c ON c.rental_id = r.id "
+				+ "WHERE r.owner_id = ?", rs -> {
+					unread.put(rs.getInt(1), rs.getInt(2));
+				}, ownerId);
+		for (Map.Entry<Sender, List<Integer>> entry : pending.entrySet()) {
+			Sender sender = entry.getKey();
+			if (sender.userId() != ownerId && unread.containsKey(sender.rentalId())) {
+				unread.merge(sender.rentalId(), entry.getValue().size(), Integer::sum);
+			}
+		}
+
+		InboxDto inbox = new InboxDto();
+		List<InboxRentalDto> rentals = new ArrayList<>();
+		int total = 0;
+		for (Map.Entry<Integer, Integer> entry : unread.entrySet()) {
+			if (entry.getValue() == 0) {
+				continue;
+			}
+			InboxRentalDto rental = new InboxRentalDto();
+			rental.setRental_id(entry.getKey());
+			rental.setUnread(entry.getValue());
+			rentals.add(rental);
+			total += entry.getValue();
+		}
+		inbox.setTotal(total);
+		inbox.setRentals(rentals);
+		return inbox;
+	}
+
+	/**
+	 * Reset the unread messages of a rental, and record its last message so that no node counts it again
+	 *
+	 * @param ownerId Id of the user reading, must own the rental
+	 * @param rentalId Id of the rental
+	 */
+	@Transactional
+	public void markAsRead(int ownerId, int rentalId) {
+		rentalRepository.findById(rentalId)
+				.filter(rental -> rental.getOwnerId() == ownerId)
+				.orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Rental not found"));
+		synchronized (flushLock) {
+			int readThrough = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM messages WHERE rental_id = ?",
+					Integer.class, rentalId);
+			for (Sender sender : pending.keySet()) {
+				if (sender.rentalId() == rentalId) {
+					// The messages saved after the read stay unread
+					pending.computeIfPresent(sender, (key, ids) -> {
+						ids.removeIf(id -> id <= readThrough);
+						return ids.isEmpty() ? null : ids;
+					});
+				}
+			}
+			jdbcTemplate.update("INSERT INTO inbox_counters (rental_id, unread, read_through) VALUES (?, 0, ?) "
+					+ "ON DUPLICATE KEY UPDATE unread = 0, read_through = GREATEST(read_through, ?)",
+					rentalId, readThrough, readThrough);
+		}
+	}
+
+	/**
+	 * Add the messages of this node to the counters of the database, one upsert per message in a single batch.
+	 * The messages of the owner of the rental select no row and are dropped,
+	 * the messages already read on any node (not after read_through) leave the counter as it is
+	 */
+	@Scheduled(fixedDelayString = "${inbox.flush-interval:PT1S}")
+	@PreDestroy
+	public void flush() {
+		synchronized (flushLock) {
+			Map<Sender, List<Integer>> taken = new TreeMap<>(
+					Comparator.comparingInt(Sender::rentalId).thenComparingInt(Sender::userId));
+			for (Sender sender : pending.keySet()) {
+				// The messages received after the remove go to a new entry, written at the next flush
+				List<Integer> ids = pending.remove(sender);
+				if (ids != null) {
+					taken.put(sender, ids);
+				}
+			}
+			if (taken.isEmpty()) {
+				return;
+			}
+			// Sorted by rental, so that two nodes flushing at once lock the rows in the same order
+			List<Object[]> rows = new ArrayList<>();
+			taken.forEach((sender, ids) -> ids.forEach(id -> rows.add(
+					new Object[] { sender.rentalId(), sender.userId(), id })));
+			try {
+				jdbcTemplate.batchUpdate("INSERT INTO inbox_counters (rental_id, unread, read_through) "
+						+ "SELECT id, 1, 0 FROM rentals WHERE id = ? AND owner_id <> ? "
+						+ "ON DUPLICATE KEY UPDATE unread = unread + CASE WHEN read_through < ? THEN 1 ELSE 0 END", rows);
+			} catch (DataAccessException e) {
+				// Kept for the next flush, with the messages received meanwhile
+				taken.forEach((sender, ids) -> pending.merge(sender, ids, (received, kept) -> {
+					received.addAll(kept);
+					return received;
+				}));
+				throw e;
+			}
+			flushedRows.increment(rows.size());
+		}
+	}
+}
@@ -1,14 +1,14 @@
 package com.bdr.backend.servicesImpl;
 
-import java.util.Date;
+import java.time.Instant;
 
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import com.bdr.backend.models.dtos.MessageDto;
 import com.bdr.backend.models.entities.Message;
 import com.bdr.backend.repositories.MessageRepository;
+import com.bdr.backend.services.InboxService;
 import com.bdr.backend.services.MessageService;
 import com.bdr.backend.utils.DateUtils;
 
@@ -17,9 +17,9 @@ public class MessageServiceImpl implements MessageService {
 	
 	@Autowired
 	private MessageRepository messageRepository;
-	
+
 	@Autowired
-	private ModelMapper modelMapper;
+	private InboxService inboxService;
 
 	/**
 	 * Save a message
@@ -43,9 +43,10 @@ public class MessageServiceImpl implements MessageService {
 		newMessage.setMessage(message);
 		newMessage.setUserId(userId);
 		newMessage.setRentalId(rentalId);
-		newMessage.setCreatedAt(DateUtils.formatToMySQLDateTime(new Date()));
+		newMessage.setCreatedAt(Instant.now());
 
 		messageRepository.save(newMessage);
+		inboxService.messageReceived(newMessage);
 
 		return newMessage;
 	}
@@ -57,7 +58,13 @@ public class MessageServiceImpl implements MessageService {
 	 * @return The message dto
 	 */
 	public MessageDto convertToDto(Message message) {
-		return modelMapper.map(message, MessageDto.class);
+		MessageDto messageDto = new MessageDto();
+		messageDto.setMessageId(message.getMessageId());
+		messageDto.setRentalId(message.getRentalId());
+		messageDto.setUserId(message.getUserId());
+		messageDto.setMessage(message.getMessage());
+		messageDto.setCreatedAt(DateUtils.formatToMySQLDateTime(message.getCreatedAt()));
+		return messageDto;
 	}
 
 }
@@ -0,0 +1,96 @@
+package com.bdr.backend.servicesImpl;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+
+import com.bdr.backend.models.dtos.RentalDto;
+import com.bdr.backend.services.RentalService;
+import com.bdr.backend.services.ReactiveRentalService;
+import com.bdr.backend.utils.DateUtils;
+
+import io.r2dbc.spi.Readable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Service
+@Profile("reactive")
+public class ReactiveRentalServiceImpl implements ReactiveRentalService {
+
+	private static final String SELECT_RENTALS = "SELECT id, name, surface, price, picture, description, owner_id, "
+			+ "created_at, updated_at FROM rentals";
+
+	@Autowired
+	private DatabaseClient databaseClient;
+
+	@Autowired
+	private RentalService rentalService;
+
+	/**
+	 * Get all rentals, the rows are read from the database as the client consumes them
+	 *
+	 * @return a flux of rental DTO objects
+	 */
+	public Flux<RentalDto> getAllRentals() {
+		return databaseClient.sql(SELECT_RENTALS + " ORDER BY id")
+				.map(this::convertToDto)
+				.all();
+	}
+
+	/**
+	 * Get a rental by its id
+	 *
+	 * @param id The rental id
+	 * @return a mono of the rental DTO, empty if not found
+	 */
+	public Mono<RentalDto> getRentalById(int id) {
+		return databaseClient.sql(SELECT_RENTALS + " WHERE id = :id")
+				.bind("id", id)
+				.map(this::convertToDto)
+				.one();
+	}
+
+	/**
+	 * Convert a rentals row to a rental DTO object, with the full URL of the picture
+	 */
+	private RentalDto convertToDto(Readable row) {
+		RentalDto rentalDto = new RentalDto();
+		rentalDto.setId(row.get("id", Integer.class));
+		rentalDto.setName(row.get("name", String.class));
+		rentalDto.setSurface(intOrZero(row.get("surface", Number.class)));
+		rentalDto.setPrice(intOrZero(row.get("price", Number.class)));
+		rentalDto.setPicture(rentalService.constructFullUrl(row.get("picture", String.class)));
+		rentalDto.setDescription(row.get("description", String.class));
+		rentalDto.setOwner_id(row.get("owner_id", Integer.class));
+		rentalDto.setCreatedAt(DateUtils.formatToMySQLDateTime(toInstant(row.get("created_at"))));
+		rentalDto.setUpdatedAt(DateUtils.formatToMySQLDateTime(toInstant(row.get("updated_at"))));
+		return rentalDto;
+	}
+
+	private static int intOrZero(Number value) {
+		return value == null ? 0 : value.intValue();
+	}
+
+	/**
+	 * The drivers return DATETIME columns as LocalDateTime, written in UTC by the JPA side
+	 */
+	private static Instant toInstant(Object value) {
+		if (value instanceof LocalDateTime localDateTime) {
+			return localDateTime.toInstant(ZoneOffset.UTC);
+		}
+		if (value instanceof OffsetDateTime offsetDateTime) {
+			return offsetDateTime.toInstant();
+		}
+		if (value instanceof ZonedDateTime zonedDateTime) {
+			return zonedDateTime.toInstant();
+		}
+		return (Instant) value;
+	}
+}
@@ -0,0 +1,224 @@
+package com.bdr.backend.servicesImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.bdr.backend.models.dtos.RentalChangesDto;
+import com.bdr.backend.models.dtos.RentalDto;
+import com.bdr.backend.models.dtos.RentalFigures;
+import com.bdr.backend.models.events.RentalChangedEvent;
+import com.bdr.backend.repositories.RentalChangeRepository;
+import com.bdr.backend.repositories.RentalRepository;
+import com.bdr.backend.services.RentalChangeService;
+
+/**
+ * Keeps the in-memory views of the catalogue (statistics, facets) up to date with a single scan and a single feed :
+ * the rentals are read once per rebuild and the changes once per poll, then given to every view.
+ * The rentals created or updated on this node are applied once committed,
+ * the ones of the other nodes when they show up in the change feed.
+ * The views are built when the application is ready, and rebuilt periodically
+ * to correct the changes made outside of the API.
+ */
+@Service
+public class RentalCatalogueProjection {
+
+	private static final Logger logger = LoggerFactory.getLogger(RentalCatalogueProjection.class);
+
+	/** Rentals read per query by the rebuild */
+	private static final int REBUILD_PAGE = 10000;
+
+	/**
+	 * A view of the catalogue kept by the projection
+	 */
+	interface View {
+
+		/**
+		 * Start a rebuild
+		 *
+		 * @return an empty copy of the view, filled with every rental then installed
+		 */
+		Rebuild startRebuild();
+
+		/**
+		 * Apply the current state of a rental to the installed copy, with the projection locked
+		 */
+		void apply(int rentalId, int price, int surface, int ownerId);
+	}
+
+	/**
+	 * A copy of a view being rebuilt, only used by the rebuilding thread
+	 */
+	interface Rebuild {
+
+		void apply(int rentalId, int price, int surface, int ownerId);
+
+		/**
+		 * Replace the copy served to the requests, with the projection locked
+		 */
+		void install();
+	}
+
+	@Autowired
+	private RentalRepository rentalRepository;
+
+	@Autowired
+	private RentalChangeRepository rentalChangeRepository;
+
+	@Autowired
+	private RentalChangeService rentalChangeService;
+
+	private final List<View> views = new CopyOnWriteArrayList<>();
+
+	/** Position in the change feed of the changes already applied, guarded by this */
+	private long feedCursor;
+
+	/** Set by the first rebuild, guarded by this */
+	private boolean built;
+
+	/** Only one rebuild at a time */
+	private final Object rebuildLock = new Object();
+
+	/**
+	 * Add a view, before the application is ready
+	 *
+	 * @param view The view to keep up to date
+	 */
+	void register(View view) {
+		views.add(view);
+	}
+
+	/**
+	 * Build the views when the application is ready, so that the first request does not wait for the scan.
+	 * If the database is not reachable yet, the first request builds them.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void warmUp() {
+		try {
+			build();
+		} catch (RuntimeException e) {
+			logger.warn("Could not build the catalogue views at startup, the first request will", e);
+		}
+	}
+
+	/**
+	 * Build the views if no rebuild did yet : concurrent first requests wait for a single scan
+	 */
+	public void build() {
+		if (isBuilt()) {
+			return;
+		}
+		synchronized (rebuildLock) {
+			if (isBuilt()) {
+				return;
+			}
+			load();
+		}
+		followFeed();
+	}
+
+	/**
+	 * Fill every view again from all the rentals, a page at a time,
+	 * then apply the changes of the feed made during the scan
+	 */
+	@Scheduled(initialDelayString = "${rentals.catalogue.rebuild:PT6H}", fixedDelayString = "${rentals.catalogue.rebuild:PT6H}")
+	public void rebuild() {
+		synchronized (rebuildLock) {
+			load();
+		}
+		followFeed();
+	}
+
+	/**
+	 * Scan all the rentals, called with the rebuild lock held
+	 */
+	private void load() {
+		long head = rentalChangeRepository.findLastSeq().orElse(0L);
+		List<Rebuild> rebuilds = new ArrayList<>(views.size());
+		views.forEach(view -> rebuilds.add(view.startRebuild()));
+		int afterId = 0;
+		List<RentalFigures> page;
+		do {
+			page = rentalRepository.findFiguresAfter(afterId, Limit.of(REBUILD_PAGE));
+			for (RentalFigures rental : page) {
+				for (Rebuild rebuild : rebuilds) {
+					rebuild.apply(rental.rentalId(), rental.price(), rental.surface(), rental.ownerId());
+				}
+				afterId = rental.rentalId();
+			}
+		} while (page.size() == REBUILD_PAGE);
+
+		synchronized (this) {
+			rebuilds.forEach(Rebuild::install);
+			feedCursor = head;
+			built = true;
+		}
+	}
+
+	/**
+	 * Apply the rentals changed since the last call, by this node or by the others
+	 */
+	@Scheduled(fixedDelayString = "${rentals.catalogue.feed-interval:PT5S}")
+	public void followFeed() {
+		if (!isBuilt()) {
+			return;
+		}
+		RentalChangesDto page;
+		do {
+			long cursor;
+			synchronized (this) {
+				cursor = feedCursor;
+			}
+			page = rentalChangeService.getChangesSince(cursor, RentalChangeServiceImpl.MAX_LIMIT);
+			synchronized (this) {
+				// A rebuild may have moved the cursor meanwhile, the page is read again from there
+				if (feedCursor == cursor) {
+					for (RentalDto rental : page.getRentals()) {
+						apply(rental.getId(), rental.getPrice(), rental.getSurface(), rental.getOwner_id());
+					}
+					feedCursor = page.getCursor();
+				}
+			}
+		} while (page.isHasMore());
+	}
+
+	/**
+	 * Apply a rental created or updated on this node once it is committed, without waiting for the feed
+	 *
+	 * @param event The change
+	 */
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onRentalChanged(RentalChangedEvent event) {
+		if (!isBuilt()) {
+			return;
+		}
+		rentalRepository.findById(event.rentalId()).ifPresent(rental -> {
+			synchronized (this) {
+				apply(rental.getRentalId(), rental.getPrice(), rental.getSurface(), rental.getOwnerId());
+			}
+		});
+	}
+
+	private synchronized boolean isBuilt() {
+		return built;
+	}
+
+	/**
+	 * Called with the lock held
+	 */
+	private void apply(int rentalId, int price, int surface, int ownerId) {
+		for (View view : views) {
+			view.apply(rentalId, price, surface, ownerId);
+		}
+	}
+}
@@ -0,0 +1,113 @@
+package com.bdr.backend.servicesImpl;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.bdr.backend.models.dtos.RentalChangesDto;
+import com.bdr.backend.models.entities.Rental;
+import com.bdr.backend.models.entities.RentalChange;
+import com.bdr.backend.repositories.RentalChangeRepository;
+import com.bdr.backend.repositories.RentalRepository;
+import com.bdr.backend.services.RentalChangeService;
+import com.bdr.backend.services.RentalService;
+
+@Service
+public class RentalChangeServiceImpl implements RentalChangeService {
+
+	/** Maximum number of changes in a page of the feed */
+	public static final int MAX_LIMIT = 1000;
+
+	/** Number of changes deleted per statement by the compaction */
+	private static final int COMPACTION_BATCH = 1000;
+
+	/**
+	 * The cursor only moves past the changes older than this : a transaction that got a lower seq
+	 * but commits later, up to settle later, is still served. Keep it above the clock skew between the nodes
+	 * and the longest transaction writing a rental.
+	 */
+	@Value("${rentals.changes.settle:PT2S}")
+	private Duration settle;
+
+	@Autowired
+	private RentalChangeRepository rentalChangeRepository;
+
+	@Autowired
+	private RentalRepository rentalRepository;
+
+	@Autowired
+	private RentalService rentalService;
+
+	/**
+	 * Get the rentals changed after the cursor, in the order of the changes.
+	 * A rental changed several times in the page is only sent once, in its current state.
+	 * The page stops at the first change younger than settle, whatever the age of the next ones :
+	 * a change with a lower seq may still be committed before it.
+	 *
+	 * @param cursor The cursor of the previous page, 0 for a full sync
+	 * @param limit Maximum number of changes read, up to MAX_LIMIT
+	 * @return the changed rentals and the cursor of the next page
+	 */
+	@Transactional(readOnly = true)
+	public RentalChangesDto getChangesSince(long cursor, int limit) {
+		int pageSize = Math.max(1, Math.min(limit, MAX_LIMIT));
+		List<RentalChange> changes = rentalChangeRepository.findBySeqGreaterThanOrderBySeq(cursor, Limit.of(pageSize + 1));
+
+		// Only the settled prefix is served, the rest is read again at the next call
+		Instant settledBefore = Instant.now().minus(settle);
+		int settled = 0;
+		while (settled < Math.min(changes.size(), pageSize)
+				&& changes.get(settled).getChangedAt().isBefore(settledBefore)) {
+			settled++;
+		}
+		boolean hasMore = settled == pageSize && changes.size() > pageSize;
+		changes = changes.subList(0, settled);
+
+		// Last change of each rental, in the order of the changes
+		Map<Integer, RentalChange> lastChanges = new LinkedHashMap<>();
+		changes.forEach(change -> {
+			lastChanges.remove(change.getRentalId());
+			lastChanges.put(change.getRentalId(), change);
+		});
+		Map<Integer, Rental> rentals = new LinkedHashMap<>();
+		rentalRepository.findAllById(lastChanges.keySet()).forEach(rental -> rentals.put(rental.getRentalId(), rental));
+
+		RentalChangesDto page = new RentalChangesDto();
+		page.setRentals(lastChanges.keySet().stream().map(rentals::get).filter(Objects::nonNull)
+				.map(rentalService::convertToDto).toList());
+		page.setCursor(changes.isEmpty() ? cursor : changes.get(changes.size() - 1).getSeq());
+		page.setHasMore(hasMore);
+		return page;
+	}
+
+	/**
+	 * Delete the changes followed by a newer change of the same rental.
+	 * A client behind both still gets the rental from the newer one, so no cursor is ever invalidated,
+	 * and the feed stays about as long as the catalogue.
+	 *
+	 * @return the number of deleted changes
+	 */
+	@Scheduled(initialDelayString = "${rentals.changes.compaction:PT10M}", fixedDelayString = "${rentals.changes.compaction:PT10M}")
+	@Transactional
+	public int compact() {
+		int deleted = 0;
+		List<Long> superseded;
+		do {
+			superseded = rentalChangeRepository.findSupersededSeqs(Limit.of(COMPACTION_BATCH));
+			if (!superseded.isEmpty()) {
+				deleted += rentalChangeRepository.deleteBySeqIn(superseded);
+			}
+		} while (superseded.size() == COMPACTION_BATCH);
+		return deleted;
+	}
+}
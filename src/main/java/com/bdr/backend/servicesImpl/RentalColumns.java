@@ -0,0 +1,267 @@
+package com.bdr.backend.servicesImpl;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Column store of the figures of the rentals for the facet counts : one primitive array per column,
+ * a rental per row, and a bitset of the rows of each price and surface bucket.
+ * A filter becomes a bitset of the matching rows, computed 64 rows per word without branches,
+ * and a facet count is the population count of the AND of bitsets : the loops only read
+ * int and long arrays in sequence, which the JIT unrolls and vectorizes.
+ * The counts of a facet ignore its own filter (disjunctive facets) : the UI can show
+ * how many rentals each other bucket would give. Not thread-safe.
+ */
+public class RentalColumns {
+
+	private static final int INITIAL_ROWS = 1024;
+
+	/** Lower bounds of the price buckets after the first one, which starts at 0 */
+	private final int[] priceEdges;
+
+	private final int[] surfaceEdges;
+
+	private int size;
+
+	private int[] prices = new int[INITIAL_ROWS];
+	private int[] surfaces = new int[INITIAL_ROWS];
+	private int[] ownerSlots = new int[INITIAL_ROWS];
+
+	/** Row of each rental id plus one, 0 for the rentals not loaded */
+	private int[] rowOfRental = new int[INITIAL_ROWS];
+
+	/** Rows of each bucket, a bit per row */
+	private final long[][] priceBuckets;
+	private final long[][] surfaceBuckets;
+
+	/** Owners numbered from 0, so that their counts fit in an array */
+	private final Map<Integer, Integer> slotOfOwner = new HashMap<>();
+	private int[] ownerOfSlot = new int[64];
+
+	/**
+	 * Counts of the rentals matching a filter
+	 *
+	 * @param count Rentals matching every filter
+	 * @param prices Rentals of each price bucket, matching the other filters
+	 * @param surfaces Rentals of each surface bucket, matching the other filters
+	 * @param owners Owners with the most rentals matching the other filters, most first
+	 * @param ownerCounts Rentals of each of these owners
+	 */
+	public record FacetCounts(int count, int[] prices, int[] surfaces, int[] owners, int[] ownerCounts) {
+	}
+
+	/**
+	 * @param priceEdges Ascending lower bounds of the price buckets, the first bucket starts at 0
+	 * @param surfaceEdges Ascending lower bounds of the surface buckets, the first bucket starts at 0
+	 */
+	public RentalColumns(int[] priceEdges, int[] surfaceEdges) {
+		this.priceEdges = priceEdges.clone();
+		this.surfaceEdges = surfaceEdges.clone();
+		priceBuckets = new long[priceEdges.length + 1][words(INITIAL_ROWS)];
+		surfaceBuckets = new long[surfaceEdges.length + 1][words(INITIAL_ROWS)];
+	}
+
+	/**
+	 * Store the current figures of a rental, in its row if it is already loaded
+	 *
+	 * @param rentalId Id of the rental
+	 * @param price Its price
+	 * @param surface Its surface
+	 * @param ownerId Its owner
+	 */
+	public void apply(int rentalId, int price, int surface, int ownerId) {
+		int row = rentalId < rowOfRental.length ? rowOfRental[rentalId] - 1 : -1;
+		if (row < 0) {
+			row = size++;
+			ensureRows(size);
+			if (rentalId >= rowOfRental.length) {
+				rowOfRental = Arrays.copyOf(rowOfRental, Math.max(rentalId + 1, rowOfRental.length * 2));
+			}
+			rowOfRental[rentalId] = row + 1;
+		} else {
+			clear(priceBuckets[bucket(priceEdges, prices[row])], row);
+			clear(surfaceBuckets[bucket(surfaceEdges, surfaces[row])], row);
+		}
+		prices[row] = price;
+		surfaces[row] = surface;
+		ownerSlots[row] = slotOf(ownerId);
+		set(priceBuckets[bucket(priceEdges, price)], row);
+		set(surfaceBuckets[bucket(surfaceEdges, surface)], row);
+	}
+
+	/**
+	 * Count the rentals matching the filters, per facet value
+	 *
+	 * @param priceMin Lowest price, null for no limit
+	 * @param priceMax Highest price, null for no limit
+	 * @param surfaceMin Lowest surface, null for no limit
+	 * @param surfaceMax Highest surface, null for no limit
+	 * @param ownerId Only the rentals of this owner, null for all
+	 * @param topOwners Number of owners returned
+	 * @return the counts
+	 */
+	public FacetCounts count(Integer priceMin, Integer priceMax, Integer surfaceMin, Integer surfaceMax, Integer ownerId,
+			int topOwners) {
+		long[] all = allRows();
+		long[] priceMask = priceMin == null && priceMax == null ? all
+				: rangeMask(prices, priceMin == null ? Integer.MIN_VALUE : priceMin, priceMax == null ? Integer.MAX_VALUE : priceMax);
+		long[] surfaceMask = surfaceMin == null && surfaceMax == null ? all
+				: rangeMask(surfaces, surfaceMin == null ? Integer.MIN_VALUE : surfaceMin,
+						surfaceMax == null ? Integer.MAX_VALUE : surfaceMax);
+		long[] ownerMask = ownerId == null ? all : ownerMask(slotOfOwner.getOrDefault(ownerId, -1));
+
+		int[] priceCounts = new int[priceBuckets.length];
+		for (int bucket = 0; bucket < priceBuckets.length; bucket++) {
+			priceCounts[bucket] = countAnd(priceBuckets[bucket], surfaceMask, ownerMask);
+		}
+		int[] surfaceCounts = new int[surfaceBuckets.length];
+		for (int bucket = 0; bucket < surfaceBuckets.length; bucket++) {
+			surfaceCounts[bucket] = countAnd(surfaceBuckets[bucket], priceMask, ownerMask);
+		}
+
+		// Rentals of each owner among the rows matching the price and surface filters
+		int[] counts = new int[slotOfOwner.size()];
+		for (int row = 0; row < size; row++) {
+			counts[ownerSlots[row]] += (int) ((priceMask[row >>> 6] & surfaceMask[row >>> 6]) >>> row & 1);
+		}
+		int[] owners = new int[Math.min(topOwners, counts.length)];
+		int[] ownerCounts = new int[owners.length];
+		int found = 0;
+		for (int slot = 0; slot < counts.length; slot++) {
+			int count = counts[slot];
+			if (count == 0 || (found == owners.length && (found == 0 || count <= ownerCounts[found - 1]))) {
+				continue;
+			}
+			// Insertion in the short sorted list of the top owners, the last one is dropped when it is full
+			int position = found < owners.length ? found++ : owners.length - 1;
+			while (position > 0 && ownerCounts[position - 1] < count) {
+				owners[position] = owners[position - 1];
+				ownerCounts[position] = ownerCounts[position - 1];
+				position--;
+			}
+			owners[position] = ownerOfSlot[slot];
+			ownerCounts[position] = count;
+		}
+
+		return new FacetCounts(countAnd(priceMask, surfaceMask, ownerMask), priceCounts, surfaceCounts,
+				Arrays.copyOf(owners, found), Arrays.copyOf(ownerCounts, found));
+	}
+
+	/**
+	 * @return the number of rentals loaded
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Bit of each row set if the value of the column is in [min, max] :
+	 * the sign of (v - min) | (max - v), computed on longs, is 1 when the value is outside
+	 */
+	private long[] rangeMask(int[] column, int min, int max) {
+		long[] mask = new long[words(size)];
+		for (int word = 0; word < mask.length; word++) {
+			int base = word << 6;
+			int end = Math.min(64, size - base);
+			long bits = 0;
+			for (int bit = 0; bit < end; bit++) {
+				int value = column[base + bit];
+				long outside = (((long) value - min) | ((long) max - value)) >>> 63;
+				bits |= (outside ^ 1) << bit;
+			}
+			mask[word] = bits;
+		}
+		return mask;
+	}
+
+	/**
+	 * Bit of each row set if the row belongs to the owner : (slot ^ s) - 1 is negative only when equal
+	 */
+	private long[] ownerMask(int slot) {
+		long[] mask = new long[words(size)];
+		if (slot < 0) {
+			return mask;
+		}
+		for (int word = 0; word < mask.length; word++) {
+			int base = word << 6;
+			int end = Math.min(64, size - base);
+			long bits = 0;
+			for (int bit = 0; bit < end; bit++) {
+				long equal = ((long) (ownerSlots[base + bit] ^ slot) - 1) >>> 63;
+				bits |= equal << bit;
+			}
+			mask[word] = bits;
+		}
+		return mask;
+	}
+
+	private long[] allRows() {
+		long[] mask = new long[words(size)];
+		Arrays.fill(mask, -1L);
+		if ((size & 63) != 0) {
+			mask[mask.length - 1] = (1L << (size & 63)) - 1;
+		}
+		return mask;
+	}
+
+	private int countAnd(long[] first, long[] second, long[] third) {
+		int count = 0;
+		for (int word = 0; word < words(size); word++) {
+			count += Long.bitCount(first[word] & second[word] & third[word]);
+		}
+		return count;
+	}
+
+	private int slotOf(int ownerId) {
+		Integer slot = slotOfOwner.get(ownerId);
+		if (slot == null) {
+			slot = slotOfOwner.size();
+			slotOfOwner.put(ownerId, slot);
+			if (slot >= ownerOfSlot.length) {
+				ownerOfSlot = Arrays.copyOf(ownerOfSlot, ownerOfSlot.length * 2);
+			}
+			ownerOfSlot[slot] = ownerId;
+		}
+		return slot;
+	}
+
+	private void ensureRows(int rows) {
+		if (rows <= prices.length) {
+			return;
+		}
+		int capacity = Math.max(rows, prices.length * 2);
+		prices = Arrays.copyOf(prices, capacity);
+		surfaces = Arrays.copyOf(surfaces, capacity);
+		ownerSlots = Arrays.copyOf(ownerSlots, capacity);
+		for (int bucket = 0; bucket < priceBuckets.length; bucket++) {
+			priceBuckets[bucket] = Arrays.copyOf(priceBuckets[bucket], words(capacity));
+		}
+		for (int bucket = 0; bucket < surfaceBuckets.length; bucket++) {
+			surfaceBuckets[bucket] = Arrays.copyOf(surfaceBuckets[bucket], words(capacity));
+		}
+	}
+
+	/**
+	 * Index of the bucket of a value : the number of lower bounds it reaches
+	 */
+	private static int bucket(int[] edges, int value) {
+		int bucket = 0;
+		while (bucket < edges.length && value >= edges[bucket]) {
+			bucket++;
+		}
+		return bucket;
+	}
+
+	private static int words(int rows) {
+		return (rows + 63) >>> 6;
+	}
+
+	private static void set(long[] bits, int row) {
+		bits[row >>> 6] |= 1L << row;
+	}
+
+	private static void clear(long[] bits, int row) {
+		bits[row >>> 6] &= ~(1L << row);
+	}
+}
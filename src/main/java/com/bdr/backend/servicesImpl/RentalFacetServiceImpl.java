@@ -0,0 +1,130 @@
+package com.bdr.backend.servicesImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.bdr.backend.models.dtos.FacetBucketDto;
+import com.bdr.backend.models.dtos.OwnerFacetDto;
+import com.bdr.backend.models.dtos.RentalFacetsDto;
+import com.bdr.backend.services.RentalFacetService;
+import com.bdr.backend.servicesImpl.RentalColumns.FacetCounts;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Answers the facet counts of the browse UI from an in-memory RentalColumns, without the database.
+ * Like the statistics, the columns are a view of the RentalCatalogueProjection, which builds them
+ * and applies the changes. The requests share a read lock, the updates take the write lock.
+ */
+@Service
+public class RentalFacetServiceImpl implements RentalFacetService, RentalCatalogueProjection.View {
+
+	@Value("${rentals.facets.price-buckets:100000,200000,300000,500000,1000000}")
+	private int[] priceEdges;
+
+	@Value("${rentals.facets.surface-buckets:30,50,80,120,200}")
+	private int[] surfaceEdges;
+
+	/** Number of owners in the owner facet */
+	@Value("${rentals.facets.top-owners:20}")
+	private int topOwners;
+
+	@Autowired
+	private RentalCatalogueProjection catalogueProjection;
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	/** Null until the first rebuild, guarded by the lock */
+	private RentalColumns columns;
+
+	@PostConstruct
+	public void registerView() {
+		catalogueProjection.register(this);
+	}
+
+	/**
+	 * Count the rentals matching the filters, per price bucket, surface bucket and owner
+	 *
+	 * @param priceMin Lowest price, null for no limit
+	 * @param priceMax Highest price, null for no limit
+	 * @param surfaceMin Lowest surface, null for no limit
+	 * @param surfaceMax Highest surface, null for no limit
+	 * @param ownerId Only the rentals of this owner, null for all
+	 * @return the counts of each facet
+	 */
+	public RentalFacetsDto getFacets(Integer priceMin, Integer priceMax, Integer surfaceMin, Integer surfaceMax,
+			Integer ownerId) {
+		catalogueProjection.build();
+		FacetCounts counts;
+		lock.readLock().lock();
+		try {
+			counts = columns.count(priceMin, priceMax, surfaceMin, surfaceMax, ownerId, topOwners);
+		} finally {
+			lock.readLock().unlock();
+		}
+
+		RentalFacetsDto facets = new RentalFacetsDto();
+		facets.setCount(counts.count());
+		facets.setPrice(buckets(priceEdges, counts.prices()));
+		facets.setSurface(buckets(surfaceEdges, counts.surfaces()));
+		List<OwnerFacetDto> owners = new ArrayList<>(counts.owners().length);
+		for (int i = 0; i < counts.owners().length; i++) {
+			OwnerFacetDto owner = new OwnerFacetDto();
+			owner.setOwner_id(counts.owners()[i]);
+			owner.setCount(counts.ownerCounts()[i]);
+			owners.add(owner);
+		}
+		facets.setOwners(owners);
+		return facets;
+	}
+
+	@Override
+	public RentalCatalogueProjection.Rebuild startRebuild() {
+		RentalColumns rebuilt = new RentalColumns(priceEdges, surfaceEdges);
+		return new RentalCatalogueProjection.Rebuild() {
+
+			@Override
+			public void apply(int rentalId, int price, int surface, int ownerId) {
+				rebuilt.apply(rentalId, price, surface, ownerId);
+			}
+
+			@Override
+			public void install() {
+				lock.writeLock().lock();
+				try {
+					columns = rebuilt;
+				} finally {
+					lock.writeLock().unlock();
+				}
+			}
+		};
+	}
+
+	@Override
+	public void apply(int rentalId, int price, int surface, int ownerId) {
+		lock.writeLock().lock();
+		try {
+			columns.apply(rentalId, price, surface, ownerId);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private static List<FacetBucketDto> buckets(int[] edges, int[] counts) {
+		List<FacetBucketDto> buckets = new ArrayList<>(counts.length);
+		for (int i = 0; i < counts.length; i++) {
+			FacetBucketDto bucket = new FacetBucketDto();
+			bucket.setFrom(i == 0 ? 0 : edges[i - 1]);
+			bucket.setTo(i < edges.length ? edges[i] : null);
+			bucket.setCount(counts[i]);
+			buckets.add(bucket);
+		}
+		return buckets;
+	}
+}
@@ -1,25 +1,37 @@
 package com.bdr.backend.servicesImpl;
 
-import java.util.Date;
+import java.time.Instant;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.function.Consumer;
 
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import com.bdr.backend.models.dtos.OwnerDto;
 import com.bdr.backend.models.dtos.RentalDto;
 import com.bdr.backend.models.entities.Rental;
+import com.bdr.backend.models.entities.RentalChange;
+import com.bdr.backend.models.entities.User;
+import com.bdr.backend.models.events.RentalChangedEvent;
+import com.bdr.backend.repositories.RentalChangeRepository;
 import com.bdr.backend.repositories.RentalRepository;
 import com.bdr.backend.services.RentalService;
 import com.bdr.backend.utils.DateUtils;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+
 @Service
 public class RentalServiceImpl implements RentalService {
 	
@@ -33,14 +45,46 @@ public class RentalServiceImpl implements RentalService {
 	
 	@Autowired
 	private RentalRepository rentalRepository;
+
+	@Autowired
+	private RentalChangeRepository rentalChangeRepository;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+
+	/** Time to convert the rentals list, without and with the owners, registered once */
+	private Timer rentalsConversionTimer;
+
+	private Timer rentalsWithOwnerConversionTimer;
+
+	@PostConstruct
+	public void registerMetrics() {
+		rentalsConversionTimer = conversionTimer("rentals");
+		rentalsWithOwnerConversionTimer = conversionTimer("rentals_with_owner");
+	}
+
+	private Timer conversionTimer(String type) {
+		return Timer.builder("dto.conversion")
+				.description("Time to convert a list of entities to DTOs")
+				.tag("type", type)
+				.register(meterRegistry);
+	}
 	
 	/**
-	 * Get all rentals
+	 * Get all rentals, the conversion of the list is recorded in the dto.conversion timer
+	 * @param withOwner true to load the owners in the same query and embed them in the DTOs
 	 * @return a map containing a list of rental DTO objects
 	 */
-	public Map<String, List<RentalDto>> getAllRentals() {
-		List<Rental> rentals = rentalRepository.findAll();
-	    List<RentalDto> rentalDtos = convertListToDto(rentals);
+	@Transactional(readOnly = true)
+	public Map<String, List<RentalDto>> getAllRentals(boolean withOwner) {
+		List<Rental> rentals = withOwner ? rentalRepository.findAllWithOwner() : rentalRepository.findAll();
+		Timer conversionTimer = withOwner ? rentalsWithOwnerConversionTimer : rentalsConversionTimer;
+		List<RentalDto> rentalDtos = conversionTimer.record(() -> withOwner
+				? rentals.stream().map(this::convertToDtoWithOwner).toList()
+				: convertListToDto(rentals));
 	    Map<String, List<RentalDto>> response = new HashMap<>();
 	    response.put("rentals", rentalDtos);
 	    return response;
@@ -52,12 +96,13 @@ public class RentalServiceImpl implements RentalService {
 	 * @param id The rental id
 	 * @return an optional rental object
 	 */
+	@Transactional(readOnly = true)
 	public Optional<Rental> getRentalById(int id) {
 		return rentalRepository.findById(id);
 	}
 	
 	/**
-	 * Create a new rental
+	 * Create a new rental and its change in the feed, then publish a RentalChangedEvent
 	 * 
 	 * @param name Name of the rental
 	 * @param surface Surface of the house
@@ -67,6 +112,7 @@ public class RentalServiceImpl implements RentalService {
 	 * @param ownerId Owner Id of the house
 	 * @return an optional rental object
 	 */
+	@Transactional
 	public Rental createRental(String name, Integer surface, Integer price, String picture, String description, Integer ownerId) {
 		Rental newRental = new Rental();
 		newRental.setName(name);
@@ -75,15 +121,17 @@ public class RentalServiceImpl implements RentalService {
 		newRental.setPicture(picture);
 		newRental.setDescription(description);
 		newRental.setOwnerId(ownerId);
-		newRental.setCreatedAt(DateUtils.formatToMySQLDateTime(new Date()));
+		newRental.setCreatedAt(Instant.now());
 		
 		rentalRepository.save(newRental);
+		recordChange(newRental);
+		eventPublisher.publishEvent(new RentalChangedEvent(newRental.getRentalId()));
 		
 		return newRental;
 	}
 	
 	/**
-	 * Update a rental
+	 * Update a rental and add its change to the feed, then publish a RentalChangedEvent
 	 * 
 	 * @param rentalId Id of the rental in db
 	 * @param name Name of the rental
@@ -94,6 +142,7 @@ public class RentalServiceImpl implements RentalService {
 	 * @param ownerId Owner Id the db
 	 * @return an optional rental object
 	 */
+	@Transactional
 	public Rental updateRental(int rentalId, String name, Integer surface, Integer price, String filePath, String description, Integer ownerId) {
 	    Rental rental = getRentalById(rentalId)
 	            .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Rental not found"));
@@ -105,9 +154,22 @@ public class RentalServiceImpl implements RentalService {
 	    updateIfNotNull(description, rental::setDescription);
 	    updateIfNotNull(ownerId, rental::setOwnerId);
 
-	    rental.setUpdatedAt(DateUtils.formatToMySQLDateTime(new Date()));
+	    rental.setUpdatedAt(Instant.now());
 	    
-	    return rentalRepository.save(rental);
+	    Rental saved = rentalRepository.save(rental);
+	    recordChange(saved);
+	    eventPublisher.publishEvent(new RentalChangedEvent(rentalId));
+	    return saved;
+	}
+
+	/**
+	 * Add the change to the outbox of the feed, in the transaction of the rental
+	 */
+	private void recordChange(Rental rental) {
+		RentalChange change = new RentalChange();
+		change.setRentalId(rental.getRentalId());
+		change.setChangedAt(Instant.now());
+		rentalChangeRepository.save(change);
 	}
 
 	/**
@@ -135,10 +197,30 @@ public class RentalServiceImpl implements RentalService {
 	    rentalDto.setPicture(rental.getPicture());
 	    rentalDto.setDescription(rental.getDescription());
 	    rentalDto.setOwner_id(rental.getOwnerId());
-	    rentalDto.setCreatedAt(rental.getCreatedAt());
-	    rentalDto.setUpdatedAt(rental.getUpdatedAt());
+	    rentalDto.setCreatedAt(DateUtils.formatToMySQLDateTime(rental.getCreatedAt()));
+	    rentalDto.setUpdatedAt(DateUtils.formatToMySQLDateTime(rental.getUpdatedAt()));
 	    return rentalDto;
 	}
+
+	/**
+	 * Convert a rental object to a rental DTO object embedding its owner
+	 * 
+	 * @param rental The rental object, with its owner fetched by the same query
+	 * @return a rental DTO object
+	 */
+	private RentalDto convertToDtoWithOwner(Rental rental) {
+		RentalDto rentalDto = convertToDto(rental);
+
+		// Only embed an owner that was fetched with the rental, never trigger a lookup per row
+		User owner = rental.getOwner();
+		if (owner != null && Hibernate.isInitialized(owner)) {
+			OwnerDto ownerDto = new OwnerDto();
+			ownerDto.setUserId(owner.getUserId());
+			ownerDto.setName(owner.getName());
+			rentalDto.setOwner(ownerDto);
+		}
+		return rentalDto;
+	}
 	
 	/**
 	 * Convert a list of rental objects to a list of rental DTO objects
@@ -0,0 +1,148 @@
+package com.bdr.backend.servicesImpl;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.bdr.backend.models.dtos.DistributionDto;
+import com.bdr.backend.models.dtos.RentalStatsDto;
+import com.bdr.backend.utils.QuantileSketch;
+
+/**
+ * Aggregates of the catalogue, updated one rental at a time.
+ * The last figures of each rental are kept (12 bytes per rental, indexed by id)
+ * so that an update removes the old values from the sketches before adding the new ones,
+ * and applying the same state twice changes nothing. Not thread-safe.
+ */
+class RentalStatistics {
+
+	private final QuantileSketch prices;
+	private final QuantileSketch surfaces;
+	private final QuantileSketch pricesPerSquareMeter;
+	private final QuantileSketch listingsPerOwner;
+
+	private long count;
+	private long priceSum;
+	private long surfaceSum;
+	private double pricePerSquareMeterSum;
+
+	/** Number of rentals of each owner */
+	private final Map<Integer, Integer> ownerListings = new HashMap<>();
+
+	/** Figures of each rental already counted, by rental id */
+	private final BitSet counted = new BitSet();
+	private int[] rentalPrices = new int[1024];
+	private int[] rentalSurfaces = new int[1024];
+	private int[] rentalOwners = new int[1024];
+
+	/**
+	 * @param relativeAccuracy Relative error of the percentiles
+	 */
+	RentalStatistics(double relativeAccuracy) {
+		prices = new QuantileSketch(relativeAccuracy);
+		surfaces = new QuantileSketch(relativeAccuracy);
+		pricesPerSquareMeter = new QuantileSketch(relativeAccuracy);
+		listingsPerOwner = new QuantileSketch(relativeAccuracy);
+	}
+
+	/**
+	 * Count the current figures of a rental, in place of the previous ones
+	 *
+	 * @param rentalId Id of the rental
+	 * @param price Its price
+	 * @param surface Its surface
+	 * @param ownerId Its owner
+	 */
+	void apply(int rentalId, int price, int surface, int ownerId) {
+		if (counted.get(rentalId)) {
+			if (rentalPrices[rentalId] == price && rentalSurfaces[rentalId] == surface && rentalOwners[rentalId] == ownerId) {
+				return;
+			}
+			remove(rentalPrices[rentalId], rentalSurfaces[rentalId], rentalOwners[rentalId]);
+		} else if (rentalId >= rentalPrices.length) {
+			int length = Math.max(rentalId + 1, rentalPrices.length * 2);
+			rentalPrices = Arrays.copyOf(rentalPrices, length);
+			rentalSurfaces = Arrays.copyOf(rentalSurfaces, length);
+			rentalOwners = Arrays.copyOf(rentalOwners, length);
+		}
+		add(price, surface, ownerId);
+		counted.set(rentalId);
+		rentalPrices[rentalId] = price;
+		rentalSurfaces[rentalId] = surface;
+		rentalOwners[rentalId] = ownerId;
+	}
+
+	private void add(int price, int surface, int ownerId) {
+		count++;
+		priceSum += price;
+		surfaceSum += surface;
+		prices.add(price);
+		surfaces.add(surface);
+		if (surface > 0) {
+			pricePerSquareMeterSum += (double) price / surface;
+			pricesPerSquareMeter.add((double) price / surface);
+		}
+		int listings = ownerListings.merge(ownerId, 1, Integer::sum);
+		if (listings > 1) {
+			listingsPerOwner.remove(listings - 1);
+		}
+		listingsPerOwner.add(listings);
+	}
+
+	private void remove(int price, int surface, int ownerId) {
+		count--;
+		priceSum -= price;
+		surfaceSum -= surface;
+		prices.remove(price);
+		surfaces.remove(surface);
+		if (surface > 0) {
+			pricePerSquareMeterSum -= (double) price / surface;
+			pricesPerSquareMeter.remove((double) price / surface);
+		}
+		int listings = ownerListings.getOrDefault(ownerId, 0);
+		if (listings > 0) {
+			listingsPerOwner.remove(listings);
+			if (listings > 1) {
+				ownerListings.put(ownerId, listings - 1);
+				listingsPerOwner.add(listings - 1);
+			} else {
+				ownerListings.remove(ownerId);
+			}
+		}
+	}
+
+	/**
+	 * Read the aggregates, in time proportional to the number of buckets of the sketches
+	 *
+	 * @return the statistics of the rentals counted so far
+	 */
+	RentalStatsDto toDto() {
+		RentalStatsDto stats = new RentalStatsDto();
+		stats.setCount(count);
+		stats.setPrice(distribution(prices, priceSum));
+		stats.setSurface(distribution(surfaces, surfaceSum));
+		stats.setPricePerSquareMeter(distribution(pricesPerSquareMeter, pricePerSquareMeterSum));
+		stats.setOwners(ownerListings.size());
+		stats.setListingsPerOwner(distribution(listingsPerOwner, count));
+		return stats;
+	}
+
+	private static DistributionDto distribution(QuantileSketch sketch, double sum) {
+		DistributionDto distribution = new DistributionDto();
+		if (sketch.getCount() == 0) {
+			return distribution;
+		}
+		distribution.setMean(round(sum / sketch.getCount()));
+		distribution.setMin(round(sketch.quantile(0)));
+		distribution.setP50(round(sketch.quantile(0.5)));
+		distribution.setP90(round(sketch.quantile(0.9)));
+		distribution.setP99(round(sketch.quantile(0.99)));
+		distribution.setMax(round(sketch.quantile(1)));
+		return distribution;
+	}
+
+	private static double round(double value) {
+		return Math.round(value * 100) / 100.0;
+	}
+}
@@ -0,0 +1,81 @@
+package com.bdr.backend.servicesImpl;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.bdr.backend.models.dtos.RentalStatsDto;
+import com.bdr.backend.services.RentalStatsService;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Keeps the statistics of the catalogue up to date instead of scanning the rentals on each request.
+ * The aggregates are a view of the RentalCatalogueProjection, which builds them and applies the changes.
+ */
+@Service
+public class RentalStatsServiceImpl implements RentalStatsService, RentalCatalogueProjection.View {
+
+	/** Relative error of the percentiles */
+	@Value("${rentals.stats.relative-accuracy:0.01}")
+	private double relativeAccuracy;
+
+	@Autowired
+	private RentalCatalogueProjection catalogueProjection;
+
+	/** Null until the first rebuild, guarded by this */
+	private RentalStatistics statistics;
+
+	/** Statistics served to the requests, reset by each change */
+	private volatile RentalStatsDto stats;
+
+	@PostConstruct
+	public void registerView() {
+		catalogueProjection.register(this);
+	}
+
+	/**
+	 * Get the statistics of the catalogue, read again from the aggregates only after a change
+	 *
+	 * @return the statistics, shared by all the callers : they must not be modified
+	 */
+	public RentalStatsDto getStats() {
+		RentalStatsDto current = stats;
+		if (current != null) {
+			return current;
+		}
+		catalogueProjection.build();
+		synchronized (this) {
+			if (stats == null) {
+				stats = statistics.toDto();
+			}
+			return stats;
+		}
+	}
+
+	@Override
+	public RentalCatalogueProjection.Rebuild startRebuild() {
+		RentalStatistics rebuilt = new RentalStatistics(relativeAccuracy);
+		return new RentalCatalogueProjection.Rebuild() {
+
+			@Override
+			public void apply(int rentalId, int price, int surface, int ownerId) {
+				rebuilt.apply(rentalId, price, surface, ownerId);
+			}
+
+			@Override
+			public void install() {
+				synchronized (RentalStatsServiceImpl.this) {
+					statistics = rebuilt;
+					stats = null;
+				}
+			}
+		};
+	}
+
+	@Override
+	public synchronized void apply(int rentalId, int price, int surface, int ownerId) {
+		statistics.apply(rentalId, price, surface, ownerId);
+		stats = null;
+	}
+}
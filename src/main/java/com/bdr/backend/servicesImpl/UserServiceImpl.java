@@ -1,26 +1,96 @@
 package com.bdr.backend.servicesImpl;
 
-import java.util.Date;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.bdr.backend.cache.CacheInvalidationBus;
+import com.bdr.backend.configuration.ReplicaRoutingDataSource;
 import com.bdr.backend.models.dtos.UserDto;
 import com.bdr.backend.models.entities.User;
 import com.bdr.backend.repositories.UserRepository;
 import com.bdr.backend.services.UserService;
 import com.bdr.backend.utils.DateUtils;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
 
 @Service
 public class UserServiceImpl implements UserService {
 
+	/** Name of the user caches on the CacheInvalidationBus, the keys are the user ids */
+	static final String USERS_CACHE = "users";
+
 	@Autowired
 	private UserRepository userRepository;
 
 	@Autowired
-	private ModelMapper modelMapper;
+	private MeterRegistry meterRegistry;
+
+	@Autowired
+	private CacheInvalidationBus cacheInvalidationBus;
+
+	/** How long a user stays in the caches, if an invalidation of another node was lost */
+	@Value("${users.cache.ttl:PT10M}")
+	private Duration cacheTtl;
+
+	@Value("${users.cache.max-size:10000}")
+	private long cacheMaxSize;
+
+	/**
+	 * Users without their password, the cached instances are shared and must not be modified.
+	 * They are loaded from the primary : a user evicted after a change, here or on another node,
+	 * is never cached again from a replica that has not received the change yet.
+	 */
+	private Cache<Integer, UserDto> usersById;
+
+	private Cache<String, UserDto> usersByEmail;
+
+	/** Email under which each user is in usersByEmail, so that a user is evicted by its id without a scan */
+	private final Map<Integer, String> cachedEmails = new ConcurrentHashMap<>();
+
+	/**
+	 * Number of evictions, incremented before the entries are removed : a load that overlaps an eviction
+	 * may have read the previous state and put it back after the removal, so it is removed again by the loader
+	 */
+	private final AtomicLong evictions = new AtomicLong();
+
+	@PostConstruct
+	public void initCaches() {
+		usersById = Caffeine.newBuilder().expireAfterWrite(cacheTtl).maximumSize(cacheMaxSize).recordStats().build();
+		usersByEmail = Caffeine.newBuilder().expireAfterWrite(cacheTtl).maximumSize(cacheMaxSize).recordStats()
+				.<String, UserDto>evictionListener((email, user, cause) -> {
+					if (user != null) {
+						cachedEmails.remove(user.getUserId(), email);
+					}
+				}).build();
+		CaffeineCacheMetrics.monitor(meterRegistry, usersById, "users.by_id");
+		CaffeineCacheMetrics.monitor(meterRegistry, usersByEmail, "users.by_email");
+		cacheInvalidationBus.register(USERS_CACHE, userId -> {
+			if (userId == null) {
+				evictions.incrementAndGet();
+				usersById.invalidateAll();
+				usersByEmail.invalidateAll();
+				cachedEmails.clear();
+			} else {
+				evictLocally(Integer.parseInt(userId));
+			}
+		});
+	}
 
 	/**
 	 * Get user from user id
@@ -28,18 +98,78 @@ public class UserServiceImpl implements UserService {
 	 * @param userId Id of the user
 	 * @return Optional<User>
 	 */
+	@Transactional(readOnly = true)
 	public Optional<User> getUserFromUserId(int userId) {
 		return userRepository.findById(userId);
 	}
 
 	/**
-	 * Save user
+	 * Get the info of a user from its id, from the cache when possible
+	 * 
+	 * @param userId Id of the user
+	 * @return Optional<UserDto>, unknown users are not cached
+	 */
+	public Optional<UserDto> getUserDtoFromUserId(int userId) {
+		long evicted = evictions.get();
+		UserDto user = usersById.get(userId,
+				id -> ReplicaRoutingDataSource.onPrimary(() -> userRepository.findById(id)).map(this::convertToDto).orElse(null));
+		if (user != null && evictions.get() != evicted) {
+			usersById.invalidate(userId);
+		}
+		return Optional.ofNullable(user);
+	}
+
+	/**
+	 * Get the info of a user from its email, from the cache when possible
+	 * 
+	 * @param email Email of the user
+	 * @return Optional<UserDto>, unknown users are not cached
+	 */
+	public Optional<UserDto> getUserDtoByEmail(String email) {
+		long evicted = evictions.get();
+		UserDto user = usersByEmail.get(email,
+				key -> ReplicaRoutingDataSource.onPrimary(() -> userRepository.findByEmail(key)).map(found -> {
+					cachedEmails.put(found.getUserId(), key);
+					return convertToDto(found);
+				}).orElse(null));
+		if (user != null && evictions.get() != evicted) {
+			usersByEmail.invalidate(email);
+			cachedEmails.remove(user.getUserId(), email);
+		}
+		return Optional.ofNullable(user);
+	}
+
+	/**
+	 * Get several users at once, the ones missing from the cache with a single query
+	 * 
+	 * @param userIds Ids of the users, already deduplicated
+	 * @return Map of the users found, keyed by their id
+	 */
+	public Map<Integer, UserDto> getUsersFromUserIds(Collection<Integer> userIds) {
+		Map<Integer, UserDto> users = new LinkedHashMap<>();
+		long evicted = evictions.get();
+		usersById.getAll(userIds, missingIds -> {
+			Map<Integer, UserDto> loaded = new LinkedHashMap<>();
+			ReplicaRoutingDataSource.onPrimary(() -> userRepository.findAllById(List.copyOf(missingIds)))
+					.forEach(user -> loaded.put(user.getUserId(), convertToDto(user)));
+			return loaded;
+		}).forEach(users::put);
+		if (evictions.get() != evicted) {
+			usersById.invalidateAll(users.keySet());
+		}
+		return users;
+	}
+
+	/**
+	 * Save user, and remove it from the caches
 	 * 
 	 * @param user User to save
 	 * @return User
 	 */
 	public User saveUser(User user) {
-		return userRepository.save(user);
+		User saved = userRepository.save(user);
+		evict(saved.getUserId());
+		return saved;
 	}
 
 	/**
@@ -66,20 +196,46 @@ public class UserServiceImpl implements UserService {
 		newUser.setPassword(password);
 		newUser.setName(name);
 
-		String formattedDate = DateUtils.formatToMySQLDateTime(new Date());
-		newUser.setCreatedAt(formattedDate);
+		newUser.setCreatedAt(Instant.now());
+
+		return saveUser(newUser);
+	}
+
+	/**
+	 * Remove a user from the caches of this node, and of the other nodes through the bus
+	 */
+	private void evict(int userId) {
+		evictLocally(userId);
+		cacheInvalidationBus.publish(USERS_CACHE, String.valueOf(userId));
+	}
 
-		return userRepository.save(newUser);
+	/**
+	 * Remove a user from the caches of this node.
+	 * The email entry is found with the id : after a change of email, it is the entry of the previous one.
+	 */
+	private void evictLocally(int userId) {
+		evictions.incrementAndGet();
+		usersById.invalidate(userId);
+		String email = cachedEmails.remove(userId);
+		if (email != null) {
+			usersByEmail.invalidate(email);
+		}
 	}
 
 	/**
-	 * Convert UserDto to User
+	 * Convert User to UserDto, the password is left out
 	 * 
 	 * @param user user to convert
 	 * @return UserDto
 	 */
 	public UserDto convertToDto(User user) {
-		return modelMapper.map(user, UserDto.class);
+		UserDto userDto = new UserDto();
+		userDto.setUserId(user.getUserId());
+		userDto.setEmail(user.getEmail());
+		userDto.setName(user.getName());
+		userDto.setCreatedAt(DateUtils.formatToMySQLDateTime(user.getCreatedAt()));
+		userDto.setUpdatedAt(DateUtils.formatToMySQLDateTime(user.getUpdatedAt()));
+		return userDto;
 	}
 
 }
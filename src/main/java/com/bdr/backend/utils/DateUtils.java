@@ -1,18 +1,42 @@
 package com.bdr.backend.utils;
 
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class DateUtils {
-	private static final SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+	private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")
+			.withZone(ZoneId.systemDefault());
+
+	/** Last formatted second, many dates of a response or of a burst of writes share it */
+	private static final AtomicReference<FormattedSecond> lastFormatted = new AtomicReference<>(
+			new FormattedSecond(Long.MIN_VALUE, null));
 
 	/**
-	 * This method is used to format the date to a MySQL compatible format
-	 * 
-	 * @param date date to format
-	 * @return String - formatted date
+	 * This method is used to format the date to a MySQL compatible format.
+	 * It is thread-safe and only formats again when the second changes.
+	 *
+	 * @param instant date to format, may be null
+	 * @return String - formatted date, or null
 	 */
-	public static String formatToMySQLDateTime(Date date) {
-		return sdf.format(date);
+	public static String formatToMySQLDateTime(Instant instant) {
+		if (instant == null) {
+			return null;
+		}
+
+		long epochSecond = instant.getEpochSecond();
+		FormattedSecond cached = lastFormatted.get();
+		if (cached.epochSecond() == epochSecond) {
+			return cached.value();
+		}
+
+		// Concurrent threads may both format the same second, the result is identical
+		String value = FORMATTER.format(instant);
+		lastFormatted.set(new FormattedSecond(epochSecond, value));
+		return value;
+	}
+
+	private record FormattedSecond(long epochSecond, String value) {
 	}
 }
@@ -7,11 +7,25 @@ import java.nio.file.Paths;
 
 import org.springframework.web.multipart.MultipartFile;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
 public class PictureUtils {
 
 	/** The directory to store the uploaded files */
 	private static final String UPLOAD_DIR = System.getProperty("user.dir") + "/src/main/resources/static/uploads/";
 
+	/** Spring Boot adds its registry to the global one, so the static utils can record metrics */
+	private static final Timer UPLOAD_TIMER = Timer.builder("upload")
+			.description("Time to store an uploaded picture")
+			.register(Metrics.globalRegistry);
+
+	private static final DistributionSummary UPLOAD_SIZE = DistributionSummary.builder("upload.size")
+			.description("Size of the uploaded pictures")
+			.baseUnit("bytes")
+			.register(Metrics.globalRegistry);
+
 	/**
 	 * This method is used to upload a file to the uploads directory
 	 * 
@@ -20,6 +34,7 @@ public class PictureUtils {
 	 */
 	public static String uploadFile(MultipartFile file) {
 		if (file != null && !file.isEmpty()) {
+			Timer.Sample sample = Timer.start();
 			try {
 				File uploadDirFile = new File(UPLOAD_DIR);
 				if (!uploadDirFile.exists()) {
@@ -31,12 +46,15 @@ public class PictureUtils {
 
 				// save the file to the uploads directory
 				file.transferTo(convFile);
+				UPLOAD_SIZE.record(file.getSize());
 
 				// return uploads + the file name to store it in the database
 				return "/uploads/" + file.getOriginalFilename();
 
 			} catch (IOException e) {
 				throw new RuntimeException("Failed to store file " + e.getMessage());
+			} finally {
+				sample.stop(UPLOAD_TIMER);
 			}
 		}
 		return null;
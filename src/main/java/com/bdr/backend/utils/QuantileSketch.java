@@ -0,0 +1,128 @@
+package com.bdr.backend.utils;
+
+import java.util.Arrays;
+
+/**
+ * Approximate quantiles of positive values, with a relative error bound (DDSketch).
+ * Each value is counted in a logarithmic bucket : adding or removing a value is one increment,
+ * and two sketches of the same accuracy merge by adding their buckets,
+ * so partial sketches built on several nodes or pages combine into the sketch of the whole.
+ * The size only depends on the range of the values : about 1000 buckets from 1 to 10^9 at 1 %.
+ * Not thread-safe.
+ */
+public class QuantileSketch {
+
+	private final double relativeAccuracy;
+
+	private final double logGamma;
+
+	/** Count of each bucket, the bucket i holds the values in (gamma^(i-1), gamma^i] */
+	private long[] counts = new long[0];
+
+	/** Values below 1, counted apart so that the buckets start at 0 */
+	private long belowOne;
+
+	private long count;
+
+	/**
+	 * @param relativeAccuracy Maximum relative error of the quantiles, like 0.01 for 1 %
+	 */
+	public QuantileSketch(double relativeAccuracy) {
+		if (relativeAccuracy <= 0 || relativeAccuracy >= 1) {
+			throw new IllegalArgumentException("The relative accuracy must be between 0 and 1");
+		}
+		this.relativeAccuracy = relativeAccuracy;
+		this.logGamma = Math.log((1 + relativeAccuracy) / (1 - relativeAccuracy));
+	}
+
+	/**
+	 * Count a value
+	 *
+	 * @param value The value, the ones below 1 are all counted as 0
+	 */
+	public void add(double value) {
+		update(value, 1);
+	}
+
+	/**
+	 * Remove a value added before, for example the old price of an updated rental
+	 *
+	 * @param value The value, as it was added. Nothing is removed if no such value was added
+	 */
+	public void remove(double value) {
+		update(value, -1);
+	}
+
+	/**
+	 * Add the values of another sketch to this one
+	 *
+	 * @param other A sketch of the same accuracy
+	 */
+	public void merge(QuantileSketch other) {
+		if (other.relativeAccuracy != relativeAccuracy) {
+			throw new IllegalArgumentException("Only sketches of the same accuracy can be merged");
+		}
+		if (other.counts.length > counts.length) {
+			counts = Arrays.copyOf(counts, other.counts.length);
+		}
+		for (int i = 0; i < other.counts.length; i++) {
+			counts[i] += other.counts[i];
+		}
+		belowOne += other.belowOne;
+		count += other.count;
+	}
+
+	/**
+	 * Value at the given rank, within the relative accuracy
+	 *
+	 * @param quantile Between 0 (the minimum) and 1 (the maximum)
+	 * @return the value, NaN if the sketch is empty
+	 */
+	public double quantile(double quantile) {
+		if (count == 0) {
+			return Double.NaN;
+		}
+		long rank = (long) Math.floor(quantile * (count - 1));
+		long seen = belowOne;
+		if (rank < seen) {
+			return 0;
+		}
+		for (int i = 0; i < counts.length; i++) {
+			seen += counts[i];
+			if (rank < seen) {
+				// Middle of the bucket in relative terms, so that the error is the same on both sides
+				return 2 * Math.exp(i * logGamma) / (1 + Math.exp(logGamma));
+			}
+		}
+		return 2 * Math.exp((counts.length - 1) * logGamma) / (1 + Math.exp(logGamma));
+	}
+
+	/**
+	 * @return the number of values in the sketch
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	private void update(double value, int delta) {
+		if (value < 1) {
+			if (belowOne + delta < 0) {
+				return;
+			}
+			belowOne += delta;
+		} else {
+			int index = (int) Math.ceil(Math.log(value) / logGamma);
+			if (index >= counts.length) {
+				if (delta < 0) {
+					return;
+				}
+				counts = Arrays.copyOf(counts, Math.max(index + 1, counts.length + counts.length / 2));
+			}
+			if (counts[index] + delta < 0) {
+				return;
+			}
+			counts[index] += delta;
+		}
+		count += delta;
+	}
+}
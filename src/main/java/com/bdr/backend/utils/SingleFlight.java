@@ -0,0 +1,77 @@
+package com.bdr.backend.utils;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Coalesce the concurrent calls for the same key : the first caller runs the loader,
+ * the others wait for its result instead of running it again.
+ * Nothing is kept once the call is over, the next call runs the loader again.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the results, shared by all the callers : they must not modify it
+ */
+public class SingleFlight<K, V> {
+
+	private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+	/**
+	 * Run the loader, or wait for the call already running for this key
+	 *
+	 * @param key The key of the call
+	 * @param timeout How long to wait for a call run by another thread
+	 * @param loader The call to run
+	 * @return the result of the loader, the same instance for all the coalesced callers
+	 * @throws TimeoutException if the other call did not finish in time
+	 */
+	public V execute(K key, Duration timeout, Supplier<V> loader) throws TimeoutException {
+		CompletableFuture<V> call = new CompletableFuture<>();
+		CompletableFuture<V> running = inFlight.putIfAbsent(key, call);
+		if (running != null) {
+			return await(running, timeout);
+		}
+
+		try {
+			V value = loader.get();
+			call.complete(value);
+			return value;
+		} catch (RuntimeException | Error e) {
+			// The waiting callers get the same failure
+			call.completeExceptionally(e);
+			throw e;
+		} finally {
+			inFlight.remove(key, call);
+		}
+	}
+
+	/**
+	 * Get the number of calls currently running
+	 *
+	 * @return the number of keys being loaded
+	 */
+	public int inFlightCount() {
+		return inFlight.size();
+	}
+
+	private V await(CompletableFuture<V> running, Duration timeout) throws TimeoutException {
+		try {
+			return running.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for the running call", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException runtimeException) {
+				throw runtimeException;
+			}
+			if (e.getCause() instanceof Error error) {
+				throw error;
+			}
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+}
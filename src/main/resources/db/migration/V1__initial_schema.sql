@@ -0,0 +1,41 @@
+-- Schema of the first version of the API, with the indexes used by the repository queries.
+-- Databases created before the migrations are baselined at this version.
+
+CREATE TABLE users (
+	id int NOT NULL AUTO_INCREMENT,
+	email varchar(255) DEFAULT NULL,
+	name varchar(255) DEFAULT NULL,
+	password varchar(255) DEFAULT NULL,
+	created_at datetime NULL DEFAULT NULL,
+	updated_at datetime NULL DEFAULT NULL,
+	PRIMARY KEY (id),
+	UNIQUE KEY USERS_index (email) );
+
+CREATE TABLE rentals (
+	id int NOT NULL AUTO_INCREMENT,
+	name varchar(255) DEFAULT NULL,
+	surface decimal(10,0) DEFAULT NULL,
+	price decimal(10,0) DEFAULT NULL,
+	picture varchar(255) DEFAULT NULL,
+	description varchar(2000) DEFAULT NULL,
+	owner_id int NOT NULL,
+	created_at datetime NULL DEFAULT NULL,
+	updated_at datetime NULL DEFAULT NULL,
+	PRIMARY KEY (id),
+	KEY idx_owner_id (owner_id),
+	KEY idx_rentals_created_at (created_at),
+	KEY idx_rentals_updated_at (updated_at),
+	CONSTRAINT fk_owner_id FOREIGN KEY (owner_id) REFERENCES users (id) );
+
+CREATE TABLE messages (
+	id int NOT NULL AUTO_INCREMENT,
+	rental_id int DEFAULT NULL,
+	user_id int DEFAULT NULL,
+	message varchar(2000) DEFAULT NULL,
+	created_at datetime NULL DEFAULT NULL,
+	updated_at datetime NULL DEFAULT NULL,
+	PRIMARY KEY (id),
+	KEY idx_user_id (user_id),
+	KEY idx_messages_rental_created (rental_id, created_at),
+	CONSTRAINT fk_rental_id FOREIGN KEY (rental_id) REFERENCES rentals (id),
+	CONSTRAINT fk_user_id FOREIGN KEY (user_id) REFERENCES users (id) );
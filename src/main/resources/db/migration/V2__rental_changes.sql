@@ -0,0 +1,13 @@
+-- Outbox of the rental changes, written in the same transaction as the rental.
+-- The seq is the cursor of the change feed, the compaction only keeps the last change of each rental.
+
+CREATE TABLE rental_changes (
+	seq bigint NOT NULL AUTO_INCREMENT,
+	rental_id int NOT NULL,
+	changed_at datetime NOT NULL,
+	PRIMARY KEY (seq),
+	KEY idx_rental_changes_rental_seq (rental_id, seq) );
+
+-- The existing rentals are the first changes, so that a sync from 0 gets the whole catalogue
+INSERT INTO rental_changes (rental_id, changed_at)
+	SELECT id, COALESCE(updated_at, created_at, CURRENT_TIMESTAMP) FROM rentals ORDER BY id;
@@ -0,0 +1,11 @@
+-- Invalidations of the in-process caches, written by a node and polled by the others.
+-- A row with a null cache_key clears the whole cache. Rows are purged after the retention.
+
+CREATE TABLE cache_invalidations (
+	seq bigint NOT NULL AUTO_INCREMENT,
+	origin varchar(36) NOT NULL,
+	cache_name varchar(32) NOT NULL,
+	cache_key varchar(255) NULL,
+	created_at datetime(3) NOT NULL,
+	PRIMARY KEY (seq),
+	KEY idx_cache_invalidations_created (created_at) );
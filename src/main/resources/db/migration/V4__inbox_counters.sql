@@ -0,0 +1,8 @@
+-- Unread messages of each rental for the inbox of its owner, incremented by batches of the nodes
+-- and reset when the owner reads them. The messages sent before this version count as read.
+
+CREATE TABLE inbox_counters (
+	rental_id int NOT NULL,
+	unread int NOT NULL,
+	PRIMARY KEY (rental_id),
+	CONSTRAINT fk_inbox_counters_rental_id FOREIGN KEY (rental_id) REFERENCES rentals (id) );
@@ -0,0 +1,10 @@
+-- RSA key pairs signing the tokens, shared by every node and kept across restarts.
+-- jwk holds the private key : the table must be protected like the passwords of users.
+-- A key signs during jwt.key-rotation and is deleted after jwt.key-retention more.
+
+CREATE TABLE jwt_keys (
+	kid varchar(36) NOT NULL,
+	jwk text NOT NULL,
+	created_at datetime(3) NOT NULL,
+	PRIMARY KEY (kid),
+	KEY idx_jwt_keys_created (created_at) );
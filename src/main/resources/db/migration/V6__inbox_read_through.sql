@@ -0,0 +1,4 @@
+-- Last message of the rental when its owner read it : a node flushing afterwards the messages
+-- it received before the read does not count them as unread again.
+
+ALTER TABLE inbox_counters ADD COLUMN read_through int NOT NULL DEFAULT 0;
@@ -0,0 +1,59 @@
+package com.bdr.backend;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalManagementPort;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.bdr.backend.services.JwtService;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+@AutoConfigureObservability
+class PrometheusEndpointTests {
+
+	@Autowired
+	private TestRestTemplate restTemplate;
+
+	@Autowired
+	private JwtService jwtService;
+
+	@LocalManagementPort
+	private int managementPort;
+
+	@Test
+	void exposesTheHotPathMetrics() {
+		HttpHeaders headers = new HttpHeaders();
+		headers.setBearerAuth(jwtService.generateToken("metrics@test.com"));
+		restTemplate.exchange("/api/rentals", HttpMethod.GET, new HttpEntity<>(headers), String.class);
+
+		ResponseEntity<String> response = restTemplate.getForEntity(
+				"http://localhost:" + managementPort + "/actuator/prometheus", String.class);
+
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(response.getBody())
+				.contains("http_server_requests_seconds_bucket{")
+				.contains("uri=\"/api/rentals\"")
+				.contains("jwt_seconds_count{application=\"backend\",operation=\"encode\"")
+				.contains("jwt_seconds_count{application=\"backend\",operation=\"decode\"")
+				.contains("spring_data_repository_invocations_seconds_count{")
+				.contains("hikaricp_connections_active");
+	}
+
+	@Test
+	void metricsAreNotServedOnTheApiPort() {
+		ResponseEntity<String> response = restTemplate.getForEntity("/actuator/prometheus", String.class);
+
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+	}
+}
@@ -0,0 +1,105 @@
+package com.bdr.backend.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@SpringJUnitConfig({ CacheInvalidationBus.class, LocalInvalidationTransport.class, SimpleMeterRegistry.class })
+class CacheInvalidationBusTests {
+
+	private static final String OTHER_NODE = "other-node";
+
+	@Autowired
+	private CacheInvalidationBus bus;
+
+	@Autowired
+	private LocalInvalidationTransport transport;
+
+	private final List<String> evictedUsers = new ArrayList<>();
+
+	@BeforeEach
+	void setUp() {
+		transport.subscribe(OTHER_NODE);
+		transport.receive(OTHER_NODE);
+		bus.register("users", evictedUsers::add);
+		// The first poll subscribes the bus
+		bus.poll();
+		evictedUsers.clear();
+	}
+
+	@Test
+	void duplicatesAreSentOnceAtTheFlush() {
+		bus.publish("users", "1");
+		bus.publish("users", "2");
+		bus.publish("users", "1");
+		bus.publish("rentals", null);
+		bus.publish("rentals", null);
+		assertThat(transport.receive(OTHER_NODE)).isEmpty();
+
+		bus.flush();
+
+		assertThat(transport.receive(OTHER_NODE)).containsExactly(new Invalidation("users", "1"),
+				new Invalidation("users", "2"), new Invalidation("rentals", null));
+	}
+
+	@Test
+	void wholeCacheInvalidationReplacesItsEntries() {
+		bus.publish("users", "1");
+		bus.publish("users", null);
+		bus.publish("users", "2");
+		bus.flush();
+
+		assertThat(transport.receive(OTHER_NODE)).containsExactly(new Invalidation("users", null));
+	}
+
+	@Test
+	void onlyTheInvalidationsOfOtherNodesAreApplied() {
+		bus.publish("users", "1");
+		bus.flush();
+		transport.publish(OTHER_NODE, List.of(new Invalidation("users", "7"), new Invalidation("users", "7"),
+				new Invalidation("unknown", "1")));
+
+		bus.poll();
+
+		assertThat(evictedUsers).containsExactly("7");
+	}
+
+	@Test
+	void subscriptionWaitsForTheTransportAndClearsTheCaches() {
+		LocalInvalidationTransport unreachable = new LocalInvalidationTransport() {
+			private boolean reachable;
+
+			@Override
+			public void subscribe(String node) {
+				if (!reachable) {
+					reachable = true;
+					throw new IllegalStateException("Database unavailable");
+				}
+				super.subscribe(node);
+			}
+		};
+		CacheInvalidationBus lateBus = new CacheInvalidationBus();
+		ReflectionTestUtils.setField(lateBus, "transport", unreachable);
+		ReflectionTestUtils.setField(lateBus, "meterRegistry", new SimpleMeterRegistry());
+		List<String> evicted = new ArrayList<>();
+		lateBus.register("users", evicted::add);
+
+		lateBus.poll();
+		assertThat(evicted).isEmpty();
+
+		lateBus.poll();
+		unreachable.publish(OTHER_NODE, List.of(new Invalidation("users", "3")));
+		lateBus.poll();
+		// Cached before the subscription, the entries may have missed an invalidation
+		assertThat(evicted).containsExactly(null, "3");
+	}
+}
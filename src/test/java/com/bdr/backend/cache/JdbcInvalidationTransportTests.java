@@ -0,0 +1,73 @@
+package com.bdr.backend.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+@JdbcTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+class JdbcInvalidationTransportTests {
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private JdbcInvalidationTransport transport;
+
+	@BeforeEach
+	void setUp() {
+		transport = new JdbcInvalidationTransport(jdbcTemplate, Duration.ofMinutes(1), Duration.ofHours(1));
+		transport.subscribe("node-a");
+		transport.subscribe("node-b");
+	}
+
+	@Test
+	void otherNodesReceiveEachInvalidationOnce() {
+		transport.publish("node-a", List.of(new Invalidation("users", "1"), new Invalidation("rentals", null)));
+
+		assertThat(transport.receive("node-b")).containsExactly(new Invalidation("users", "1"),
+				new Invalidation("rentals", null));
+		assertThat(transport.receive("node-b")).isEmpty();
+		assertThat(transport.receive("node-a")).isEmpty();
+	}
+
+	@Test
+	void rowCommittedLateWithALowerSeqIsNotSkipped() {
+		long last = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(seq), 0) FROM cache_invalidations", Long.class);
+		insert(last + 2, "users", "2");
+		assertThat(transport.receive("node-b")).containsExactly(new Invalidation("users", "2"));
+
+		// The transaction that got the previous seq commits after the poll
+		insert(last + 1, "users", "1");
+
+		assertThat(transport.receive("node-b")).containsExactly(new Invalidation("users", "1"));
+	}
+
+	@Test
+	void expiredRowsArePurged() {
+		long last = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(seq), 0) FROM cache_invalidations", Long.class);
+		jdbcTemplate.update("INSERT INTO cache_invalidations (seq, origin, cache_name, cache_key, created_at) "
+				+ "VALUES (?, 'node-a', 'users', '1', ?)", last + 1, Timestamp.from(Instant.now().minus(Duration.ofDays(1))));
+		transport.publish("node-a", List.of(new Invalidation("users", "2")));
+
+		transport.purge();
+
+		assertThat(jdbcTemplate.queryForList("SELECT cache_key FROM cache_invalidations", String.class)).containsExactly("2");
+	}
+
+	private void insert(long seq, String cache, String key) {
+		jdbcTemplate.update("INSERT INTO cache_invalidations (seq, origin, cache_name, cache_key, created_at) "
+				+ "VALUES (?, 'node-a', ?, ?, ?)", seq, cache, key, Timestamp.from(Instant.now()));
+	}
+}
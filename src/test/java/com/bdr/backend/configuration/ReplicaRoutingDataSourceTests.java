@@ -0,0 +1,129 @@
+package com.bdr.backend.configuration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Three embedded H2 databases, each one with a node table holding its own name
+ */
+class ReplicaRoutingDataSourceTests {
+
+	private static final Duration READ_YOUR_WRITES = Duration.ofMillis(300);
+
+	private HikariDataSource primary;
+	private HikariDataSource replicaA;
+	private HikariDataSource replicaB;
+
+	private JdbcTemplate jdbcTemplate;
+	private TransactionTemplate writeTransaction;
+	private TransactionTemplate readOnlyTransaction;
+
+	@BeforeEach
+	void setUp() {
+		primary = database("primary");
+		replicaA = database("replica_a");
+		replicaB = database("replica_b");
+
+		DataSource dataSource = new LazyConnectionDataSourceProxy(
+				new ReplicaRoutingDataSource(primary, List.of(replicaA, replicaB), READ_YOUR_WRITES));
+		DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		writeTransaction = new TransactionTemplate(transactionManager);
+		readOnlyTransaction = new TransactionTemplate(transactionManager);
+		readOnlyTransaction.setReadOnly(true);
+	}
+
+	@AfterEach
+	void tearDown() {
+		SecurityContextHolder.clearContext();
+		List.of(primary, replicaA, replicaB).forEach(HikariDataSource::close);
+	}
+
+	@Test
+	void readOnlyTransactionsGoToTheReplicas() {
+		assertThat(readNode()).startsWith("replica");
+		assertThat(writeNode()).isEqualTo("primary");
+		// Outside of a transaction nothing tells that the statement only reads
+		assertThat(node()).isEqualTo("primary");
+	}
+
+	@Test
+	void theLeastBusyReplicaIsChosen() throws Exception {
+		try (Connection busy = replicaA.getConnection()) {
+			for (int i = 0; i < 5; i++) {
+				assertThat(readNode()).isEqualTo("replica_b");
+			}
+		}
+		try (Connection busy = replicaB.getConnection()) {
+			assertThat(readNode()).isEqualTo("replica_a");
+		}
+	}
+
+	@Test
+	void aUserReadsTheirOwnWritesFromThePrimary() throws Exception {
+		authenticate("alice@test.com");
+		writeTransaction.executeWithoutResult(status -> jdbcTemplate.update("UPDATE node SET name = name"));
+
+		assertThat(readNode()).isEqualTo("primary");
+
+		authenticate("bob@test.com");
+		assertThat(readNode()).startsWith("replica");
+
+		authenticate("alice@test.com");
+		Thread.sleep(READ_YOUR_WRITES.toMillis() + 50);
+		assertThat(readNode()).startsWith("replica");
+	}
+
+	@Test
+	void sharedReadsGoToThePrimary() {
+		assertThat(ReplicaRoutingDataSource.onPrimary(this::readNode)).isEqualTo("primary");
+		assertThat(readNode()).startsWith("replica");
+	}
+
+	private String readNode() {
+		return readOnlyTransaction.execute(status -> node());
+	}
+
+	private String writeNode() {
+		return writeTransaction.execute(status -> node());
+	}
+
+	private String node() {
+		return jdbcTemplate.queryForObject("SELECT name FROM node", String.class);
+	}
+
+	private static void authenticate(String email) {
+		SecurityContextHolder.getContext().setAuthentication(
+				new UsernamePasswordAuthenticationToken(email, null, AuthorityUtils.NO_AUTHORITIES));
+	}
+
+	private static HikariDataSource database(String name) {
+		HikariDataSource dataSource = new HikariDataSource();
+		dataSource.setJdbcUrl("jdbc:h2:mem:routing_" + name + ";DB_CLOSE_DELAY=-1");
+		dataSource.setUsername("sa");
+		dataSource.setPoolName(name);
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS node (name VARCHAR(20))");
+		jdbcTemplate.update("DELETE FROM node");
+		jdbcTemplate.update("INSERT INTO node VALUES (?)", name);
+		return dataSource;
+	}
+}
@@ -0,0 +1,129 @@
+package com.bdr.backend.configuration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import com.bdr.backend.metrics.SqlCountingDataSource;
+import com.bdr.backend.services.JwtService;
+import com.bdr.backend.services.RentalService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * The primary and the replica are two in-memory databases with the same schema and no replication :
+ * a row only found in one of them shows where a statement was routed.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class ReplicationConfigTests {
+
+	private static final String PRIMARY_URL = "jdbc:h2:mem:replication-primary;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+	private static final String REPLICA_URL = "jdbc:h2:mem:replication-replica;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+	private static final JdbcTemplate primary = new JdbcTemplate(new DriverManagerDataSource(PRIMARY_URL, "sa", ""));
+	private static final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+
+	@LocalServerPort
+	private int port;
+
+	@Autowired
+	private DataSource dataSource;
+
+	@Autowired
+	private RentalService rentalService;
+
+	@Autowired
+	private JwtService jwtService;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	private final HttpClient client = HttpClient.newHttpClient();
+
+	/**
+	 * The application migrates the primary, the replica is migrated here before the context starts
+	 */
+	@DynamicPropertySource
+	static void replication(DynamicPropertyRegistry registry) {
+		Flyway.configure().dataSource(REPLICA_URL, "sa", "").load().migrate();
+		registry.add("replication.enabled", () -> "true");
+		registry.add("spring.datasource.url", () -> PRIMARY_URL);
+		registry.add("replication.replica-urls", () -> REPLICA_URL);
+	}
+
+	@Test
+	void readOnlyTransactionsReadTheReplica() {
+		int ownerId = insertUserEverywhere();
+		replica.update("INSERT INTO rentals (name, surface, price, owner_id) VALUES ('maison replica', 80, 120000, ?)", ownerId);
+
+		assertThat(dataSource).isInstanceOf(SqlCountingDataSource.class);
+		assertThat(((SqlCountingDataSource) dataSource).getTargetDataSource()).isInstanceOf(LazyConnectionDataSourceProxy.class);
+		assertThat(rentalService.getAllRentals(false).get("rentals")).anyMatch(rental -> "maison replica".equals(rental.getName()));
+		assertThat(meterRegistry.get("hikaricp.connections.usage").tag("pool", "replica-0").timer().count()).isPositive();
+	}
+
+	@Test
+	void updatedRentalIsWrittenToThePrimaryAfterAReplicaRead() throws Exception {
+		String email = "replication-" + UUID.randomUUID() + "@test.com";
+		int ownerId = insertUserEverywhere(email);
+		int rentalId = primary.queryForObject("SELECT COALESCE(MAX(id), 0) + 1000 FROM rentals", Integer.class);
+		for (JdbcTemplate database : new JdbcTemplate[] { primary, replica }) {
+			database.update("INSERT INTO rentals (id, name, surface, price, owner_id) VALUES (?, 'maison', 50, 100000, ?)",
+					rentalId, ownerId);
+		}
+		String name = "maison " + UUID.randomUUID();
+
+		// The request reads the rental from the replica before saving it
+		HttpResponse<String> response = client.send(HttpRequest
+				.newBuilder(URI.create("http://localhost:" + port + "/api/rentals/" + rentalId))
+				.header("Authorization", "Bearer " + jwtService.generateToken(email))
+				.header("Content-Type", "application/x-www-form-urlencoded")
+				.PUT(HttpRequest.BodyPublishers.ofString("name=" + URLEncoder.encode(name, StandardCharsets.UTF_8)))
+				.build(), HttpResponse.BodyHandlers.ofString());
+
+		assertThat(response.statusCode()).isEqualTo(200);
+		assertThat(countRentals(primary, name, ownerId)).isEqualTo(1);
+		assertThat(countRentals(replica, name, ownerId)).isZero();
+	}
+
+	private int insertUserEverywhere() {
+		return insertUserEverywhere("replication-" + UUID.randomUUID() + "@test.com");
+	}
+
+	/**
+	 * Insert the same user in both databases, as the replication would
+	 */
+	private int insertUserEverywhere(String email) {
+		int userId = primary.queryForObject("SELECT COALESCE(MAX(id), 0) + 1000 FROM users", Integer.class);
+		for (JdbcTemplate database : new JdbcTemplate[] { primary, replica }) {
+			database.update("INSERT INTO users (id, email, name, password) VALUES (?, ?, 'Owner', 'hash')", userId, email);
+		}
+		return userId;
+	}
+
+	private static int countRentals(JdbcTemplate database, String name, int ownerId) {
+		return database.queryForObject("SELECT COUNT(*) FROM rentals WHERE name = ? AND owner_id = ?", Integer.class,
+				name, ownerId);
+	}
+}
@@ -0,0 +1,186 @@
+package com.bdr.backend.controllers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.bdr.backend.models.entities.User;
+import com.bdr.backend.services.JwtService;
+import com.bdr.backend.services.UserService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class ExportControllerTests {
+
+	private static final Instant JANUARY = Instant.parse("2024-01-15T10:00:00Z");
+	private static final Instant FEBRUARY = Instant.parse("2024-02-15T10:00:00Z");
+	private static final Instant MARCH = Instant.parse("2024-03-15T10:00:00Z");
+
+	@LocalServerPort
+	private int port;
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private JwtService jwtService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	private final HttpClient client = HttpClient.newHttpClient();
+
+	private User owner;
+
+	private String token;
+
+	@BeforeEach
+	void setUp() {
+		// A new owner per test, the filter on the owner isolates the rows of the test
+		String email = "export-" + UUID.randomUUID() + "@test.com";
+		owner = userService.createUser(email, "password", "Exporter");
+		token = jwtService.generateToken(email);
+		insertRental("maison janvier", "Vue sur mer", JANUARY);
+		insertRental("maison février", "Grande, \"lumineuse\"\net calme", FEBRUARY);
+		insertRental("maison mars", "description", MARCH);
+	}
+
+	@Test
+	void ndjsonExportIsSortedAndResumable() throws Exception {
+		List<JsonNode> all = ndjson(get("/api/export/rentals?owner=" + owner.getUserId(), null).body());
+
+		assertThat(all).extracting(row -> row.get("name").asText())
+				.containsExactly("maison janvier", "maison février", "maison mars");
+		assertThat(all.get(0).get("owner_id").asInt()).isEqualTo(owner.getUserId());
+		assertThat(all.get(0).get("created_at").asText()).isEqualTo(JANUARY.toString());
+
+		// The client got the first line before the connection dropped
+		int lastId = all.get(0).get("id").asInt();
+		List<JsonNode> resumed = ndjson(
+				get("/api/export/rentals?owner=" + owner.getUserId() + "&after=" + lastId, null).body());
+		assertThat(resumed).extracting(row -> row.get("name").asText()).containsExactly("maison février", "maison mars");
+	}
+
+	@Test
+	void csvExportIsQuotedAndGzipped() throws Exception {
+		HttpResponse<byte[]> response = get("/api/export/rentals?format=csv&owner=" + owner.getUserId(), "gzip");
+
+		assertThat(response.statusCode()).isEqualTo(200);
+		assertThat(response.headers().firstValue("Content-Type")).hasValueSatisfying(type -> assertThat(type).startsWith("text/csv"));
+		assertThat(response.headers().firstValue("Content-Encoding")).hasValue("gzip");
+		String csv = gunzip(response.body());
+		assertThat(csv).startsWith("id,name,surface,price,picture,description,owner_id,created_at,updated_at\r\n");
+		assertThat(csv).contains(",\"Grande, \"\"lumineuse\"\"\net calme\",");
+		assertThat(csv.split("\r\n")).hasSize(4);
+	}
+
+	@Test
+	void timeRangeFiltersTheRentalsAndTheirMessages() throws Exception {
+		String range = "&from=" + FEBRUARY + "&to=" + MARCH;
+		List<JsonNode> rentals = ndjson(get("/api/export/rentals?owner=" + owner.getUserId() + range, null).body());
+		assertThat(rentals).extracting(row -> row.get("name").asText()).containsExactly("maison février");
+
+		int rentalId = rentals.get(0).get("id").asInt();
+		insertMessage(rentalId, "Encore disponible ?", FEBRUARY);
+		insertMessage(rentalId, "Merci", MARCH);
+		List<JsonNode> messages = ndjson(get("/api/export/messages?" + range.substring(1), null).body());
+		assertThat(messages).extracting(row -> row.get("message").asText()).containsExactly("Encore disponible ?");
+	}
+
+	@Test
+	void messagesOfOtherOwnersAreNotExported() throws Exception {
+		int rentalId = ndjson(get("/api/export/rentals?owner=" + owner.getUserId(), null).body()).get(0).get("id").asInt();
+		insertMessage(rentalId, "Message privé", JANUARY);
+
+		String otherEmail = "export-" + UUID.randomUUID() + "@test.com";
+		User other = userService.createUser(otherEmail, "password", "Other");
+		String otherToken = jwtService.generateToken(otherEmail);
+		List<JsonNode> messages = ndjson(get("/api/export/messages?owner=" + owner.getUserId(), null, otherToken).body());
+
+		assertThat(other.getUserId()).isNotEqualTo(owner.getUserId());
+		assertThat(messages).isEmpty();
+		assertThat(ndjson(get("/api/export/messages", null).body())).extracting(row -> row.get("message").asText())
+				.containsExactly("Message privé");
+	}
+
+	@Test
+	void unknownFormatIsRejected() throws Exception {
+		assertThat(get("/api/export/rentals?format=xml", null).statusCode()).isEqualTo(400);
+	}
+
+	private void insertRental(String name, String description, Instant createdAt) {
+		jdbcTemplate.update("INSERT INTO rentals (name, surface, price, picture, description, owner_id, created_at) "
+				+ "VALUES (?, 80, 200000, '/uploads/maison.jpg', ?, ?, ?)", name, description, owner.getUserId(),
+				utc(createdAt));
+	}
+
+	private void insertMessage(int rentalId, String message, Instant createdAt) {
+		jdbcTemplate.update("INSERT INTO messages (rental_id, user_id, message, created_at) VALUES (?, ?, ?, ?)",
+				rentalId, owner.getUserId(), message, utc(createdAt));
+	}
+
+	/**
+	 * The UTC wall time, as the JPA side writes the DATETIME columns
+	 */
+	private static LocalDateTime utc(Instant instant) {
+		return LocalDateTime.ofInstant(instant, ZoneOffset.UTC);
+	}
+
+	private HttpResponse<byte[]> get(String path, String acceptEncoding) throws IOException, InterruptedException {
+		return get(path, acceptEncoding, token);
+	}
+
+	private HttpResponse<byte[]> get(String path, String acceptEncoding, String bearer)
+			throws IOException, InterruptedException {
+		HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+				.header("Authorization", "Bearer " + bearer);
+		if (acceptEncoding != null) {
+			request.header("Accept-Encoding", acceptEncoding);
+		}
+		return client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+	}
+
+	private List<JsonNode> ndjson(byte[] body) throws IOException {
+		String text = new String(body, StandardCharsets.UTF_8);
+		List<JsonNode> rows = new ArrayList<>();
+		for (String line : text.split("\n")) {
+			if (!line.isEmpty()) {
+				rows.add(objectMapper.readTree(line));
+			}
+		}
+		return rows;
+	}
+
+	private static String gunzip(byte[] body) throws IOException {
+		try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+			return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+		}
+	}
+}
@@ -0,0 +1,94 @@
+package com.bdr.backend.controllers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.bdr.backend.models.dtos.RentalDto;
+import com.bdr.backend.models.entities.Rental;
+import com.bdr.backend.models.entities.User;
+import com.bdr.backend.services.JwtService;
+import com.bdr.backend.services.RentalService;
+import com.bdr.backend.services.UserService;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"spring.datasource.url=jdbc:h2:mem:reactive;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+		"spring.r2dbc.url=r2dbc:h2:mem:///reactive;DB_CLOSE_DELAY=-1;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+		"spring.r2dbc.username=sa", "spring.r2dbc.password=" })
+@ActiveProfiles({ "test", "reactive" })
+class ReactiveRentalControllerTests {
+
+	@Autowired
+	private TestRestTemplate restTemplate;
+
+	@Autowired
+	private RentalService rentalService;
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private JwtService jwtService;
+
+	private HttpEntity<Void> authenticated;
+
+	private Rental rental;
+
+	@BeforeEach
+	void setUp() {
+		User owner = userService.getUserByEmail("owner@test.com")
+				.orElseGet(() -> userService.createUser("owner@test.com", "password", "Owner"));
+		rental = rentalService.createRental("maison 1", 170, 540000, "/uploads/maison-bord-mer-seloger.jpg",
+				"description", owner.getUserId());
+		rentalService.createRental("maison 2", 80, 120000, "/uploads/belle-maison-archi-LCL.jpg", "description",
+				owner.getUserId());
+
+		HttpHeaders headers = new HttpHeaders();
+		headers.setBearerAuth(jwtService.generateToken("test@test.com"));
+		authenticated = new HttpEntity<>(headers);
+	}
+
+	@Test
+	void streamsTheRentalsAsNdjson() {
+		ResponseEntity<String> response = restTemplate.exchange("/api/reactive/rentals", HttpMethod.GET, authenticated,
+				String.class);
+
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(response.getHeaders().getContentType().toString()).startsWith("application/x-ndjson");
+		assertThat(response.getBody().lines()).hasSizeGreaterThanOrEqualTo(2)
+				.anyMatch(line -> line.contains("\"name\":\"maison 1\""))
+				.anyMatch(line -> line.contains("\"name\":\"maison 2\""));
+	}
+
+	@Test
+	void getsOneRentalLikeTheBlockingRoute() {
+		ResponseEntity<RentalDto> response = restTemplate.exchange("/api/reactive/rentals/" + rental.getRentalId(),
+				HttpMethod.GET, authenticated, RentalDto.class);
+
+		RentalDto expected = rentalService.convertToDto(rentalService.getRentalById(rental.getRentalId()).get());
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(response.getBody().getName()).isEqualTo("maison 1");
+		assertThat(response.getBody().getPrice()).isEqualTo(540000);
+		assertThat(response.getBody().getCreatedAt()).isEqualTo(expected.getCreatedAt());
+		assertThat(response.getBody().getPicture())
+				.isEqualTo(rentalService.constructFullUrl("/uploads/maison-bord-mer-seloger.jpg"));
+	}
+
+	@Test
+	void unknownRentalIsRejected() {
+		ResponseEntity<String> response = restTemplate.exchange("/api/reactive/rentals/999999", HttpMethod.GET,
+				authenticated, String.class);
+
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+	}
+}
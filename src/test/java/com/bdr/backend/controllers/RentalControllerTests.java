@@ -0,0 +1,125 @@
+package com.bdr.backend.controllers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.bdr.backend.models.entities.Rental;
+import com.bdr.backend.models.entities.User;
+import com.bdr.backend.services.JwtService;
+import com.bdr.backend.services.RentalService;
+import com.bdr.backend.services.UserService;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class RentalControllerTests {
+
+	@LocalServerPort
+	private int port;
+
+	@Autowired
+	private RentalService rentalService;
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private JwtService jwtService;
+
+	private final HttpClient client = HttpClient.newHttpClient();
+
+	private User owner;
+
+	private String token;
+
+	@BeforeEach
+	void setUp() {
+		owner = userService.getUserByEmail("owner@test.com")
+				.orElseGet(() -> userService.createUser("owner@test.com", "password", "Owner"));
+		rentalService.createRental("maison cache", 90, 250000, "/uploads/maison-bord-mer-seloger.jpg", "description",
+				owner.getUserId());
+		token = jwtService.generateToken("owner@test.com");
+	}
+
+	@Test
+	void servesTheSameJsonGzippedOrNot() throws Exception {
+		HttpResponse<byte[]> identity = getRentals(null, null);
+		HttpResponse<byte[]> gzip = getRentals("br;q=1.0, gzip;q=0.8", null);
+
+		assertThat(identity.statusCode()).isEqualTo(200);
+		assertThat(identity.headers().firstValue("Content-Encoding")).isEmpty();
+		assertThat(gzip.statusCode()).isEqualTo(200);
+		assertThat(gzip.headers().firstValue("Content-Encoding")).hasValue("gzip");
+		assertThat(String.join(",", gzip.headers().allValues("Vary"))).contains("Accept-Encoding");
+		assertThat(gunzip(gzip.body())).isEqualTo(new String(identity.body(), StandardCharsets.UTF_8));
+		assertThat(gzip.headers().firstValue("ETag")).isNotEqualTo(identity.headers().firstValue("ETag"));
+	}
+
+	@Test
+	void refusedGzipIsServedAsIdentity() throws Exception {
+		HttpResponse<byte[]> response = getRentals("gzip;q=0, identity", null);
+
+		assertThat(response.headers().firstValue("Content-Encoding")).isEmpty();
+		assertThat(new String(response.body(), StandardCharsets.UTF_8)).contains("maison cache");
+	}
+
+	@Test
+	void knownETagGetsNotModified() throws Exception {
+		String etag = getRentals("gzip", null).headers().firstValue("ETag").orElseThrow();
+
+		HttpResponse<byte[]> response = getRentals("gzip", etag);
+
+		assertThat(response.statusCode()).isEqualTo(304);
+		assertThat(response.body()).isEmpty();
+	}
+
+	@Test
+	void createdAndUpdatedRentalsInvalidateTheBody() throws Exception {
+		HttpResponse<byte[]> before = getRentals(null, null);
+		String etag = before.headers().firstValue("ETag").orElseThrow();
+
+		Rental created = rentalService.createRental("maison nouvelle", 40, 90000, "/uploads/belle-maison-archi-LCL.jpg",
+				"description", owner.getUserId());
+		HttpResponse<byte[]> afterCreate = getRentals(null, etag);
+		assertThat(afterCreate.statusCode()).isEqualTo(200);
+		assertThat(new String(afterCreate.body(), StandardCharsets.UTF_8)).contains("maison nouvelle");
+
+		rentalService.updateRental(created.getRentalId(), "maison renommée", null, null, null, null, null);
+		String afterUpdate = new String(getRentals(null, null).body(), StandardCharsets.UTF_8);
+		assertThat(afterUpdate).contains("maison renommée").doesNotContain("maison nouvelle");
+	}
+
+	private HttpResponse<byte[]> getRentals(String acceptEncoding, String ifNoneMatch)
+			throws IOException, InterruptedException {
+		HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/rentals"))
+				.header("Authorization", "Bearer " + token);
+		if (acceptEncoding != null) {
+			request.header("Accept-Encoding", acceptEncoding);
+		}
+		if (ifNoneMatch != null) {
+			request.header("If-None-Match", ifNoneMatch);
+		}
+		return client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+	}
+
+	private static String gunzip(byte[] body) throws IOException {
+		try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+			return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+		}
+	}
+}
@@ -0,0 +1,112 @@
+package com.bdr.backend.controllers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.bdr.backend.models.entities.User;
+import com.bdr.backend.services.JwtService;
+import com.bdr.backend.services.UserService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class UserControllerTests {
+
+	@LocalServerPort
+	private int port;
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private JwtService jwtService;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	private final HttpClient client = HttpClient.newHttpClient();
+
+	private User owner;
+
+	private User tenant;
+
+	private String token;
+
+	@BeforeEach
+	void setUp() {
+		owner = userService.getUserByEmail("owner@test.com")
+				.orElseGet(() -> userService.createUser("owner@test.com", "password", "Owner"));
+		tenant = userService.getUserByEmail("tenant@test.com")
+				.orElseGet(() -> userService.createUser("tenant@test.com", "password", "Tenant"));
+		token = jwtService.generateToken("owner@test.com");
+	}
+
+	@Test
+	void repeatedIdsAreReturnedOnce() throws Exception {
+		HttpResponse<String> response = getUsers(owner.getUserId() + "," + tenant.getUserId() + "," + owner.getUserId());
+
+		assertThat(response.statusCode()).isEqualTo(200);
+		JsonNode users = objectMapper.readTree(response.body()).get("users");
+		assertThat(users.size()).isEqualTo(2);
+		assertThat(users.get(String.valueOf(owner.getUserId())).get("email").asText()).isEqualTo("owner@test.com");
+		assertThat(users.get(String.valueOf(tenant.getUserId())).get("email").asText()).isEqualTo("tenant@test.com");
+	}
+
+	@Test
+	void unknownIdsAreLeftOut() throws Exception {
+		int unknownId = Math.max(owner.getUserId(), tenant.getUserId()) + 1000;
+
+		HttpResponse<String> response = getUsers(owner.getUserId() + "," + unknownId);
+
+		assertThat(response.statusCode()).isEqualTo(200);
+		JsonNode users = objectMapper.readTree(response.body()).get("users");
+		assertThat(users.size()).isEqualTo(1);
+		assertThat(users.has(String.valueOf(owner.getUserId()))).isTrue();
+		assertThat(users.has(String.valueOf(unknownId))).isFalse();
+	}
+
+	@Test
+	void moreThanAHundredIdsAreRefused() throws Exception {
+		HttpResponse<String> response = getUsers(ids(101));
+
+		assertThat(response.statusCode()).isEqualTo(400);
+	}
+
+	@Test
+	void aHundredIdsRepeatedAreAccepted() throws Exception {
+		// The limit applies to the distinct ids
+		List<String> repeated = new ArrayList<>();
+		repeated.add(ids(100));
+		repeated.add(ids(100));
+
+		HttpResponse<String> response = getUsers(String.join(",", repeated));
+
+		assertThat(response.statusCode()).isEqualTo(200);
+	}
+
+	private static String ids(int count) {
+		return IntStream.rangeClosed(1, count).mapToObj(String::valueOf).collect(Collectors.joining(","));
+	}
+
+	private HttpResponse<String> getUsers(String ids) throws IOException, InterruptedException {
+		return client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/users?ids=" + ids))
+				.header("Authorization", "Bearer " + token).build(), HttpResponse.BodyHandlers.ofString());
+	}
+}
@@ -0,0 +1,79 @@
+package com.bdr.backend.dataset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+class DatasetGeneratorTests {
+
+	private static final Instant NOW = Instant.parse("2024-06-01T00:00:00Z");
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void sameSeedGivesTheSameRows() {
+		List<List<Map<String, Object>>> first = generate(7);
+		clear();
+		List<List<Map<String, Object>>> second = generate(7);
+		clear();
+		List<List<Map<String, Object>>> otherSeed = generate(8);
+
+		assertThat(second).isEqualTo(first);
+		assertThat(otherSeed).isNotEqualTo(first);
+	}
+
+	@Test
+	void rowsFollowRealisticDistributions() {
+		DatasetGenerator generator = new DatasetGenerator(jdbcTemplate, 42, 500, NOW);
+		assertThat(generator.isGenerated()).isFalse();
+		generator.generate(1000, 10000, 20000);
+		assertThat(generator.isGenerated()).isTrue();
+
+		// 1% of the owners have a large share of the rentals
+		int topOwnersRentals = topShare("SELECT COUNT(*) FROM rentals GROUP BY owner_id ORDER BY COUNT(*) DESC", 10);
+		assertThat(topOwnersRentals).isGreaterThan(10000 / 5);
+
+		// 1% of the rentals have a large share of the messages, most have a short conversation or none
+		int topRentalsMessages = topShare("SELECT COUNT(*) FROM messages GROUP BY rental_id ORDER BY COUNT(*) DESC", 100);
+		assertThat(topRentalsMessages).isGreaterThan(20000 / 5);
+
+		Integer medianSurface = jdbcTemplate.queryForObject(
+				"SELECT surface FROM rentals ORDER BY surface LIMIT 1 OFFSET 5000", Integer.class);
+		assertThat(medianSurface).isBetween(65, 85);
+
+		String password = jdbcTemplate.queryForObject("SELECT password FROM users WHERE email = ?", String.class,
+				"user1" + DatasetGenerator.EMAIL_DOMAIN);
+		assertThat(new BCryptPasswordEncoder().matches("password", password)).isTrue();
+	}
+
+	private List<List<Map<String, Object>>> generate(long seed) {
+		new DatasetGenerator(jdbcTemplate, seed, 100, NOW).generate(50, 300, 1000);
+		return List.of(jdbcTemplate.queryForList("SELECT * FROM users ORDER BY id"),
+				jdbcTemplate.queryForList("SELECT * FROM rentals ORDER BY id"),
+				jdbcTemplate.queryForList("SELECT * FROM messages ORDER BY id"));
+	}
+
+	private void clear() {
+		jdbcTemplate.update("DELETE FROM messages");
+		jdbcTemplate.update("DELETE FROM rentals");
+		jdbcTemplate.update("DELETE FROM users");
+	}
+
+	private int topShare(String countsQuery, int top) {
+		return jdbcTemplate.queryForList(countsQuery, Integer.class).stream().limit(top).mapToInt(Integer::intValue).sum();
+	}
+}
@@ -0,0 +1,63 @@
+package com.bdr.backend.limits;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class AdaptiveConcurrencyLimitTests {
+
+	private final AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(20, 4, 200, 0.2, 10);
+
+	@Test
+	void limitGrowsWhileTheLatencyIsStable() {
+		serve(200, 20, 10);
+
+		assertThat(limit.getLimit()).isGreaterThan(25);
+	}
+
+	@Test
+	void limitShrinksWhenTheLatencyRises() {
+		serve(100, 20, 10);
+		double before = limit.getLimit();
+
+		// The database slows down, the requests wait for the pool
+		serve(400, (int) before, 80);
+
+		assertThat(limit.getLimit()).isLessThan(before / 2).isGreaterThanOrEqualTo(4);
+	}
+
+	@Test
+	void idleTrafficDoesNotMoveTheLimit() {
+		serve(100, 2, 10);
+		serve(100, 2, 80);
+
+		assertThat(limit.getLimit()).isEqualTo(20);
+	}
+
+	@Test
+	void slotsAboveTheShareAreRefused() {
+		for (int i = 0; i < 10; i++) {
+			assertThat(limit.tryAcquire(0.5)).isTrue();
+		}
+		assertThat(limit.tryAcquire(0.5)).isFalse();
+		assertThat(limit.tryAcquire(1.0)).isTrue();
+		assertThat(limit.getInflight()).isEqualTo(11);
+	}
+
+	/**
+	 * Serve requests by groups of the given concurrency, all taking the given latency
+	 */
+	private void serve(int requests, int concurrency, long latencyMillis) {
+		for (int done = 0; done < requests; done += concurrency) {
+			int acquired = 0;
+			while (acquired < concurrency && limit.tryAcquire(1.0)) {
+				acquired++;
+			}
+			for (int i = 0; i < acquired; i++) {
+				limit.release(TimeUnit.MILLISECONDS.toNanos(latencyMillis), true);
+			}
+		}
+	}
+}
@@ -0,0 +1,65 @@
+package com.bdr.backend.limits;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ConcurrencyLimitFilterTests {
+
+	private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private final AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 1, 10, 0.2, 10);
+
+	private final ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(limit, meterRegistry, Duration.ofMillis(1500));
+
+	@Test
+	void requestsAboveTheLimitAreShedWithRetryAfter() throws Exception {
+		hold(10);
+
+		MockHttpServletResponse response = serve("GET", "/api/rentals", null);
+
+		assertThat(response.getStatus()).isEqualTo(503);
+		assertThat(response.getHeader("Retry-After")).isEqualTo("2");
+		assertThat(meterRegistry.get("http.server.shed").tag("class", "read").counter().count()).isEqualTo(1);
+	}
+
+	@Test
+	void readsAreServedWhenLoginsAndUploadsAreShed() throws Exception {
+		hold(6);
+
+		assertThat(serve("POST", "/api/auth/login", "application/json").getStatus()).isEqualTo(503);
+		assertThat(serve("POST", "/api/rentals", "multipart/form-data; boundary=x").getStatus()).isEqualTo(503);
+		assertThat(serve("PUT", "/api/rentals/1", "application/json").getStatus()).isEqualTo(200);
+		assertThat(serve("GET", "/api/rentals", null).getStatus()).isEqualTo(200);
+		assertThat(limit.getInflight()).isEqualTo(6);
+	}
+
+	@Test
+	void actuatorIsNeverShed() throws Exception {
+		hold(10);
+
+		assertThat(serve("GET", "/actuator/health", null).getStatus()).isEqualTo(200);
+	}
+
+	private void hold(int slots) {
+		for (int i = 0; i < slots; i++) {
+			assertThat(limit.tryAcquire(1.0)).isTrue();
+		}
+	}
+
+	private MockHttpServletResponse serve(String method, String uri, String contentType) throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+		request.setContentType(contentType);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(request, response, new MockFilterChain());
+		return response;
+	}
+}
@@ -0,0 +1,281 @@
+package com.bdr.backend.loadtest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.bdr.backend.BackendApplication;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Boot the whole application on H2 (MySQL mode) and run the scenario of a front-end user :
+ * register, login, create rentals with the sample pictures, list and fetch rentals, send messages.
+ * The throughput and p50/p99/p999 of every endpoint are written to target/loadtest/e2e-result.json.
+ * When loadtest.baseline points to a previous result, the test fails if an endpoint got slower
+ * than loadtest.max-regression percent (p99 or throughput).
+ *
+ * mvn -Ploadtest test -Dtest=EndToEndLoadTests -Dloadtest.users=50 -Dloadtest.duration=PT30S
+ * mvn -Ploadtest test -Dtest=EndToEndLoadTests -Dloadtest.baseline=baseline/e2e-result.json
+ * mvn -Ploadtest test -Dtest=EndToEndLoadTests -Dloadtest.dataset=true -Ddataset.rentals=100000 (synthetic dataset loaded first)
+ */
+@Tag("loadtest")
+class EndToEndLoadTests {
+
+	private static final int USERS = Integer.getInteger("loadtest.users", 50);
+	private static final Duration DURATION = Duration.parse(System.getProperty("loadtest.duration", "PT20S"));
+	/** One rental is created every CREATE_EVERY iterations of a user */
+	private static final int CREATE_EVERY = Integer.getInteger("loadtest.create-every", 10);
+	private static final String BASELINE = System.getProperty("loadtest.baseline", "");
+	private static final double MAX_REGRESSION = Double.parseDouble(System.getProperty("loadtest.max-regression", "20"));
+	/** Load the synthetic dataset (dataset.* properties) before the run */
+	private static final boolean DATASET = Boolean.getBoolean("loadtest.dataset");
+
+	private static final Path RESULT = Paths.get("target", "loadtest", "e2e-result.json");
+	private static final Path SAMPLES = Paths.get("src", "main", "resources", "static", "uploads");
+	/** Prefix of the uploaded copies, to remove them after the run */
+	private static final String UPLOAD_PREFIX = "loadtest-";
+
+	private static final List<String> ENDPOINTS = List.of("POST api/auth/register", "POST api/auth/login",
+			"POST api/rentals", "GET api/rentals", "GET api/rentals/{id}", "POST api/messages");
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	private final Map<String, LatencyRecorder> recorders = new LinkedHashMap<>();
+
+	private final List<Path> pictures = new ArrayList<>();
+
+	private HttpClient http;
+
+	private String baseUrl;
+
+	@Test
+	void runTheFrontEndScenario() throws Exception {
+		ENDPOINTS.forEach(endpoint -> recorders.put(endpoint, new LatencyRecorder()));
+		try (DirectoryStream<Path> samples = Files.newDirectoryStream(SAMPLES, "*.jpg")) {
+			samples.forEach(sample -> {
+				if (!sample.getFileName().toString().startsWith(UPLOAD_PREFIX)) {
+					pictures.add(sample);
+				}
+			});
+		}
+
+		try (ConfigurableApplicationContext context = new SpringApplicationBuilder(BackendApplication.class)
+				.profiles(DATASET ? new String[] { "test", "dataset" } : new String[] { "test" })
+				.run("--server.port=0")) {
+
+			baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+			http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+			long deadline = System.nanoTime() + DURATION.toNanos();
+			try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+				for (int user = 0; user < USERS; user++) {
+					clients.submit(() -> {
+						runUser(deadline);
+						return null;
+					});
+				}
+				clients.shutdown();
+				clients.awaitTermination(DURATION.toSeconds() + 120, TimeUnit.SECONDS);
+			}
+		} finally {
+			deleteUploadedPictures();
+		}
+
+		System.out.printf("%n%d users during %s, one rental created every %d iterations%n", USERS, DURATION, CREATE_EVERY);
+		recorders.forEach((endpoint, recorder) -> System.out.println(recorder.summary(endpoint, DURATION)));
+
+		ObjectNode result = writeResult();
+		assertThat(recorders.values()).allMatch(recorder -> recorder.count() > 0);
+		if (!BASELINE.isBlank()) {
+			assertThat(compareWithBaseline(result)).as("endpoints slower than the baseline").isEmpty();
+		}
+	}
+
+	/**
+	 * Scenario of one user, repeated until the deadline
+	 */
+	private void runUser(long deadline) throws Exception {
+		String email = "user-" + UUID.randomUUID() + "@loadtest.com";
+		String password = "loadtest!35";
+		String credentials = "{\"email\": \"" + email + "\", \"password\": \"" + password + "\"";
+
+		JsonNode registered = send("POST api/auth/register", json("/api/auth/register", credentials + ", \"name\": \"Load test\"}"));
+		JsonNode loggedIn = send("POST api/auth/login", json("/api/auth/login", credentials + "}"));
+		if (registered == null || loggedIn == null) {
+			return;
+		}
+		String token = loggedIn.get("token").asText();
+		JsonNode me = objectMapper.readTree(http.send(authenticated("/api/auth/me", token).GET().build(),
+				HttpResponse.BodyHandlers.ofString()).body());
+		int userId = me.get("userId").asInt();
+
+		List<Integer> rentalIds = new ArrayList<>();
+		for (int iteration = 0; System.nanoTime() < deadline; iteration++) {
+			if (iteration % CREATE_EVERY == 0) {
+				send("POST api/rentals", createRental(token));
+			}
+
+			JsonNode rentals = send("GET api/rentals", authenticated("/api/rentals", token).GET().build());
+			if (rentals != null) {
+				rentalIds.clear();
+				rentals.get("rentals").forEach(rental -> rentalIds.add(rental.get("id").asInt()));
+			}
+			if (rentalIds.isEmpty()) {
+				continue;
+			}
+
+			int rentalId = rentalIds.get(ThreadLocalRandom.current().nextInt(rentalIds.size()));
+			send("GET api/rentals/{id}", authenticated("/api/rentals/" + rentalId, token).GET().build());
+			send("POST api/messages", authenticated("/api/messages", token)
+					.header("Content-Type", "application/json")
+					.POST(HttpRequest.BodyPublishers.ofString("{\"message\": \"Is it available in August ?\", "
+							+ "\"user_id\": " + userId + ", \"rental_id\": " + rentalId + "}"))
+					.build());
+		}
+	}
+
+	/**
+	 * Send a request and record its latency in the recorder of the endpoint
+	 *
+	 * @return the response body, null when the request failed
+	 */
+	private JsonNode send(String endpoint, HttpRequest request) {
+		LatencyRecorder recorder = recorders.get(endpoint);
+		long start = System.nanoTime();
+		try {
+			HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+			long latency = System.nanoTime() - start;
+			if (response.statusCode() >= 400) {
+				recorder.recordError();
+				return null;
+			}
+			recorder.record(latency);
+			return response.body().isEmpty() ? objectMapper.nullNode() : objectMapper.readTree(response.body());
+		} catch (Exception e) {
+			recorder.recordError();
+			return null;
+		}
+	}
+
+	private HttpRequest json(String path, String body) {
+		return HttpRequest.newBuilder(URI.create(baseUrl + path))
+				.header("Content-Type", "application/json")
+				.POST(HttpRequest.BodyPublishers.ofString(body))
+				.build();
+	}
+
+	private HttpRequest.Builder authenticated(String path, String token) {
+		return HttpRequest.newBuilder(URI.create(baseUrl + path)).header("Authorization", "Bearer " + token);
+	}
+
+	/**
+	 * Multipart form of the front-end, with one of the sample pictures under a unique name
+	 */
+	private HttpRequest createRental(String token) throws IOException {
+		String boundary = "loadtest" + UUID.randomUUID();
+		Path picture = pictures.get(ThreadLocalRandom.current().nextInt(pictures.size()));
+		String fileName = UPLOAD_PREFIX + UUID.randomUUID() + "-" + picture.getFileName();
+
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		Map<String, String> fields = Map.of("name", "maison " + fileName.hashCode(), "surface", "120", "price", "250000",
+				"description", "Created by the end-to-end load test");
+		for (Map.Entry<String, String> field : fields.entrySet()) {
+			body.write(("--" + boundary + "\r\nContent-Disposition: form-data; name=\"" + field.getKey() + "\"\r\n\r\n"
+					+ field.getValue() + "\r\n").getBytes(StandardCharsets.UTF_8));
+		}
+		body.write(("--" + boundary + "\r\nContent-Disposition: form-data; name=\"picture\"; filename=\"" + fileName
+				+ "\"\r\nContent-Type: image/jpeg\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+		body.write(Files.readAllBytes(picture));
+		body.write(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8));
+
+		return authenticated("/api/rentals", token)
+				.header("Content-Type", "multipart/form-data; boundary=" + boundary)
+				.POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
+				.build();
+	}
+
+	private void deleteUploadedPictures() throws IOException {
+		try (DirectoryStream<Path> uploads = Files.newDirectoryStream(SAMPLES, UPLOAD_PREFIX + "*")) {
+			for (Path upload : uploads) {
+				Files.deleteIfExists(upload);
+			}
+		}
+	}
+
+	private ObjectNode writeResult() throws IOException {
+		ObjectNode result = objectMapper.createObjectNode();
+		result.put("users", USERS);
+		result.put("duration", DURATION.toString());
+		result.put("dataset", DATASET);
+		ObjectNode endpoints = result.putObject("endpoints");
+		recorders.forEach((endpoint, recorder) -> endpoints.putObject(endpoint)
+				.put("requests", recorder.count())
+				.put("errors", recorder.errors())
+				.put("throughput", recorder.count() * 1000.0 / DURATION.toMillis())
+				.put("p50", recorder.percentileMillis(50))
+				.put("p99", recorder.percentileMillis(99))
+				.put("p999", recorder.percentileMillis(99.9)));
+
+		Files.createDirectories(RESULT.getParent());
+		objectMapper.writerWithDefaultPrettyPrinter().writeValue(RESULT.toFile(), result);
+		System.out.println("Result written to " + RESULT.toAbsolutePath());
+		return result;
+	}
+
+	/**
+	 * Print the change of every endpoint compared to the baseline
+	 *
+	 * @return the endpoints whose p99 or throughput regressed more than MAX_REGRESSION percent
+	 */
+	private List<String> compareWithBaseline(ObjectNode result) throws IOException {
+		JsonNode baseline = objectMapper.readTree(new File(BASELINE)).get("endpoints");
+		List<String> regressions = new ArrayList<>();
+		result.get("endpoints").fields().forEachRemaining(entry -> {
+			JsonNode before = baseline.get(entry.getKey());
+			if (before == null) {
+				return;
+			}
+			JsonNode after = entry.getValue();
+			double p99Change = change(before.get("p99").asDouble(), after.get("p99").asDouble());
+			double throughputChange = change(before.get("throughput").asDouble(), after.get("throughput").asDouble());
+			System.out.printf("%-28s p99 %+7.1f%%  throughput %+7.1f%%%n", entry.getKey(), p99Change, throughputChange);
+			if (p99Change > MAX_REGRESSION || -throughputChange > MAX_REGRESSION) {
+				regressions.add(entry.getKey());
+			}
+		});
+		return regressions;
+	}
+
+	private static double change(double before, double after) {
+		return before == 0 ? 0 : (after - before) / before * 100;
+	}
+}
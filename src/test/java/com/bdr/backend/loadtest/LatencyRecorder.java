@@ -0,0 +1,56 @@
+package com.bdr.backend.loadtest;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collect the latencies of one endpoint during a load test
+ */
+class LatencyRecorder {
+
+	private long[] samples = new long[1024];
+	private int count;
+	private final LongAdder errors = new LongAdder();
+
+	synchronized void record(long nanos) {
+		if (count == samples.length) {
+			samples = Arrays.copyOf(samples, count * 2);
+		}
+		samples[count++] = nanos;
+	}
+
+	void recordError() {
+		errors.increment();
+	}
+
+	synchronized int count() {
+		return count;
+	}
+
+	long errors() {
+		return errors.sum();
+	}
+
+	/**
+	 * Get a percentile of the recorded latencies
+	 *
+	 * @param percentile between 0 and 100, for example 99.9
+	 * @return the latency in milliseconds, 0 when nothing was recorded
+	 */
+	synchronized double percentileMillis(double percentile) {
+		if (count == 0) {
+			return 0;
+		}
+		long[] sorted = Arrays.copyOf(samples, count);
+		Arrays.sort(sorted);
+		int index = (int) Math.ceil(percentile / 100 * count) - 1;
+		return sorted[Math.max(0, Math.min(index, count - 1))] / 1_000_000.0;
+	}
+
+	String summary(String name, Duration duration) {
+		return String.format("%-28s %8d req %9.1f req/s  p50 %8.2f ms  p99 %8.2f ms  p999 %8.2f ms  errors %d",
+				name, count(), count() * 1000.0 / duration.toMillis(),
+				percentileMillis(50), percentileMillis(99), percentileMillis(99.9), errors());
+	}
+}
@@ -0,0 +1,139 @@
+package com.bdr.backend.loadtest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.bdr.backend.BackendApplication;
+import com.bdr.backend.configuration.ReactiveConfig;
+import com.bdr.backend.services.JwtService;
+import com.bdr.backend.services.RentalService;
+import com.bdr.backend.services.UserService;
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Compare GET api/rentals (MVC + JPA) with GET api/reactive/rentals (R2DBC stream) :
+ * throughput, latency, database connections per core and heap per in-flight request.
+ *
+ * mvn -Ploadtest test -Dtest=ReactiveReadLoadTests -Dloadtest.concurrency=200 -Dloadtest.rentals=500
+ */
+@Tag("loadtest")
+class ReactiveReadLoadTests {
+
+	private static final int CONCURRENCY = Integer.getInteger("loadtest.concurrency", 200);
+	private static final int RENTALS = Integer.getInteger("loadtest.rentals", 500);
+	private static final Duration DURATION = Duration.parse(System.getProperty("loadtest.duration", "PT10S"));
+
+	private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+
+	@Test
+	void compareBlockingAndReactiveReads() throws Exception {
+		try (ConfigurableApplicationContext context = new SpringApplicationBuilder(BackendApplication.class)
+				.profiles("test", "reactive")
+				.run("--server.port=0",
+						"--spring.datasource.url=jdbc:h2:mem:reactive_load;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+						"--spring.r2dbc.url=r2dbc:h2:mem:///reactive_load;DB_CLOSE_DELAY=-1;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+						"--spring.r2dbc.username=sa", "--spring.r2dbc.password=")) {
+
+			int ownerId = context.getBean(UserService.class).createUser("owner@test.com", "password", "Owner").getUserId();
+			RentalService rentalService = context.getBean(RentalService.class);
+			for (int i = 0; i < RENTALS; i++) {
+				rentalService.createRental("maison " + i, 50 + i % 200, 50000 + i * 10,
+						"/uploads/maison-bord-mer-seloger.jpg", "Load test rental " + i, ownerId);
+			}
+
+			String baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+			String token = context.getBean(JwtService.class).generateToken("owner@test.com");
+			HikariDataSource hikari = context.getBean(DataSource.class).unwrap(HikariDataSource.class);
+			ReactiveConfig reactiveConfig = context.getBean(ReactiveConfig.class);
+
+			Result blocking = run(baseUrl + "/api/rentals", token,
+					() -> hikari.getHikariPoolMXBean().getActiveConnections());
+			Result reactive = run(baseUrl + "/api/reactive/rentals", token,
+					() -> reactiveConfig.getConnectionPool().getMetrics().get().acquiredSize());
+
+			int cores = Runtime.getRuntime().availableProcessors();
+			System.out.printf("%n%d concurrent clients during %s, %d rentals, %d cores%n", CONCURRENCY, DURATION, RENTALS, cores);
+			blocking.print("MVC + JPA  GET api/rentals", cores);
+			reactive.print("R2DBC GET api/reactive/rentals", cores);
+
+			assertThat(blocking.recorder().count()).isPositive();
+			assertThat(reactive.recorder().count()).isPositive();
+		}
+	}
+
+	private Result run(String url, String token, IntSupplier activeConnections) throws Exception {
+		HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+		HttpRequest request = HttpRequest.newBuilder(URI.create(url)).header("Authorization", "Bearer " + token).GET().build();
+		LatencyRecorder recorder = new LatencyRecorder();
+
+		System.gc();
+		long idleHeap = MEMORY.getHeapMemoryUsage().getUsed();
+		AtomicInteger peakConnections = new AtomicInteger();
+		AtomicLong heapSamples = new AtomicLong();
+		AtomicLong heapTotal = new AtomicLong();
+
+		long deadline = System.nanoTime() + DURATION.toNanos();
+		try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+			clients.submit(() -> {
+				while (System.nanoTime() < deadline) {
+					peakConnections.accumulateAndGet(activeConnections.getAsInt(), Math::max);
+					heapTotal.addAndGet(MEMORY.getHeapMemoryUsage().getUsed() - idleHeap);
+					heapSamples.incrementAndGet();
+					Thread.sleep(10);
+				}
+				return null;
+			});
+			for (int client = 0; client < CONCURRENCY; client++) {
+				clients.submit(() -> {
+					while (System.nanoTime() < deadline) {
+						long start = System.nanoTime();
+						try {
+							HttpResponse<Void> response = http.send(request, HttpResponse.BodyHandlers.discarding());
+							if (response.statusCode() == 200) {
+								recorder.record(System.nanoTime() - start);
+							} else {
+								recorder.recordError();
+							}
+						} catch (Exception e) {
+							recorder.recordError();
+						}
+					}
+				});
+			}
+			clients.shutdown();
+			clients.awaitTermination(DURATION.toSeconds() + 60, TimeUnit.SECONDS);
+		}
+		long averageHeap = heapTotal.get() / Math.max(1, heapSamples.get());
+		return new Result(recorder, peakConnections.get(), averageHeap);
+	}
+
+	private record Result(LatencyRecorder recorder, int peakConnections, long averageHeapAboveIdle) {
+
+		void print(String name, int cores) {
+			System.out.println(recorder.summary(name, DURATION));
+			System.out.printf("%-28s peak db connections %d (%.1f per core), ~%d KB heap per in-flight request%n",
+					"", peakConnections, (double) peakConnections / cores, averageHeapAboveIdle / 1024 / CONCURRENCY);
+		}
+	}
+}
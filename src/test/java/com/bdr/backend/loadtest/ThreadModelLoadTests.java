@@ -0,0 +1,126 @@
+package com.bdr.backend.loadtest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.bdr.backend.BackendApplication;
+import com.bdr.backend.services.RentalService;
+
+/**
+ * Compare the Tomcat platform thread pool with the virtual thread mode
+ * on the blocking routes : JDBC (rentals, me) and BCrypt (login).
+ *
+ * mvn -Ploadtest test -Dtest=ThreadModelLoadTests -Dloadtest.concurrency=400 -Dloadtest.duration=PT10S
+ */
+@Tag("loadtest")
+class ThreadModelLoadTests {
+
+	private static final int CONCURRENCY = Integer.getInteger("loadtest.concurrency", 400);
+	private static final Duration DURATION = Duration.parse(System.getProperty("loadtest.duration", "PT10S"));
+	private static final String TOMCAT_THREADS = System.getProperty("loadtest.tomcat-threads", "200");
+
+	private static final String EMAIL = "loadtest@test.com";
+	private static final String PASSWORD = "loadtest!31";
+
+	@Test
+	void comparePlatformAndVirtualThreads() throws Exception {
+		Map<String, LatencyRecorder> platform = run(false);
+		Map<String, LatencyRecorder> virtual = run(true);
+
+		System.out.printf("%n%d concurrent clients during %s, %s Tomcat threads in platform mode%n",
+				CONCURRENCY, DURATION, TOMCAT_THREADS);
+		platform.forEach((route, recorder) -> System.out.println(recorder.summary("platform " + route, DURATION)));
+		virtual.forEach((route, recorder) -> System.out.println(recorder.summary("virtual  " + route, DURATION)));
+
+		assertThat(platform.values()).allMatch(recorder -> recorder.count() > 0);
+		assertThat(virtual.values()).allMatch(recorder -> recorder.count() > 0);
+	}
+
+	private Map<String, LatencyRecorder> run(boolean virtualThreads) throws Exception {
+		try (ConfigurableApplicationContext context = new SpringApplicationBuilder(BackendApplication.class)
+				.profiles("test")
+				.run("--server.port=0",
+						"--spring.threads.virtual.enabled=" + virtualThreads,
+						"--server.tomcat.threads.max=" + TOMCAT_THREADS);
+				ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+
+			String baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+			HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+			String token = register(http, baseUrl);
+			context.getBean(RentalService.class).createRental("maison 1", 170, 540000, "/uploads/maison-bord-mer-seloger.jpg",
+					"Load test rental", 1);
+
+			List<Route> routes = List.of(
+					new Route("GET api/rentals", HttpRequest.newBuilder(URI.create(baseUrl + "/api/rentals"))
+							.header("Authorization", "Bearer " + token).GET().build()),
+					new Route("GET api/auth/me", HttpRequest.newBuilder(URI.create(baseUrl + "/api/auth/me"))
+							.header("Authorization", "Bearer " + token).GET().build()),
+					new Route("POST api/auth/login", HttpRequest.newBuilder(URI.create(baseUrl + "/api/auth/login"))
+							.header("Content-Type", "application/json")
+							.POST(HttpRequest.BodyPublishers.ofString(
+									"{\"email\": \"" + EMAIL + "\", \"password\": \"" + PASSWORD + "\"}"))
+							.build()));
+
+			Map<String, LatencyRecorder> recorders = new LinkedHashMap<>();
+			routes.forEach(route -> recorders.put(route.name(), new LatencyRecorder()));
+
+			long deadline = System.nanoTime() + DURATION.toNanos();
+			for (int client = 0; client < CONCURRENCY; client++) {
+				int firstRoute = client;
+				clients.submit(() -> {
+					for (int i = firstRoute; System.nanoTime() < deadline; i++) {
+						Route route = routes.get(i % routes.size());
+						send(http, route.request(), recorders.get(route.name()));
+					}
+				});
+			}
+			clients.shutdown();
+			clients.awaitTermination(DURATION.toSeconds() + 60, java.util.concurrent.TimeUnit.SECONDS);
+			return recorders;
+		}
+	}
+
+	private static void send(HttpClient http, HttpRequest request, LatencyRecorder recorder) {
+		long start = System.nanoTime();
+		try {
+			HttpResponse<Void> response = http.send(request, HttpResponse.BodyHandlers.discarding());
+			if (response.statusCode() >= 400) {
+				recorder.recordError();
+				return;
+			}
+			recorder.record(System.nanoTime() - start);
+		} catch (Exception e) {
+			recorder.recordError();
+		}
+	}
+
+	private static String register(HttpClient http, String baseUrl) throws Exception {
+		HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/auth/register"))
+				.header("Content-Type", "application/json")
+				.POST(HttpRequest.BodyPublishers.ofString("{\"email\": \"" + EMAIL + "\", \"name\": \"Load test\", "
+						+ "\"password\": \"" + PASSWORD + "\"}"))
+				.build();
+		String body = http.send(request, HttpResponse.BodyHandlers.ofString()).body();
+		return body.replaceAll(".*\"token\"\\s*:\\s*\"([^\"]+)\".*", "$1");
+	}
+
+	private record Route(String name, HttpRequest request) {
+	}
+}
@@ -0,0 +1,133 @@
+package com.bdr.backend.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.bdr.backend.models.entities.Rental;
+import com.bdr.backend.models.entities.User;
+import com.bdr.backend.services.JwtService;
+import com.bdr.backend.services.RentalService;
+import com.bdr.backend.services.UserService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Statement budget of the routes, read from the X-SQL-* headers of the test profile
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class SqlBudgetTests {
+
+	@Autowired
+	private TestRestTemplate restTemplate;
+
+	@Autowired
+	private RentalService rentalService;
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private JwtService jwtService;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	private HttpHeaders authenticated;
+
+	private Rental rental;
+
+	@BeforeEach
+	void setUp() {
+		User owner = userService.getUserByEmail("budget@test.com")
+				.orElseGet(() -> userService.createUser("budget@test.com", "password", "Owner"));
+		rental = rentalService.createRental("maison budget", 90, 250000, "/uploads/maison-bord-mer-seloger.jpg",
+				"description", owner.getUserId());
+
+		authenticated = new HttpHeaders();
+		authenticated.setBearerAuth(jwtService.generateToken("budget@test.com"));
+	}
+
+	@Test
+	void getRentalsIssuesAtMostTwoStatementsThenNone() {
+		assertThat(statements(get("/api/rentals?include=owner"))).isLessThanOrEqualTo(2);
+		assertThat(statements(get("/api/rentals?include=owner"))).isZero();
+	}
+
+	@Test
+	void getRentalIssuesOneStatement() {
+		ResponseEntity<String> response = get("/api/rentals/" + rental.getRentalId());
+
+		assertThat(statements(response)).isEqualTo(1);
+		assertThat(response.getHeaders().getFirst(SqlBudgetResponseAdvice.ROWS_HEADER)).isEqualTo("1");
+	}
+
+	@Test
+	void currentUserIsLookedUpOnlyOnce() {
+		get("/api/auth/me");
+
+		assertThat(statements(get("/api/auth/me"))).isZero();
+	}
+
+	@Test
+	void postingAMessageDoesNotLookUpTheUserAgain() {
+		get("/api/auth/me");
+		HttpHeaders headers = new HttpHeaders(authenticated);
+		headers.setContentType(MediaType.APPLICATION_JSON);
+		Map<String, Object> message = Map.of("message", "Bonjour", "rental_id", rental.getRentalId(), "user_id", 0);
+
+		ResponseEntity<String> response = restTemplate.exchange("/api/messages", HttpMethod.POST,
+				new HttpEntity<>(message, headers), String.class);
+
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(statements(response)).isEqualTo(1);
+	}
+
+	@Test
+	void statementsAreRecordedPerRoute() {
+		get("/api/rentals/" + rental.getRentalId());
+
+		assertThat(meterRegistry.get("http.server.sql.statements").tag("uri", "/api/rentals/{rentalId}")
+				.summary().totalAmount()).isPositive();
+	}
+
+	@Test
+	void mostRepeatedStatementIsTheN1Candidate() {
+		SqlStatistics statistics = SqlStatistics.start();
+		try {
+			statistics.recordStatement("select * from users where id=?", 1000);
+			statistics.recordStatement("select * from rentals", 1000);
+			statistics.recordStatement("select * from users where id=?", 1000);
+
+			assertThat(statistics.getStatements()).isEqualTo(3);
+			assertThat(statistics.mostRepeated()).isEqualTo(Map.entry("select * from users where id=?", 2));
+		} finally {
+			SqlStatistics.end();
+		}
+	}
+
+	private ResponseEntity<String> get(String url) {
+		ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(authenticated),
+				String.class);
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+		return response;
+	}
+
+	private static int statements(ResponseEntity<String> response) {
+		return Integer.parseInt(response.getHeaders().getFirst(SqlBudgetResponseAdvice.STATEMENTS_HEADER));
+	}
+}
@@ -0,0 +1,39 @@
+package com.bdr.backend.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+class SqlCountingDataSourceTests {
+
+	private final SqlCountingDataSource dataSource = new SqlCountingDataSource(
+			new DriverManagerDataSource("jdbc:h2:mem:sql-counting", "sa", ""));
+
+	@Test
+	void connectionOutsideOfARequestIsNotProxied() throws Exception {
+		try (Connection connection = dataSource.getConnection()) {
+			assertThat(Proxy.isProxyClass(connection.getClass())).isFalse();
+		}
+	}
+
+	@Test
+	void statementsOfARecordedRequestAreCounted() throws Exception {
+		SqlStatistics statistics = SqlStatistics.start();
+		try (Connection connection = dataSource.getConnection();
+				Statement statement = connection.createStatement();
+				ResultSet resultSet = statement.executeQuery("SELECT 1")) {
+			assertThat(resultSet.next()).isTrue();
+		} finally {
+			SqlStatistics.end();
+		}
+
+		assertThat(statistics.getStatements()).isEqualTo(1);
+		assertThat(statistics.getRows()).isEqualTo(1);
+	}
+}
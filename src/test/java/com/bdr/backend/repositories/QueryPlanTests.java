@@ -0,0 +1,286 @@
+package com.bdr.backend.repositories;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.bdr.backend.cache.Invalidation;
+import com.bdr.backend.cache.JdbcInvalidationTransport;
+import com.bdr.backend.dataset.DatasetGenerator;
+import com.bdr.backend.metrics.SqlCountingDataSource;
+import com.bdr.backend.metrics.SqlStatistics;
+import com.bdr.backend.models.entities.Message;
+import com.bdr.backend.services.ExportService.Format;
+import com.bdr.backend.servicesImpl.ExportServiceImpl;
+import com.bdr.backend.servicesImpl.InboxServiceImpl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Run every repository query on the schema of the migrations, filled with a small dataset,
+ * and check its H2 execution plan : a query must use its expected indexes,
+ * and only read a whole table when it is meant to (the unpaginated lists).
+ * The SQL written by hand (inbox, exports, cache invalidations) is recorded by a SqlCountingDataSource and checked the same way.
+ * A new finder fails the suite until its expected plan is added to the cases.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+		+ "com.bdr.backend.repositories.RecordingStatementInspector")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+class QueryPlanTests {
+
+	/** Index chosen for a table, or tableScan, in the comments of the H2 plan */
+	private static final Pattern PLAN_ACCESS = Pattern.compile("/\\*\\s*public\\.(\\w+)(?:\\.(tableScan))?");
+
+	private static final String PRIMARY_KEY = "primary_key";
+
+	@Autowired
+	private RentalRepository rentalRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private RentalChangeRepository rentalChangeRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private DataSource dataSource;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	/**
+	 * A repository query and its expected plan
+	 *
+	 * @param name Repository and method, like UserRepository.findByEmail
+	 * @param query Runs the query
+	 * @param indexes The indexes the plan must use
+	 * @param scannedTables The tables the query may read entirely
+	 */
+	private record QueryCase(String name, Runnable query, Set<String> indexes, Set<String> scannedTables) {
+	}
+
+	/** Methods running hand-written SQL, each one needs a case like the finders */
+	private static final List<String> SQL_METHODS = List.of("InboxServiceImpl.getInbox", "InboxServiceImpl.markAsRead",
+			"InboxServiceImpl.flush", "ExportServiceImpl.exportRentals", "ExportServiceImpl.exportMessages",
+			"JdbcInvalidationTransport.subscribe", "JdbcInvalidationTransport.publish", "JdbcInvalidationTransport.receive",
+			"JdbcInvalidationTransport.purge");
+
+	private InboxServiceImpl inboxService;
+
+	private ExportServiceImpl exportService;
+
+	private JdbcInvalidationTransport invalidationTransport;
+
+	/** Owner of the rental 1 */
+	private int ownerId;
+
+	@BeforeEach
+	void setUp() {
+		// Enough rows for the optimizer to prefer the indexes, with statistics.
+		// ANALYZE commits, the rows are kept for the next tests
+		DatasetGenerator generator = new DatasetGenerator(jdbcTemplate, 42, 1000, Instant.parse("2024-06-01T00:00:00Z"));
+		if (!generator.isGenerated()) {
+			generator.generate(200, 1000, 3000);
+			// A third of the rentals changed again, the compaction has something to find
+			jdbcTemplate.update("INSERT INTO rental_changes (rental_id, changed_at) SELECT id, CURRENT_TIMESTAMP FROM rentals "
+					+ "WHERE MOD(id, 3) = 0");
+			jdbcTemplate.update("INSERT INTO inbox_counters (rental_id, unread) SELECT id, 1 FROM rentals WHERE MOD(id, 2) = 0");
+			jdbcTemplate.update("INSERT INTO cache_invalidations (origin, cache_name, cache_key, created_at) "
+					+ "SELECT 'node', 'users', CAST(id AS VARCHAR), CURRENT_TIMESTAMP FROM users");
+			jdbcTemplate.execute("ANALYZE");
+		}
+		ownerId = jdbcTemplate.queryForObject("SELECT owner_id FROM rentals WHERE id = 1", Integer.class);
+
+		// The hand-written SQL goes through a SqlCountingDataSource, recorded while a case runs
+		DataSource recorded = new SqlCountingDataSource(dataSource);
+		inboxService = new InboxServiceImpl();
+		ReflectionTestUtils.setField(inboxService, "jdbcTemplate", new JdbcTemplate(recorded));
+		ReflectionTestUtils.setField(inboxService, "rentalRepository", rentalRepository);
+		ReflectionTestUtils.setField(inboxService, "meterRegistry", new SimpleMeterRegistry());
+		inboxService.registerMetrics();
+		exportService = new ExportServiceImpl();
+		ReflectionTestUtils.setField(exportService, "dataSource", recorded);
+		ReflectionTestUtils.setField(exportService, "fetchSize", 100);
+		ReflectionTestUtils.setField(exportService, "maxDuration", Duration.ofMinutes(1));
+		exportService.initJdbcTemplate();
+		invalidationTransport = new JdbcInvalidationTransport(new JdbcTemplate(recorded), Duration.ofSeconds(2),
+				Duration.ofHours(1));
+		invalidationTransport.subscribe("other-node");
+	}
+
+	private List<QueryCase> cases() {
+		return List.of(
+				new QueryCase("UserRepository.findByEmail", () -> userRepository.findByEmail("user1" + DatasetGenerator.EMAIL_DOMAIN),
+						Set.of("users_index"), Set.of()),
+				new QueryCase("UserRepository.findById", () -> userRepository.findById(1), Set.of(PRIMARY_KEY), Set.of()),
+				new QueryCase("UserRepository.findAllById", () -> userRepository.findAllById(List.of(1, 2, 3)),
+						Set.of(PRIMARY_KEY), Set.of()),
+				new QueryCase("UserRepository.findAll", () -> userRepository.findAll(), Set.of(), Set.of("users")),
+				new QueryCase("RentalRepository.findById", () -> rentalRepository.findById(1), Set.of(PRIMARY_KEY), Set.of()),
+				new QueryCase("RentalRepository.findAll", () -> rentalRepository.findAll(), Set.of(), Set.of("rentals")),
+				new QueryCase("RentalRepository.findAllWithOwner", () -> rentalRepository.findAllWithOwner(),
+						Set.of(PRIMARY_KEY), Set.of("rentals")),
+				new QueryCase("RentalRepository.findFiguresAfter", () -> rentalRepository.findFiguresAfter(500, Limit.of(100)),
+						Set.of(PRIMARY_KEY), Set.of()),
+				// Answered from the end of an index without reading the rows, whichever index the planner picks
+				new QueryCase("RentalChangeRepository.findLastSeq", () -> rentalChangeRepository.findLastSeq(),
+						Set.of(), Set.of()),
+				new QueryCase("RentalChangeRepository.findBySeqGreaterThanOrderBySeq",
+						() -> rentalChangeRepository.findBySeqGreaterThanOrderBySeq(500, Limit.of(100)),
+						Set.of(PRIMARY_KEY), Set.of()),
+				// The compaction reads the whole feed on purpose, each change is checked with the index
+				new QueryCase("RentalChangeRepository.findSupersededSeqs",
+						() -> rentalChangeRepository.findSupersededSeqs(Limit.of(1000)),
+						Set.of("idx_rental_changes_rental_seq"), Set.of("rental_changes")),
+				new QueryCase("RentalChangeRepository.deleteBySeqIn",
+						() -> rentalChangeRepository.deleteBySeqIn(List.of(1L, 2L)), Set.of(PRIMARY_KEY), Set.of()),
+				new QueryCase("InboxServiceImpl.getInbox", () -> inboxService.getInbox(ownerId),
+						Set.of("idx_owner_id"), Set.of()),
+				// The last message of the rental, then the upsert of its counter
+				new QueryCase("InboxServiceImpl.markAsRead", () -> inboxService.markAsRead(ownerId, 1), Set.of(), Set.of()),
+				new QueryCase("InboxServiceImpl.flush", () -> {
+					inboxService.messageReceived(message(1));
+					inboxService.flush();
+				}, Set.of(PRIMARY_KEY), Set.of()),
+				// The full export reads the table in the order of the primary key, not with a scan and a sort
+				new QueryCase("ExportServiceImpl.exportRentals",
+						() -> export(writer -> exportService.exportRentals(Format.CSV, null, null, null, 0, writer)),
+						Set.of(PRIMARY_KEY), Set.of()),
+				// Through the rentals of the owner or the messages from the id, whichever index the planner picks
+				new QueryCase("ExportServiceImpl.exportMessages",
+						() -> export(writer -> exportService.exportMessages(Format.CSV, null, null, ownerId, 0, writer)),
+						Set.of(), Set.of()),
+				new QueryCase("JdbcInvalidationTransport.subscribe", () -> invalidationTransport.subscribe("node"),
+						Set.of(), Set.of()),
+				new QueryCase("JdbcInvalidationTransport.publish", () -> invalidationTransport.publish("node",
+						List.of(new Invalidation("users", "1"))), Set.of(), Set.of()),
+				new QueryCase("JdbcInvalidationTransport.receive", () -> invalidationTransport.receive("other-node"),
+						Set.of(PRIMARY_KEY), Set.of()),
+				new QueryCase("JdbcInvalidationTransport.purge", () -> invalidationTransport.purge(),
+						Set.of("idx_cache_invalidations_created"), Set.of()));
+	}
+
+	private interface Export {
+		void run(Writer writer) throws IOException;
+	}
+
+	private static void export(Export export) {
+		try {
+			export.run(Writer.nullWriter());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private Message message(int rentalId) {
+		Message message = new Message();
+		message.setMessageId(Integer.MAX_VALUE);
+		message.setRentalId(rentalId);
+		message.setUserId(ownerId + 1);
+		return message;
+	}
+
+	@TestFactory
+	Stream<DynamicTest> queriesUseTheirIndexes() {
+		return cases().stream().map(queryCase -> DynamicTest.dynamicTest(queryCase.name(), () -> {
+			entityManager.clear();
+			RecordingStatementInspector.clear();
+			SqlStatistics recorded = SqlStatistics.start();
+			try {
+				queryCase.query().run();
+			} finally {
+				SqlStatistics.end();
+			}
+			List<String> statements = new ArrayList<>(RecordingStatementInspector.statements());
+			statements.addAll(recorded.distinctStatements());
+			assertThat(statements).as("SQL of %s", queryCase.name()).isNotEmpty();
+
+			for (String sql : statements) {
+				String plan = explain(sql);
+				assertThat(scannedTables(plan)).as("Full scans of %s in%n%s", queryCase.name(), plan)
+						.isSubsetOf(queryCase.scannedTables());
+				for (String index : queryCase.indexes()) {
+					assertThat(usedIndexes(plan)).as("Indexes of %s in%n%s", queryCase.name(), plan)
+							.anyMatch(used -> used.startsWith(index));
+				}
+			}
+		}));
+	}
+
+	@Test
+	void everyFinderHasAnExpectedPlan() {
+		Set<String> covered = cases().stream().map(QueryCase::name).collect(Collectors.toSet());
+		List<String> finders = new ArrayList<>();
+		for (Class<?> repository : List.of(RentalRepository.class, UserRepository.class, MessageRepository.class,
+				RentalChangeRepository.class)) {
+			Arrays.stream(repository.getDeclaredMethods()).map(Method::getName).distinct()
+					.forEach(method -> finders.add(repository.getSimpleName() + "." + method));
+		}
+		finders.addAll(SQL_METHODS);
+
+		assertThat(covered).containsAll(finders);
+	}
+
+	@Test
+	void unindexedQueryIsDetected() {
+		String plan = explain("SELECT * FROM messages WHERE message = ?");
+
+		assertThat(scannedTables(plan)).containsExactly("messages");
+	}
+
+	private String explain(String sql) {
+		return jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class);
+	}
+
+	private static Set<String> scannedTables(String plan) {
+		return accesses(plan, true);
+	}
+
+	private static Set<String> usedIndexes(String plan) {
+		return accesses(plan, false);
+	}
+
+	private static Set<String> accesses(String plan, boolean scans) {
+		Set<String> names = new HashSet<>();
+		Matcher matcher = PLAN_ACCESS.matcher(plan);
+		while (matcher.find()) {
+			if ((matcher.group(2) != null) == scans) {
+				names.add(matcher.group(1).toLowerCase());
+			}
+		}
+		return names;
+	}
+}
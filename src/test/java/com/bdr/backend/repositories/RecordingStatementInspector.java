@@ -0,0 +1,28 @@
+package com.bdr.backend.repositories;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Keeps the SQL generated by Hibernate, so that its plan can be checked
+ */
+public class RecordingStatementInspector implements StatementInspector {
+
+	private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+	@Override
+	public String inspect(String sql) {
+		STATEMENTS.add(sql);
+		return sql;
+	}
+
+	static List<String> statements() {
+		return List.copyOf(STATEMENTS);
+	}
+
+	static void clear() {
+		STATEMENTS.clear();
+	}
+}
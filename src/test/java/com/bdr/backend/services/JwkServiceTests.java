@@ -0,0 +1,65 @@
+package com.bdr.backend.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.server.ResponseStatusException;
+
+@JdbcTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+class JwkServiceTests {
+
+	private static final Duration ROTATION = Duration.ofHours(12);
+	private static final Duration RETENTION = Duration.ofDays(1);
+
+	@Autowired
+	private DataSource dataSource;
+
+	@Test
+	void nodesSharingTheDatabaseSignWithTheSameKey() {
+		JwkService nodeA = new JwkService(dataSource, ROTATION, RETENTION, "");
+		JwkService nodeB = new JwkService(dataSource, ROTATION, RETENTION, "");
+
+		assertThat(nodeB.getCurrentKeyId()).isEqualTo(nodeA.getCurrentKeyId());
+	}
+
+	@Test
+	void restartedNodeKeepsItsKeys() {
+		String keyId = new JwkService(dataSource, ROTATION, RETENTION, "").getCurrentKeyId();
+
+		JwkService restarted = new JwkService(dataSource, ROTATION, RETENTION, "");
+
+		assertThat(restarted.getCurrentKeyId()).isEqualTo(keyId);
+		assertThat(restarted.getPublicJwkSet().getKeyByKeyId(keyId).isPrivate()).isFalse();
+	}
+
+	@Test
+	void rotatedKeyStillVerifiesDuringTheRetention() {
+		JwkService node = new JwkService(dataSource, Duration.ZERO, RETENTION, "");
+		String retiredKeyId = node.getCurrentKeyId();
+
+		node.refresh();
+
+		assertThat(node.getCurrentKeyId()).isNotEqualTo(retiredKeyId);
+		assertThat(node.getPublicJwkSet().getKeyByKeyId(retiredKeyId)).isNotNull();
+	}
+
+	@Test
+	void verifyingNodeIssuesNoToken() {
+		JwkService verifier = new JwkService(dataSource, ROTATION, RETENTION, "http://issuer:3001/.well-known/jwks.json");
+
+		assertThatThrownBy(verifier::getCurrentKeyId).isInstanceOfSatisfying(ResponseStatusException.class,
+				e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE));
+	}
+}
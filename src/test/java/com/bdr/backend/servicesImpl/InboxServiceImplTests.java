@@ -0,0 +1,155 @@
+package com.bdr.backend.servicesImpl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.time.Instant;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.bdr.backend.models.dtos.InboxDto;
+import com.bdr.backend.models.entities.Message;
+import com.bdr.backend.models.entities.Rental;
+import com.bdr.backend.models.entities.User;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import({ InboxServiceImpl.class, MessageServiceImpl.class, RentalServiceImpl.class, RentalChangeServiceImpl.class,
+		SimpleMeterRegistry.class })
+class InboxServiceImplTests {
+
+	@Autowired
+	private InboxServiceImpl inboxService;
+
+	@Autowired
+	private MessageServiceImpl messageService;
+
+	@Autowired
+	private RentalServiceImpl rentalService;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	private User owner;
+
+	private User guest;
+
+	private Rental house;
+
+	private Rental flat;
+
+	@BeforeEach
+	void setUp() {
+		owner = persistUser("owner@test.com");
+		guest = persistUser("guest@test.com");
+		house = rentalService.createRental("maison", 50, 100000, "/uploads/a.jpg", "description", owner.getUserId());
+		flat = rentalService.createRental("appartement", 30, 80000, "/uploads/a.jpg", "description", owner.getUserId());
+		entityManager.flush();
+	}
+
+	@Test
+	void messagesAreCountedBeforeAndAfterTheFlush() {
+		messageService.createMessage("Bonjour", guest.getUserId(), house.getRentalId());
+		messageService.createMessage("Disponible ?", guest.getUserId(), house.getRentalId());
+		// The answer of the owner is not unread for them
+		messageService.createMessage("Oui", owner.getUserId(), house.getRentalId());
+
+		InboxDto beforeFlush = inboxService.getInbox(owner.getUserId());
+		inboxService.flush();
+		messageService.createMessage("Et celui-ci ?", guest.getUserId(), flat.getRentalId());
+		messageService.createMessage("Merci", guest.getUserId(), house.getRentalId());
+		InboxDto afterFlush = inboxService.getInbox(owner.getUserId());
+
+		assertThat(beforeFlush.getTotal()).isEqualTo(2);
+		assertThat(readCounter(house)).isEqualTo(2);
+		assertThat(afterFlush.getTotal()).isEqualTo(4);
+		assertThat(afterFlush.getRentals()).extracting("rental_id", "unread")
+				.containsExactly(tuple(house.getRentalId(), 3), tuple(flat.getRentalId(), 1));
+		assertThat(inboxService.getInbox(guest.getUserId()).getTotal()).isZero();
+
+		inboxService.flush();
+		assertThat(readCounter(house)).isEqualTo(3);
+		assertThat(inboxService.getInbox(owner.getUserId()).getTotal()).isEqualTo(4);
+	}
+
+	@Test
+	void markAsReadResetsTheFlushedAndPendingMessages() {
+		messageService.createMessage("Bonjour", guest.getUserId(), house.getRentalId());
+		inboxService.flush();
+		messageService.createMessage("Disponible ?", guest.getUserId(), house.getRentalId());
+		messageService.createMessage("Et celui-ci ?", guest.getUserId(), flat.getRentalId());
+
+		inboxService.markAsRead(owner.getUserId(), house.getRentalId());
+		inboxService.flush();
+
+		InboxDto inbox = inboxService.getInbox(owner.getUserId());
+		assertThat(inbox.getTotal()).isEqualTo(1);
+		assertThat(inbox.getRentals()).extracting("rental_id").containsExactly(flat.getRentalId());
+		assertThat(readCounter(house)).isZero();
+	}
+
+	@Test
+	void flushOfAnotherNodeAfterTheReadOnlyCountsTheNewMessages() {
+		InboxServiceImpl otherNode = new InboxServiceImpl();
+		ReflectionTestUtils.setField(otherNode, "jdbcTemplate", jdbcTemplate);
+		ReflectionTestUtils.setField(otherNode, "meterRegistry", meterRegistry);
+		otherNode.registerMetrics();
+		otherNode.messageReceived(persistMessage("Bonjour"));
+
+		// Read on this node while the message is still in the memory of the other node
+		inboxService.markAsRead(owner.getUserId(), house.getRentalId());
+		otherNode.messageReceived(persistMessage("Toujours disponible ?"));
+		otherNode.flush();
+
+		assertThat(readCounter(house)).isEqualTo(1);
+	}
+
+	@Test
+	void onlyTheOwnerMarksAsRead() {
+		assertThatThrownBy(() -> inboxService.markAsRead(guest.getUserId(), house.getRentalId()))
+				.isInstanceOf(ResponseStatusException.class);
+	}
+
+	private int readCounter(Rental rental) {
+		return jdbcTemplate.queryForObject("SELECT unread FROM inbox_counters WHERE rental_id = ?", Integer.class,
+				rental.getRentalId());
+	}
+
+	private Message persistMessage(String text) {
+		Message message = new Message();
+		message.setMessage(text);
+		message.setUserId(guest.getUserId());
+		message.setRentalId(house.getRentalId());
+		message.setCreatedAt(Instant.now());
+		return entityManager.persistAndFlush(message);
+	}
+
+	private User persistUser(String email) {
+		User user = new User();
+		user.setEmail(email);
+		user.setName(email);
+		user.setPassword("hash");
+		return entityManager.persist(user);
+	}
+}
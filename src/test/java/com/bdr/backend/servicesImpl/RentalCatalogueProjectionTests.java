@@ -0,0 +1,127 @@
+package com.bdr.backend.servicesImpl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.bdr.backend.models.entities.User;
+import com.bdr.backend.repositories.RentalChangeRepository;
+import com.bdr.backend.repositories.RentalRepository;
+import com.bdr.backend.services.RentalChangeService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DataJpaTest(properties = "rentals.changes.settle=PT0S")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import({ RentalCatalogueProjection.class, RentalStatsServiceImpl.class, RentalFacetServiceImpl.class,
+		RentalChangeServiceImpl.class, RentalServiceImpl.class, SimpleMeterRegistry.class })
+class RentalCatalogueProjectionTests {
+
+	@Autowired
+	private RentalCatalogueProjection catalogueProjection;
+
+	@Autowired
+	private RentalStatsServiceImpl rentalStatsService;
+
+	@Autowired
+	private RentalFacetServiceImpl rentalFacetService;
+
+	@Autowired
+	private RentalServiceImpl rentalService;
+
+	@Autowired
+	private RentalRepository rentalRepository;
+
+	@Autowired
+	private RentalChangeRepository rentalChangeRepository;
+
+	@Autowired
+	private RentalChangeService rentalChangeService;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	private User alice;
+
+	@BeforeEach
+	void setUp() {
+		User user = new User();
+		user.setEmail("alice@test.com");
+		user.setName("Alice");
+		user.setPassword("hash");
+		alice = entityManager.persist(user);
+	}
+
+	@Test
+	void oneScanAndOneFeedFillEveryView() {
+		rentalService.createRental("maison 1", 50, 100000, "/uploads/a.jpg", "description", alice.getUserId());
+		catalogueProjection.rebuild();
+		rentalService.createRental("maison 2", 100, 300000, "/uploads/a.jpg", "description", alice.getUserId());
+		catalogueProjection.followFeed();
+
+		assertThat(rentalStatsService.getStats().getCount()).isEqualTo(2);
+		assertThat(rentalFacetService.getFacets(null, null, null, null, null).getCount()).isEqualTo(2);
+	}
+
+	@Test
+	void concurrentFirstRequestsScanOnce() throws Exception {
+		// The context projection is already built at startup, a new one is not
+		RentalCatalogueProjection projection = new RentalCatalogueProjection();
+		ReflectionTestUtils.setField(projection, "rentalRepository", rentalRepository);
+		ReflectionTestUtils.setField(projection, "rentalChangeRepository", rentalChangeRepository);
+		ReflectionTestUtils.setField(projection, "rentalChangeService", rentalChangeService);
+		AtomicInteger rebuilds = new AtomicInteger();
+		projection.register(new RentalCatalogueProjection.View() {
+
+			@Override
+			public RentalCatalogueProjection.Rebuild startRebuild() {
+				rebuilds.incrementAndGet();
+				return new RentalCatalogueProjection.Rebuild() {
+
+					@Override
+					public void apply(int rentalId, int price, int surface, int ownerId) {
+					}
+
+					@Override
+					public void install() {
+					}
+				};
+			}
+
+			@Override
+			public void apply(int rentalId, int price, int surface, int ownerId) {
+			}
+		});
+
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<?>> requests = new ArrayList<>();
+			for (int i = 0; i < 8; i++) {
+				requests.add(executor.submit(projection::build));
+			}
+			for (Future<?> request : requests) {
+				request.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+
+		assertThat(rebuilds).hasValue(1);
+	}
+}
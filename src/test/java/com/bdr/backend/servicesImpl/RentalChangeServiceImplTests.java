@@ -0,0 +1,152 @@
+package com.bdr.backend.servicesImpl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.bdr.backend.models.dtos.RentalChangesDto;
+import com.bdr.backend.models.dtos.RentalDto;
+import com.bdr.backend.models.entities.Rental;
+import com.bdr.backend.models.entities.RentalChange;
+import com.bdr.backend.models.entities.User;
+import com.bdr.backend.repositories.RentalChangeRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DataJpaTest(properties = "rentals.changes.settle=PT0S")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import({ RentalChangeServiceImpl.class, RentalServiceImpl.class, SimpleMeterRegistry.class })
+class RentalChangeServiceImplTests {
+
+	@Autowired
+	private RentalChangeServiceImpl rentalChangeService;
+
+	@Autowired
+	private RentalServiceImpl rentalService;
+
+	@Autowired
+	private RentalChangeRepository rentalChangeRepository;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	private User owner;
+
+	@BeforeEach
+	void setUp() {
+		owner = new User();
+		owner.setEmail("owner@test.com");
+		owner.setName("Owner");
+		owner.setPassword("hash");
+		entityManager.persist(owner);
+	}
+
+	@Test
+	void syncGetsOnlyTheChangesAfterTheCursor() {
+		createRental("maison 1");
+		Rental second = createRental("maison 2");
+		createRental("maison 3");
+
+		RentalChangesDto full = rentalChangeService.getChangesSince(0, 100);
+		assertThat(names(full)).containsExactly("maison 1", "maison 2", "maison 3");
+		assertThat(full.isHasMore()).isFalse();
+
+		rentalService.updateRental(second.getRentalId(), "maison 2 rénovée", null, null, null, null, null);
+		RentalChangesDto delta = rentalChangeService.getChangesSince(full.getCursor(), 100);
+		assertThat(names(delta)).containsExactly("maison 2 rénovée");
+
+		RentalChangesDto nothing = rentalChangeService.getChangesSince(delta.getCursor(), 100);
+		assertThat(nothing.getRentals()).isEmpty();
+		assertThat(nothing.getCursor()).isEqualTo(delta.getCursor());
+	}
+
+	@Test
+	void pagesResumeFromTheirCursor() {
+		for (int i = 1; i <= 5; i++) {
+			createRental("maison " + i);
+		}
+
+		List<String> synced = new ArrayList<>();
+		long cursor = 0;
+		RentalChangesDto page;
+		int pages = 0;
+		do {
+			page = rentalChangeService.getChangesSince(cursor, 2);
+			synced.addAll(names(page));
+			cursor = page.getCursor();
+			pages++;
+		} while (page.isHasMore());
+
+		assertThat(pages).isEqualTo(3);
+		assertThat(synced).containsExactly("maison 1", "maison 2", "maison 3", "maison 4", "maison 5");
+	}
+
+	@Test
+	void settledChangesAfterAYoungerOneWaitForIt() {
+		Rental first = createRental("maison 1");
+		Rental second = createRental("maison 2");
+		long cursor = rentalChangeService.getChangesSince(0, 100).getCursor();
+		ReflectionTestUtils.setField(rentalChangeService, "settle", Duration.ofMinutes(1));
+		try {
+			// The lower seq was stamped later, by a slower clock or a later call to Instant.now()
+			RentalChange young = saveChange(first, Instant.now());
+			saveChange(second, Instant.now().minus(Duration.ofHours(1)));
+
+			RentalChangesDto waiting = rentalChangeService.getChangesSince(cursor, 100);
+			assertThat(waiting.getRentals()).isEmpty();
+			assertThat(waiting.getCursor()).isEqualTo(cursor);
+			assertThat(waiting.isHasMore()).isFalse();
+
+			young.setChangedAt(Instant.now().minus(Duration.ofMinutes(2)));
+			rentalChangeRepository.save(young);
+			assertThat(names(rentalChangeService.getChangesSince(cursor, 100))).containsExactly("maison 1", "maison 2");
+		} finally {
+			ReflectionTestUtils.setField(rentalChangeService, "settle", Duration.ZERO);
+		}
+	}
+
+	@Test
+	void compactionKeepsTheLastChangeOfEachRental() {
+		Rental rental = createRental("maison 1");
+		createRental("maison 2");
+		long cursor = rentalChangeService.getChangesSince(0, 100).getCursor();
+		rentalService.updateRental(rental.getRentalId(), "maison 1 bis", null, null, null, null, null);
+		rentalService.updateRental(rental.getRentalId(), "maison 1 ter", null, null, null, null, null);
+
+		assertThat(rentalChangeService.compact()).isEqualTo(2);
+		assertThat(rentalChangeRepository.count()).isEqualTo(2);
+		assertThat(names(rentalChangeService.getChangesSince(0, 100))).containsExactly("maison 2", "maison 1 ter");
+		// A cursor read before the compaction is still valid
+		assertThat(names(rentalChangeService.getChangesSince(cursor, 100))).containsExactly("maison 1 ter");
+	}
+
+	private Rental createRental(String name) {
+		return rentalService.createRental(name, 80, 120000, "/uploads/belle-maison-archi-LCL.jpg", "description",
+				owner.getUserId());
+	}
+
+	private RentalChange saveChange(Rental rental, Instant changedAt) {
+		RentalChange change = new RentalChange();
+		change.setRentalId(rental.getRentalId());
+		change.setChangedAt(changedAt);
+		return rentalChangeRepository.save(change);
+	}
+
+	private static List<String> names(RentalChangesDto page) {
+		return page.getRentals().stream().map(RentalDto::getName).toList();
+	}
+}
@@ -0,0 +1,147 @@
+package com.bdr.backend.servicesImpl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.bdr.backend.models.dtos.RentalFacetsDto;
+import com.bdr.backend.models.entities.Rental;
+import com.bdr.backend.models.entities.User;
+import com.bdr.backend.servicesImpl.RentalColumns.FacetCounts;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DataJpaTest(properties = { "rentals.changes.settle=PT0S", "rentals.facets.price-buckets=200000,400000",
+		"rentals.facets.surface-buckets=80" })
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import({ RentalFacetServiceImpl.class, RentalCatalogueProjection.class, RentalChangeServiceImpl.class, RentalServiceImpl.class,
+		SimpleMeterRegistry.class })
+class RentalFacetServiceImplTests {
+
+	@Autowired
+	private RentalFacetServiceImpl rentalFacetService;
+
+	@Autowired
+	private RentalCatalogueProjection catalogueProjection;
+
+	@Autowired
+	private RentalServiceImpl rentalService;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	private User alice;
+
+	private User bob;
+
+	@BeforeEach
+	void setUp() {
+		alice = persistUser("alice@test.com");
+		bob = persistUser("bob@test.com");
+	}
+
+	@Test
+	void eachFacetIgnoresItsOwnFilter() {
+		rentalService.createRental("maison 1", 50, 100000, "/uploads/a.jpg", "description", alice.getUserId());
+		rentalService.createRental("maison 2", 100, 300000, "/uploads/a.jpg", "description", alice.getUserId());
+		rentalService.createRental("maison 3", 120, 500000, "/uploads/a.jpg", "description", bob.getUserId());
+		catalogueProjection.rebuild();
+
+		RentalFacetsDto facets = rentalFacetService.getFacets(250000, null, null, null, null);
+
+		assertThat(facets.getCount()).isEqualTo(2);
+		// The price buckets still count the rentals below the minimum price
+		assertThat(facets.getPrice()).extracting("from", "to", "count")
+				.containsExactly(tuple(0, 200000, 1), tuple(200000, 400000, 1), tuple(400000, null, 1));
+		assertThat(facets.getSurface()).extracting("count").containsExactly(0, 2);
+		assertThat(facets.getOwners()).extracting("owner_id", "count")
+				.containsExactly(tuple(alice.getUserId(), 1), tuple(bob.getUserId(), 1));
+	}
+
+	@Test
+	void changesAreAppliedWithoutRebuild() {
+		Rental rental = rentalService.createRental("maison 1", 50, 100000, "/uploads/a.jpg", "description", alice.getUserId());
+		catalogueProjection.rebuild();
+
+		rentalService.createRental("maison 2", 100, 900000, "/uploads/a.jpg", "description", bob.getUserId());
+		rentalService.updateRental(rental.getRentalId(), null, null, 300000, null, null, bob.getUserId());
+		catalogueProjection.followFeed();
+		RentalFacetsDto facets = rentalFacetService.getFacets(null, null, null, null, bob.getUserId());
+
+		assertThat(facets.getCount()).isEqualTo(2);
+		assertThat(facets.getPrice()).extracting("count").containsExactly(0, 1, 1);
+		assertThat(facets.getOwners()).extracting("owner_id", "count").containsExactly(tuple(bob.getUserId(), 2));
+	}
+
+	@Test
+	void columnsGiveTheSameCountsAsAScan() {
+		int[] priceEdges = { 100000, 250000, 500000 };
+		int[] surfaceEdges = { 40, 90 };
+		RentalColumns columns = new RentalColumns(priceEdges, surfaceEdges);
+		SplittableRandom random = new SplittableRandom(7);
+		Map<Integer, int[]> rentals = new HashMap<>();
+		// More rows than the initial capacity, some of them updated
+		for (int i = 0; i < 5000; i++) {
+			int rentalId = 1 + random.nextInt(3000);
+			int[] figures = { random.nextInt(800000), 10 + random.nextInt(200), 1 + random.nextInt(30) };
+			rentals.put(rentalId, figures);
+			columns.apply(rentalId, figures[0], figures[1], figures[2]);
+		}
+
+		FacetCounts counts = columns.count(150000, 600000, null, 120, 3, 5);
+
+		int count = 0;
+		int[] prices = new int[priceEdges.length + 1];
+		int[] surfaces = new int[surfaceEdges.length + 1];
+		int[] owners = new int[31];
+		for (int[] figures : rentals.values()) {
+			boolean price = figures[0] >= 150000 && figures[0] <= 600000;
+			boolean surface = figures[1] <= 120;
+			boolean owner = figures[2] == 3;
+			count += price && surface && owner ? 1 : 0;
+			prices[bucket(priceEdges, figures[0])] += surface && owner ? 1 : 0;
+			surfaces[bucket(surfaceEdges, figures[1])] += price && owner ? 1 : 0;
+			owners[figures[2]] += price && surface ? 1 : 0;
+		}
+		assertThat(columns.size()).isEqualTo(rentals.size());
+		assertThat(counts.count()).isEqualTo(count);
+		assertThat(counts.prices()).containsExactly(prices);
+		assertThat(counts.surfaces()).containsExactly(surfaces);
+		assertThat(counts.owners()).hasSize(5);
+		for (int i = 0; i < counts.owners().length; i++) {
+			assertThat(counts.ownerCounts()[i]).isEqualTo(owners[counts.owners()[i]]);
+			if (i > 0) {
+				assertThat(counts.ownerCounts()[i]).isLessThanOrEqualTo(counts.ownerCounts()[i - 1]);
+			}
+		}
+	}
+
+	private static int bucket(int[] edges, int value) {
+		int bucket = 0;
+		while (bucket < edges.length && value >= edges[bucket]) {
+			bucket++;
+		}
+		return bucket;
+	}
+
+	private User persistUser(String email) {
+		User user = new User();
+		user.setEmail(email);
+		user.setName(email);
+		user.setPassword("hash");
+		return entityManager.persist(user);
+	}
+}
@@ -0,0 +1,84 @@
+package com.bdr.backend.servicesImpl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.bdr.backend.models.dtos.RentalDto;
+import com.bdr.backend.models.entities.Rental;
+import com.bdr.backend.models.entities.User;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import({ RentalServiceImpl.class, SimpleMeterRegistry.class })
+class RentalServiceImplTests {
+
+	@Autowired
+	private RentalServiceImpl rentalService;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	private Statistics statistics;
+
+	@BeforeEach
+	void setUp() {
+		User alice = persistUser("alice@test.com", "Alice");
+		User bob = persistUser("bob@test.com", "Bob");
+		persistRental("maison 1", alice);
+		persistRental("maison 2", alice);
+		persistRental("maison 3", bob);
+		entityManager.flush();
+		entityManager.clear();
+
+		statistics = entityManager.getEntityManager().getEntityManagerFactory()
+				.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+	}
+
+	@Test
+	void getAllRentalsWithOwnerIssuesASingleStatement() {
+		List<RentalDto> rentals = rentalService.getAllRentals(true).get("rentals");
+
+		assertThat(rentals).hasSize(3);
+		assertThat(rentals).extracting(rental -> rental.getOwner().getName())
+				.containsExactlyInAnyOrder("Alice", "Alice", "Bob");
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+	}
+
+	@Test
+	void getAllRentalsWithoutOwnerDoesNotEmbedIt() {
+		List<RentalDto> rentals = rentalService.getAllRentals(false).get("rentals");
+
+		assertThat(rentals).hasSize(3).allMatch(rental -> rental.getOwner() == null);
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+	}
+
+	private User persistUser(String email, String name) {
+		User user = new User();
+		user.setEmail(email);
+		user.setName(name);
+		return entityManager.persist(user);
+	}
+
+	private void persistRental(String name, User owner) {
+		Rental rental = new Rental();
+		rental.setName(name);
+		rental.setOwnerId(owner.getUserId());
+		entityManager.persist(rental);
+	}
+}
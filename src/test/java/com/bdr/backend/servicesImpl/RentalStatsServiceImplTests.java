@@ -0,0 +1,106 @@
+package com.bdr.backend.servicesImpl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.bdr.backend.models.dtos.RentalStatsDto;
+import com.bdr.backend.models.entities.Rental;
+import com.bdr.backend.models.entities.User;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DataJpaTest(properties = "rentals.changes.settle=PT0S")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import({ RentalStatsServiceImpl.class, RentalCatalogueProjection.class, RentalChangeServiceImpl.class, RentalServiceImpl.class,
+		SimpleMeterRegistry.class })
+class RentalStatsServiceImplTests {
+
+	@Autowired
+	private RentalStatsServiceImpl rentalStatsService;
+
+	@Autowired
+	private RentalCatalogueProjection catalogueProjection;
+
+	@Autowired
+	private RentalServiceImpl rentalService;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	private User alice;
+
+	private User bob;
+
+	@BeforeEach
+	void setUp() {
+		alice = persistUser("alice@test.com");
+		bob = persistUser("bob@test.com");
+	}
+
+	@Test
+	void statsAreBuiltFromAllTheRentals() {
+		rentalService.createRental("maison 1", 50, 100000, "/uploads/a.jpg", "description", alice.getUserId());
+		rentalService.createRental("maison 2", 100, 300000, "/uploads/a.jpg", "description", alice.getUserId());
+		rentalService.createRental("maison 3", 200, 500000, "/uploads/a.jpg", "description", bob.getUserId());
+		catalogueProjection.rebuild();
+
+		RentalStatsDto stats = rentalStatsService.getStats();
+
+		assertThat(stats.getCount()).isEqualTo(3);
+		assertThat(stats.getPrice().getMean()).isEqualTo(300000);
+		assertThat(stats.getPrice().getP50()).isCloseTo(300000, within(3000.0));
+		assertThat(stats.getSurface().getMax()).isCloseTo(200, within(2.0));
+		assertThat(stats.getPricePerSquareMeter().getMin()).isCloseTo(2000, within(20.0));
+		assertThat(stats.getOwners()).isEqualTo(2);
+		assertThat(stats.getListingsPerOwner().getMean()).isEqualTo(1.5);
+	}
+
+	@Test
+	void changesAreAppliedWithoutRebuild() {
+		Rental rental = rentalService.createRental("maison 1", 50, 100000, "/uploads/a.jpg", "description", alice.getUserId());
+		catalogueProjection.rebuild();
+		RentalStatsDto before = rentalStatsService.getStats();
+
+		rentalService.createRental("maison 2", 100, 900000, "/uploads/a.jpg", "description", bob.getUserId());
+		rentalService.updateRental(rental.getRentalId(), null, null, 300000, null, null, bob.getUserId());
+		catalogueProjection.followFeed();
+		RentalStatsDto after = rentalStatsService.getStats();
+
+		assertThat(before.getCount()).isEqualTo(1);
+		assertThat(after.getCount()).isEqualTo(2);
+		assertThat(after.getPrice().getMin()).isCloseTo(300000, within(3000.0));
+		assertThat(after.getOwners()).isEqualTo(1);
+		assertThat(after.getListingsPerOwner().getMax()).isCloseTo(2, within(0.1));
+	}
+
+	@Test
+	void sameStateAppliedTwiceIsCountedOnce() {
+		RentalStatistics statistics = new RentalStatistics(0.01);
+		statistics.apply(1, 100000, 50, 1);
+		statistics.apply(1, 100000, 50, 1);
+		statistics.apply(1, 120000, 60, 1);
+
+		RentalStatsDto stats = statistics.toDto();
+		assertThat(stats.getCount()).isEqualTo(1);
+		assertThat(stats.getPrice().getMean()).isEqualTo(120000);
+		assertThat(stats.getListingsPerOwner().getMax()).isCloseTo(1, within(0.1));
+	}
+
+	private User persistUser(String email) {
+		User user = new User();
+		user.setEmail(email);
+		user.setName(email);
+		user.setPassword("hash");
+		return entityManager.persist(user);
+	}
+}
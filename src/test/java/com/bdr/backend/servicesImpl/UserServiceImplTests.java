@@ -0,0 +1,169 @@
+package com.bdr.backend.servicesImpl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.bdr.backend.cache.CacheInvalidationBus;
+import com.bdr.backend.cache.Invalidation;
+import com.bdr.backend.cache.LocalInvalidationTransport;
+import com.bdr.backend.models.dtos.UserDto;
+import com.bdr.backend.models.entities.User;
+import com.bdr.backend.repositories.UserRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import({ UserServiceImpl.class, CacheInvalidationBus.class, LocalInvalidationTransport.class, SimpleMeterRegistry.class })
+class UserServiceImplTests {
+
+	@Autowired
+	private UserServiceImpl userService;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Autowired
+	private CacheInvalidationBus cacheInvalidationBus;
+
+	@Autowired
+	private LocalInvalidationTransport transport;
+
+	private Statistics statistics;
+
+	private User alice;
+
+	@BeforeEach
+	void setUp() {
+		alice = userService.createUser("alice@test.com", "hash", "Alice");
+		entityManager.flush();
+		entityManager.clear();
+
+		statistics = entityManager.getEntityManager().getEntityManagerFactory()
+				.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+	}
+
+	@Test
+	void secondLookupIsServedFromTheCache() {
+		UserDto first = userService.getUserDtoByEmail("alice@test.com").orElseThrow();
+		UserDto second = userService.getUserDtoByEmail("alice@test.com").orElseThrow();
+		entityManager.clear();
+		userService.getUserDtoFromUserId(alice.getUserId());
+		userService.getUserDtoFromUserId(alice.getUserId());
+
+		assertThat(second).isSameAs(first);
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+		assertThat(meterRegistry.get("cache.gets").tags("cache", "users.by_email", "result", "hit")
+				.functionCounter().count()).isEqualTo(1);
+	}
+
+	@Test
+	void unknownUsersAreNotCached() {
+		assertThat(userService.getUserDtoByEmail("bob@test.com")).isEmpty();
+		userService.createUser("bob@test.com", "hash", "Bob");
+
+		assertThat(userService.getUserDtoByEmail("bob@test.com")).map(UserDto::getName).contains("Bob");
+	}
+
+	@Test
+	void savingAUserEvictsItsPreviousEntries() {
+		userService.getUserDtoByEmail("alice@test.com");
+		userService.getUserDtoFromUserId(alice.getUserId());
+
+		User renamed = userService.getUserFromUserId(alice.getUserId()).orElseThrow();
+		renamed.setEmail("alice@example.com");
+		renamed.setName("Alice Martin");
+		userService.saveUser(renamed);
+
+		assertThat(userService.getUserDtoFromUserId(alice.getUserId())).map(UserDto::getName).contains("Alice Martin");
+		assertThat(userService.getUserDtoByEmail("alice@example.com")).isPresent();
+		assertThat(userService.getUserDtoByEmail("alice@test.com")).isEmpty();
+	}
+
+	@Test
+	void batchLookupOnlyLoadsTheMissingUsers() {
+		User bob = userService.createUser("bob@test.com", "hash", "Bob");
+		userService.getUserDtoFromUserId(alice.getUserId());
+		statistics.clear();
+
+		assertThat(userService.getUsersFromUserIds(List.of(alice.getUserId(), bob.getUserId(), 999999)))
+				.containsOnlyKeys(alice.getUserId(), bob.getUserId());
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+	}
+
+	@Test
+	void userChangedOnAnotherNodeIsEvicted() {
+		transport.subscribe("other-node");
+		cacheInvalidationBus.poll();
+		userService.getUserDtoFromUserId(alice.getUserId());
+		entityManager.getEntityManager().createNativeQuery("UPDATE users SET name = 'Alice Dubois' WHERE id = ?1")
+				.setParameter(1, alice.getUserId()).executeUpdate();
+		entityManager.clear();
+
+		transport.publish("other-node", List.of(new Invalidation(UserServiceImpl.USERS_CACHE, String.valueOf(alice.getUserId()))));
+		cacheInvalidationBus.poll();
+
+		assertThat(userService.getUserDtoFromUserId(alice.getUserId())).map(UserDto::getName).contains("Alice Dubois");
+	}
+
+	@Test
+	void userCachedByEmailIsEvictedWithItsId() {
+		transport.subscribe("other-node");
+		cacheInvalidationBus.poll();
+		userService.getUserDtoByEmail("alice@test.com");
+		entityManager.getEntityManager().createNativeQuery("UPDATE users SET name = 'Alice Dubois' WHERE id = ?1")
+				.setParameter(1, alice.getUserId()).executeUpdate();
+		entityManager.clear();
+
+		transport.publish("other-node", List.of(new Invalidation(UserServiceImpl.USERS_CACHE, String.valueOf(alice.getUserId()))));
+		cacheInvalidationBus.poll();
+
+		assertThat(userService.getUserDtoByEmail("alice@test.com")).map(UserDto::getName).contains("Alice Dubois");
+	}
+
+	@Test
+	void lookupOverlappingAnEvictionIsNotKept() {
+		UserRepository repository = (UserRepository) ReflectionTestUtils.getField(userService, "userRepository");
+		UserRepository racingRepository = mock(UserRepository.class, delegatesTo(repository));
+		// The user is changed and evicted after the lookup read it, before the cache stores it
+		doAnswer(invocation -> {
+			Optional<User> stale = repository.findByEmail("alice@test.com");
+			entityManager.getEntityManager().createNativeQuery("UPDATE users SET name = 'Alice Dubois' WHERE id = ?1")
+					.setParameter(1, alice.getUserId()).executeUpdate();
+			entityManager.clear();
+			ReflectionTestUtils.invokeMethod(userService, "evictLocally", alice.getUserId());
+			return stale;
+		}).when(racingRepository).findByEmail("alice@test.com");
+		ReflectionTestUtils.setField(userService, "userRepository", racingRepository);
+		try {
+			assertThat(userService.getUserDtoByEmail("alice@test.com")).map(UserDto::getName).contains("Alice");
+		} finally {
+			ReflectionTestUtils.setField(userService, "userRepository", repository);
+		}
+
+		assertThat(userService.getUserDtoByEmail("alice@test.com")).map(UserDto::getName).contains("Alice Dubois");
+	}
+}
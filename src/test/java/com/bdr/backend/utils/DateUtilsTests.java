@@ -0,0 +1,68 @@
+package com.bdr.backend.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.junit.jupiter.api.Test;
+
+class DateUtilsTests {
+
+	private static final DateTimeFormatter REFERENCE = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")
+			.withZone(ZoneId.systemDefault());
+
+	@Test
+	void formatsLikeTheMySQLPattern() {
+		Instant instant = Instant.parse("2024-06-01T10:15:30.123456Z");
+
+		assertThat(DateUtils.formatToMySQLDateTime(instant)).isEqualTo(REFERENCE.format(instant));
+		assertThat(DateUtils.formatToMySQLDateTime(null)).isNull();
+	}
+
+	@Test
+	void formatsCorrectlyUnderParallelWrites() throws Exception {
+		int threads = 8;
+		int iterations = 50_000;
+		long base = Instant.parse("2024-06-01T10:00:00Z").getEpochSecond();
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		CountDownLatch start = new CountDownLatch(1);
+
+		// A handful of seconds and sub-second offsets so the threads keep replacing the cached second
+		Callable<Integer> writer = () -> {
+			start.await();
+			int mismatches = 0;
+			ThreadLocalRandom random = ThreadLocalRandom.current();
+			for (int i = 0; i < iterations; i++) {
+				Instant instant = Instant.ofEpochSecond(base + random.nextInt(4), random.nextInt(1_000_000_000));
+				if (!REFERENCE.format(instant).equals(DateUtils.formatToMySQLDateTime(instant))) {
+					mismatches++;
+				}
+			}
+			return mismatches;
+		};
+
+		try {
+			List<Future<Integer>> results = new ArrayList<>();
+			for (int i = 0; i < threads; i++) {
+				results.add(executor.submit(writer));
+			}
+			start.countDown();
+
+			for (Future<Integer> result : results) {
+				assertThat(result.get()).isZero();
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
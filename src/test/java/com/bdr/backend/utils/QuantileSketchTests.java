@@ -0,0 +1,60 @@
+package com.bdr.backend.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+class QuantileSketchTests {
+
+	@Test
+	void quantilesAreWithinTheRelativeAccuracy() {
+		SplittableRandom random = new SplittableRandom(42);
+		double[] values = new double[10000];
+		QuantileSketch sketch = new QuantileSketch(0.01);
+		for (int i = 0; i < values.length; i++) {
+			values[i] = 250000 * Math.exp(0.5 * random.nextGaussian());
+			sketch.add(values[i]);
+		}
+		Arrays.sort(values);
+
+		for (double quantile : new double[] { 0, 0.5, 0.9, 0.99, 1 }) {
+			double exact = values[(int) Math.floor(quantile * (values.length - 1))];
+			assertThat(sketch.quantile(quantile)).isCloseTo(exact, within(exact * 0.01));
+		}
+	}
+
+	@Test
+	void removedValuesAreNotCounted() {
+		QuantileSketch sketch = new QuantileSketch(0.01);
+		sketch.add(100);
+		sketch.add(200);
+		sketch.add(5000);
+		sketch.remove(5000);
+		sketch.remove(12345);
+
+		assertThat(sketch.getCount()).isEqualTo(2);
+		assertThat(sketch.quantile(1)).isCloseTo(200, within(2.0));
+	}
+
+	@Test
+	void mergedSketchesGiveTheQuantilesOfTheWhole() {
+		QuantileSketch whole = new QuantileSketch(0.01);
+		QuantileSketch first = new QuantileSketch(0.01);
+		QuantileSketch second = new QuantileSketch(0.01);
+		for (int i = 1; i <= 1000; i++) {
+			whole.add(i);
+			(i % 3 == 0 ? first : second).add(i);
+		}
+
+		first.merge(second);
+
+		assertThat(first.getCount()).isEqualTo(1000);
+		for (double quantile : new double[] { 0, 0.25, 0.5, 0.75, 1 }) {
+			assertThat(first.quantile(quantile)).isEqualTo(whole.quantile(quantile));
+		}
+	}
+}
@@ -0,0 +1,128 @@
+package com.bdr.backend.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class SingleFlightTests {
+
+	private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+	private static final int CALLERS = 100;
+
+	private final SingleFlight<String, byte[]> singleFlight = new SingleFlight<>();
+
+	private final ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+
+	private final AtomicInteger loads = new AtomicInteger();
+
+	private final CountDownLatch release = new CountDownLatch(1);
+
+	@AfterEach
+	void tearDown() {
+		release.countDown();
+		executor.shutdownNow();
+	}
+
+	@Test
+	void concurrentCallersShareOneLoadAndOneResult() throws Exception {
+		List<Future<byte[]>> results = submitCallers(() -> {
+			loads.incrementAndGet();
+			await(release);
+			return "{\"rentals\": []}".getBytes();
+		});
+		waitForWaitingCallers();
+		release.countDown();
+
+		byte[] first = results.get(0).get(10, TimeUnit.SECONDS);
+		for (Future<byte[]> result : results) {
+			assertThat(result.get(10, TimeUnit.SECONDS)).isSameAs(first);
+		}
+		assertThat(loads).hasValue(1);
+		assertThat(singleFlight.inFlightCount()).isZero();
+	}
+
+	@Test
+	void theFailureIsGivenToEveryCaller() throws Exception {
+		List<Future<byte[]>> results = submitCallers(() -> {
+			loads.incrementAndGet();
+			await(release);
+			throw new IllegalStateException("database down");
+		});
+		waitForWaitingCallers();
+		release.countDown();
+
+		for (Future<byte[]> result : results) {
+			assertThatThrownBy(() -> result.get(10, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class)
+					.cause().isInstanceOf(IllegalStateException.class).hasMessage("database down");
+		}
+		assertThat(loads).hasValue(1);
+		assertThat(singleFlight.execute("rentals", TIMEOUT, () -> new byte[] { 1 })).containsExactly(1);
+	}
+
+	@Test
+	void waitingCallersGiveUpAfterTheTimeout() throws Exception {
+		Future<byte[]> leader = executor.submit(() -> singleFlight.execute("rentals", TIMEOUT, () -> {
+			await(release);
+			return new byte[0];
+		}));
+		while (singleFlight.inFlightCount() == 0) {
+			Thread.onSpinWait();
+		}
+
+		assertThatThrownBy(() -> singleFlight.execute("rentals", Duration.ofMillis(50), () -> new byte[0]))
+				.isInstanceOf(TimeoutException.class);
+		release.countDown();
+		assertThat(leader.get(10, TimeUnit.SECONDS)).isEmpty();
+	}
+
+	@Test
+	void differentKeysAreNotCoalesced() throws Exception {
+		singleFlight.execute("rentals", TIMEOUT, () -> new byte[] { (byte) loads.incrementAndGet() });
+		singleFlight.execute("rentals-with-owner", TIMEOUT, () -> new byte[] { (byte) loads.incrementAndGet() });
+		singleFlight.execute("rentals", TIMEOUT, () -> new byte[] { (byte) loads.incrementAndGet() });
+
+		assertThat(loads).hasValue(3);
+	}
+
+	private List<Future<byte[]>> submitCallers(Supplier<byte[]> loader) {
+		List<Future<byte[]>> results = new ArrayList<>();
+		for (int i = 0; i < CALLERS; i++) {
+			results.add(executor.submit(() -> singleFlight.execute("rentals", TIMEOUT, loader)));
+		}
+		return results;
+	}
+
+	/**
+	 * Give the callers the time to reach the running call, the first one is blocked in the loader
+	 */
+	private void waitForWaitingCallers() throws InterruptedException {
+		while (loads.get() == 0) {
+			Thread.sleep(1);
+		}
+		Thread.sleep(200);
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}